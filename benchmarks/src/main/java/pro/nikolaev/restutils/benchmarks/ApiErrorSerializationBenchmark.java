@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import pro.nikolaev.restutils.converters.ApiErrorHttpMessageConverter;
+import pro.nikolaev.restutils.converters.ApiErrorJsonWriter;
+import pro.nikolaev.restutils.dto.ApiError;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ApiError} serialization with {@link ApiErrorHttpMessageConverter}
+ * compared to {@link MappingJackson2HttpMessageConverter}.
+ *
+ * <ul>
+ *     <li>{@code dynamic} - neither message nor details are known in advance</li>
+ *     <li>{@code message} - message is prepared, details are rendered per call</li>
+ *     <li>{@code prepared} - the whole body is prepared</li>
+ * </ul>
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiErrorSerializationBenchmark {
+
+    @Param({"dynamic", "message", "prepared"})
+    public String body;
+
+    private final ApiErrorHttpMessageConverter converter = new ApiErrorHttpMessageConverter();
+    private final MappingJackson2HttpMessageConverter jackson = new MappingJackson2HttpMessageConverter();
+    private final Fixtures.DiscardingOutputMessage outputMessage = Fixtures.outputMessage();
+    private ApiError error;
+
+    @Setup
+    public void setUp() {
+        switch (body) {
+            case "dynamic" -> error = new ApiError("Ошибка " + System.nanoTime(), Fixtures.DETAILS + " \"42\"");
+            case "message" -> {
+                ApiErrorJsonWriter.prepare(Fixtures.REASON);
+                error = new ApiError(Fixtures.REASON, Fixtures.DETAILS + " \"42\"");
+            }
+            case "prepared" -> {
+                error = new ApiError(Fixtures.REASON, Fixtures.DETAILS);
+                ApiErrorJsonWriter.prepare(error);
+            }
+            default -> throw new IllegalArgumentException(body);
+        }
+    }
+
+    @Benchmark
+    public long apiErrorConverter() throws IOException {
+        converter.write(error, MediaType.APPLICATION_JSON, outputMessage.reset());
+        return outputMessage.getWritten();
+    }
+
+    @Benchmark
+    public long jackson() throws IOException {
+        jackson.write(error, MediaType.APPLICATION_JSON, outputMessage.reset());
+        return outputMessage.getWritten();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import pro.nikolaev.restutils.exceptions.ApiException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of creating {@link ApiException} with and without stack trace at different stack depths.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiExceptionBenchmark {
+
+    @Param({"10", "100"})
+    public int depth;
+
+    @Benchmark
+    public ApiException withStackTrace() {
+        return withStackTrace(depth);
+    }
+
+    @Benchmark
+    public ApiException stackless() {
+        return stackless(depth);
+    }
+
+    @Benchmark
+    public ApiException constant() {
+        return constant(depth);
+    }
+
+    private static ApiException withStackTrace(int depth) {
+        return depth == 0
+                ? new ApiException(HttpStatus.CONFLICT, Fixtures.REASON, Fixtures.DETAILS)
+                : withStackTrace(depth - 1);
+    }
+
+    private static ApiException stackless(int depth) {
+        return depth == 0 ? ApiException.of(HttpStatus.CONFLICT, Fixtures.REASON, Fixtures.DETAILS) : stackless(depth - 1);
+    }
+
+    private static ApiException constant(int depth) {
+        return depth == 0
+                ? ApiException.constant(HttpStatus.CONFLICT, Fixtures.REASON, Fixtures.DETAILS)
+                : constant(depth - 1);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.benchmarks;
+
+import jakarta.servlet.MultipartConfigElement;
+import jakarta.servlet.ServletException;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockServletConfig;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.handler.HandlerExceptionResolverComposite;
+import pro.nikolaev.restutils.annotations.EnableRestExceptionHandler;
+import pro.nikolaev.restutils.components.ExceptionHandlingAdviceResolver;
+import pro.nikolaev.restutils.dto.ApiResult;
+import pro.nikolaev.restutils.exceptions.ApiException;
+
+import java.util.List;
+
+/**
+ * Application used by end-to-end benchmarks.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableWebMvc
+@EnableRestExceptionHandler
+public class BenchmarkApplication {
+
+    @Bean
+    public MultipartConfigElement multipartConfigElement() {
+        return new MultipartConfigElement("", 1 << 20, 10 << 20, 0);
+    }
+
+    /**
+     * Start {@link DispatcherServlet} with a new context of this application.
+     *
+     * @param directResolver whether to keep {@link ExceptionHandlingAdviceResolver}, if not
+     *                       exceptions are resolved by Spring through reflection
+     * @return initialized servlet
+     */
+    public static DispatcherServlet start(boolean directResolver) throws ServletException {
+        AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
+        context.register(BenchmarkApplication.class);
+        MockServletContext servletContext = new MockServletContext();
+        context.setServletContext(servletContext);
+        DispatcherServlet servlet = new DispatcherServlet(context);
+        servlet.init(new MockServletConfig(servletContext));
+        if (!directResolver) {
+            HandlerExceptionResolverComposite composite =
+                    context.getBean("handlerExceptionResolver", HandlerExceptionResolverComposite.class);
+            List<HandlerExceptionResolver> resolvers = composite.getExceptionResolvers().stream()
+                    .filter(resolver -> !(resolver instanceof ExceptionHandlingAdviceResolver))
+                    .toList();
+            composite.setExceptionResolvers(resolvers);
+        }
+        return servlet;
+    }
+
+    @RestController
+    public static class OrderController {
+        private static final ApiException PAID =
+                ApiException.constant(HttpStatus.CONFLICT, Fixtures.REASON, Fixtures.DETAILS);
+
+        @GetMapping("/ok")
+        public Fixtures.Order ok() {
+            return new Fixtures.Order("ok");
+        }
+
+        @GetMapping("/api-exception")
+        public Fixtures.Order apiException() {
+            throw new ApiException(HttpStatus.CONFLICT, Fixtures.REASON, Fixtures.DETAILS);
+        }
+
+        @GetMapping("/stackless")
+        public Fixtures.Order stackless() {
+            throw ApiException.conflict(Fixtures.REASON, Fixtures.DETAILS);
+        }
+
+        @GetMapping("/constant")
+        public Fixtures.Order constant() {
+            throw PAID;
+        }
+
+        @GetMapping("/result")
+        public ApiResult<Fixtures.Order> result() {
+            return ApiResult.error(PAID);
+        }
+
+        @GetMapping("/unexpected")
+        public Fixtures.Order unexpected() {
+            throw new IllegalStateException("Connection refused");
+        }
+
+        @GetMapping("/orders/{id}")
+        public Fixtures.Order order(@PathVariable("id") int id) {
+            return new Fixtures.Order(String.valueOf(id));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.benchmarks;
+
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.DispatcherServlet;
+import pro.nikolaev.restutils.components.ExceptionHandlingAdviceResolver;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end request processing through a standalone {@link DispatcherServlet} with mock requests.
+ * {@code /ok} is the baseline of a successful request, {@code /missing} has no handler,
+ * {@code /orders/abc} fails argument conversion.
+ *
+ * <p>{@code resolver=direct} uses {@link ExceptionHandlingAdviceResolver},
+ * {@code resolver=spring} leaves resolution to Spring's reflective exception resolver.
+ * {@link #firstError()} measures the first error after startup in every fork.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DispatcherServletBenchmark {
+
+    @Param({"/ok", "/api-exception", "/stackless", "/constant", "/result", "/unexpected", "/orders/abc", "/missing"})
+    public String path;
+
+    @Param({"direct", "spring"})
+    public String resolver;
+
+    private DispatcherServlet servlet;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ServletException {
+        servlet = BenchmarkApplication.start("direct".equals(resolver));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        servlet.destroy();
+    }
+
+    @Benchmark
+    public int request() throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        servlet.service(new MockHttpServletRequest(servlet.getServletContext(), "GET", path), response);
+        return response.getContentLength();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public int firstError() throws ServletException, IOException {
+        return request();
+    }
+}
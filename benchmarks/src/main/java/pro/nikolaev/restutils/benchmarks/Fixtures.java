@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.benchmarks;
+
+import jakarta.servlet.MultipartConfigElement;
+import org.apache.tomcat.util.http.fileupload.impl.FileSizeLimitExceededException;
+import org.apache.tomcat.util.http.fileupload.impl.SizeLimitExceededException;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.resource.NoResourceFoundException;
+import pro.nikolaev.restutils.components.ExceptionHandlingAdvice;
+import pro.nikolaev.restutils.exceptions.ApiException;
+
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Exceptions, requests and advice instances shared by benchmarks.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+public final class Fixtures {
+    public static final String REASON = "Конфликт";
+    public static final String DETAILS = "Заказ уже оплачен";
+
+    private Fixtures() {
+    }
+
+    /**
+     * @return advice with 1 Mb file and 10 Mb request size limits which doesn't log exceptions
+     */
+    public static ExceptionHandlingAdvice advice() {
+        ExceptionHandlingAdvice advice = new ExceptionHandlingAdvice(
+                new MultipartConfigElement("", 1 << 20, 10 << 20, 0));
+        advice.setExceptionLogger((exception, context) -> {
+        });
+        return advice;
+    }
+
+    public static MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/orders/42");
+    }
+
+    public static ApiException apiException() {
+        return new ApiException(HttpStatus.CONFLICT, REASON, DETAILS);
+    }
+
+    public static HttpRequestMethodNotSupportedException methodNotSupported() {
+        return new HttpRequestMethodNotSupportedException("DELETE", List.of("GET", "POST"));
+    }
+
+    public static MethodArgumentNotValidException notValid() {
+        Order target = new Order(null);
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(target, "order");
+        bindingResult.addError(new FieldError("order", "name", "must not be null"));
+        return new MethodArgumentNotValidException(parameter("create", Order.class), bindingResult);
+    }
+
+    public static HttpMessageNotReadableException notReadable() {
+        return new HttpMessageNotReadableException("JSON parse error: Unexpected end-of-input",
+                new MockHttpInputMessage(new byte[0]));
+    }
+
+    public static MethodArgumentTypeMismatchException typeMismatch() {
+        return new MethodArgumentTypeMismatchException("abc", int.class, "id",
+                parameter("get", int.class), new NumberFormatException("For input string: \"abc\""));
+    }
+
+    public static HttpMediaTypeNotAcceptableException notAcceptable() {
+        return new HttpMediaTypeNotAcceptableException(List.of(MediaType.APPLICATION_JSON));
+    }
+
+    public static HttpMediaTypeNotSupportedException notSupported() {
+        return new HttpMediaTypeNotSupportedException(MediaType.TEXT_PLAIN, List.of(MediaType.APPLICATION_JSON));
+    }
+
+    public static MaxUploadSizeExceededException requestTooLarge() {
+        return new MaxUploadSizeExceededException(10 << 20, new IllegalStateException(
+                new SizeLimitExceededException("Request too large", 20 << 20, 10 << 20)));
+    }
+
+    public static MaxUploadSizeExceededException fileTooLarge() {
+        return new MaxUploadSizeExceededException(1 << 20, new IllegalStateException(
+                new FileSizeLimitExceededException("File too large", 2 << 20, 1 << 20)));
+    }
+
+    public static ResponseStatusException statusException() {
+        return new ResponseStatusException(HttpStatus.CONFLICT, REASON);
+    }
+
+    public static NoResourceFoundException noResource() {
+        return new NoResourceFoundException(HttpMethod.GET, "static/missing.js");
+    }
+
+    public static AccessDeniedException accessDenied() {
+        return new AccessDeniedException("Access is denied");
+    }
+
+    public static IllegalStateException unexpected() {
+        return new IllegalStateException("Connection refused");
+    }
+
+    /**
+     * @return output message discarding the body, with headers cleared on every call of {@link #reset()}
+     */
+    public static DiscardingOutputMessage outputMessage() {
+        return new DiscardingOutputMessage();
+    }
+
+    private static MethodParameter parameter(String method, Class<?> type) {
+        try {
+            return new MethodParameter(Controller.class.getMethod(method, type), 0);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Order(String name) {
+    }
+
+    public interface Controller {
+
+        Order create(Order order);
+
+        Order get(int id);
+    }
+
+    /**
+     * {@link HttpOutputMessage} counting written bytes instead of storing them.
+     */
+    public static final class DiscardingOutputMessage implements HttpOutputMessage {
+        private final HttpHeaders headers = new HttpHeaders();
+        private long written;
+        private final OutputStream body = new OutputStream() {
+            @Override
+            public void write(int b) {
+                written++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                written += len;
+            }
+        };
+
+        public DiscardingOutputMessage reset() {
+            headers.clear();
+            return this;
+        }
+
+        public long getWritten() {
+            return written;
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
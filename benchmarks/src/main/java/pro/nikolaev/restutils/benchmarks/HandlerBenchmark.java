@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.benchmarks;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.resource.NoResourceFoundException;
+import pro.nikolaev.restutils.components.ExceptionHandlingAdvice;
+import pro.nikolaev.restutils.dto.ApiError;
+import pro.nikolaev.restutils.exceptions.ApiException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each {@link ExceptionHandlingAdvice} handler invoked directly with a pre-built exception,
+ * so only the handler itself is measured. Exception logging is disabled.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandlerBenchmark {
+    private final ExceptionHandlingAdvice advice = Fixtures.advice();
+    private final HttpServletRequest request = Fixtures.request();
+    private final ApiException apiException = Fixtures.apiException();
+    private final HttpRequestMethodNotSupportedException methodNotSupported = Fixtures.methodNotSupported();
+    private final MethodArgumentNotValidException notValid = Fixtures.notValid();
+    private final HttpMessageNotReadableException notReadable = Fixtures.notReadable();
+    private final MethodArgumentTypeMismatchException typeMismatch = Fixtures.typeMismatch();
+    private final HttpMediaTypeNotAcceptableException notAcceptable = Fixtures.notAcceptable();
+    private final HttpMediaTypeNotSupportedException notSupported = Fixtures.notSupported();
+    private final MaxUploadSizeExceededException requestTooLarge = Fixtures.requestTooLarge();
+    private final ResponseStatusException statusException = Fixtures.statusException();
+    private final NoResourceFoundException noResource = Fixtures.noResource();
+    private final AccessDeniedException accessDenied = Fixtures.accessDenied();
+    private final IllegalStateException unexpected = Fixtures.unexpected();
+
+    @Benchmark
+    public ResponseEntity<ApiError> handleApiException() {
+        return advice.handleApiException(apiException, request);
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiError> handle405() {
+        return advice.handle405(methodNotSupported, request);
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiError> handle400NotValid() {
+        return advice.handle400(notValid, request);
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiError> handle400NotReadable() {
+        return advice.handle400(notReadable, request);
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiError> handle400TypeMismatch() {
+        return advice.handle400(typeMismatch, request);
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiError> handle406() {
+        return advice.handle406(notAcceptable, request);
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiError> handle415() {
+        return advice.handle415(notSupported, request);
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiError> handle413() {
+        return advice.handle413(requestTooLarge, request);
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiError> handleStatusException() {
+        return advice.handleStatusException(statusException, request);
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiError> handle404() {
+        return advice.handle404(noResource, request);
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiError> handle403() {
+        return advice.handle403(accessDenied, request);
+    }
+
+    @Benchmark
+    public ResponseEntity<ApiError> handleUnexpectedException() {
+        return advice.handleUnexpectedException(unexpected, request);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.benchmarks;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import pro.nikolaev.restutils.validation.FailFastValidationConfiguration;
+import pro.nikolaev.restutils.validation.ValidationProfile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation of a deep nested request body the way {@code Spring MVC} does it for {@code @Valid @RequestBody},
+ * with {@link ValidationProfile#FULL} and {@link ValidationProfile#FAIL_FAST} validators.
+ * An invalid body violates constraints in every order line, a valid one has to be checked completely
+ * in both profiles.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+    private static final int LINES = 50;
+
+    @Param({"FULL", "FAIL_FAST"})
+    public ValidationProfile profile;
+
+    @Param({"valid", "invalid"})
+    public String body;
+
+    private LocalValidatorFactoryBean validator;
+    private Order order;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        validator = new LocalValidatorFactoryBean();
+        if (profile == ValidationProfile.FAIL_FAST) {
+            validator.getValidationPropertyMap().put(FailFastValidationConfiguration.FAIL_FAST_PROPERTY, "true");
+        }
+        validator.afterPropertiesSet();
+        order = order(body.equals("valid"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        validator.close();
+    }
+
+    @Benchmark
+    public FieldError validate() {
+        BeanPropertyBindingResult errors = new BeanPropertyBindingResult(order, "order");
+        validator.validate(order, errors);
+        return errors.getFieldError();
+    }
+
+    private static Order order(boolean valid) {
+        List<Line> lines = new ArrayList<>(LINES);
+        for (int i = 0; i < LINES; i++) {
+            Dimensions dimensions = new Dimensions(valid ? 10 : 0, valid ? 20 : 0, valid ? 30 : 0);
+            Product product = new Product(valid ? "SKU-" + i : "", "Товар " + i, dimensions);
+            lines.add(new Line(product, valid ? 1 : -1, valid ? "RUB" : "рубли"));
+        }
+        Address address = new Address("Москва", "Тверская", "101000");
+        return new Order("ORD-1", new Customer("Иван", "ivan@example.com", address), lines);
+    }
+
+    public record Order(@NotBlank String number, @NotNull @Valid Customer customer,
+                        @NotNull @Size(min = 1, max = 1000) List<@Valid Line> lines) {
+    }
+
+    public record Customer(@NotBlank String name, @NotBlank String email, @NotNull @Valid Address address) {
+    }
+
+    public record Address(@NotBlank String city, @NotBlank String street, @Pattern(regexp = "\\d{6}") String zip) {
+    }
+
+    public record Line(@NotNull @Valid Product product, @Positive int quantity,
+                       @Pattern(regexp = "[A-Z]{3}") String currency) {
+    }
+
+    public record Product(@NotBlank String sku, @NotBlank @Size(max = 200) String name,
+                          @NotNull @Valid Dimensions dimensions) {
+    }
+
+    public record Dimensions(@Min(1) int width, @Min(1) int height, @Min(1) int depth) {
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.loadtest;
+
+import pro.nikolaev.restutils.metrics.LatencyHistogram;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Minimal {@code HTTP/1.1} client sending requests over a single keep-alive
+ * connection and reconnecting only when the server closes it.
+ *
+ * <p>A plain socket is used instead of a pooling client, so every connection
+ * opened by the load test is visible and caused by the server.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+final class LoadClient implements Runnable {
+    private final InetSocketAddress address;
+    private final LoadTestOptions options;
+    private final LatencyHistogram latency;
+    private final long measureFrom;
+    private final long measureUntil;
+    private final StringBuilder line = new StringBuilder(128);
+
+    private Socket socket;
+    private InputStream in;
+    private OutputStream out;
+
+    long requests;
+    long errors;
+    long connections;
+    long closedByServer;
+    long failures;
+
+    LoadClient(InetSocketAddress address, LoadTestOptions options, LatencyHistogram latency,
+               long measureFrom, long measureUntil) {
+        this.address = address;
+        this.options = options;
+        this.latency = latency;
+        this.measureFrom = measureFrom;
+        this.measureUntil = measureUntil;
+    }
+
+    @Override
+    public void run() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now;
+        while ((now = System.nanoTime()) < measureUntil) {
+            boolean measured = now >= measureFrom;
+            RequestKind kind = random.nextDouble() < options.errorRatio() ? options.error() : RequestKind.OK;
+            try {
+                long start = System.nanoTime();
+                if (socket == null) {
+                    connect();
+                    if (measured) {
+                        connections++;
+                    }
+                }
+                out.write(kind.request());
+                out.flush();
+                int status = readResponse();
+                if (measured) {
+                    latency.record(System.nanoTime() - start);
+                    requests++;
+                    if (status >= 400) {
+                        errors++;
+                    }
+                }
+                if (socket == null && measured) {
+                    closedByServer++;
+                }
+            } catch (IOException e) {
+                close();
+                if (measured) {
+                    failures++;
+                }
+            }
+        }
+        close();
+    }
+
+    private void connect() throws IOException {
+        socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(address);
+        in = new BufferedInputStream(socket.getInputStream());
+        out = socket.getOutputStream();
+    }
+
+    /**
+     * Read the response and close the socket if the server asked for it.
+     *
+     * @return the response status
+     */
+    private int readResponse() throws IOException {
+        String statusLine = readLine();
+        int status = Integer.parseInt(statusLine.substring(9, 12));
+        long contentLength = -1;
+        boolean chunked = false;
+        boolean close = false;
+        for (String header = readLine(); !header.isEmpty(); header = readLine()) {
+            int colon = header.indexOf(':');
+            String name = header.substring(0, colon);
+            String value = header.substring(colon + 1).trim();
+            if (name.equalsIgnoreCase("Content-Length")) {
+                contentLength = Long.parseLong(value);
+            } else if (name.equalsIgnoreCase("Transfer-Encoding")) {
+                chunked = value.equalsIgnoreCase("chunked");
+            } else if (name.equalsIgnoreCase("Connection")) {
+                close = value.equalsIgnoreCase("close");
+            }
+        }
+        if (chunked) {
+            for (long size = Long.parseLong(readLine(), 16); size > 0; size = Long.parseLong(readLine(), 16)) {
+                skip(size);
+                readLine();
+            }
+            readLine();
+        } else if (contentLength > 0) {
+            skip(contentLength);
+        } else if (contentLength < 0) {
+            close = true;
+        }
+        if (close) {
+            close();
+        }
+        return status;
+    }
+
+    private String readLine() throws IOException {
+        line.setLength(0);
+        for (int b = in.read(); b != '\n'; b = in.read()) {
+            if (b < 0) {
+                throw new EOFException("Connection closed by server");
+            }
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+
+    private void skip(long length) throws IOException {
+        for (long remaining = length; remaining > 0; ) {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException("Connection closed by server");
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
+    private void close() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // nothing to do
+            }
+            socket = null;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.loadtest;
+
+import org.apache.catalina.startup.Tomcat;
+import pro.nikolaev.restutils.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Load test entry point.
+ *
+ * <p>Starts {@link LoadTestApplication} on embedded Tomcat, drives it with
+ * {@link LoadClient} threads and prints throughput, latency percentiles, the number
+ * of connections opened and the number of sockets in {@code TIME_WAIT}.
+ * Everything runs on the loopback interface, sockets are read from {@code /proc/net}.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+public final class LoadTest {
+    private static final String TIME_WAIT = "06";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(LoadTestOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        Tomcat tomcat = LoadTestApplication.start(options.connection());
+        try {
+            int port = tomcat.getConnector().getLocalPort();
+            System.out.printf(Locale.ROOT, "Tomcat started on port %d: threads=%d, error=%s, error-ratio=%.3f, connection=%s%n",
+                    port, options.threads(), options.error(), options.errorRatio(), options.connection());
+            run(options, new InetSocketAddress("127.0.0.1", port));
+        } finally {
+            tomcat.stop();
+            tomcat.destroy();
+        }
+    }
+
+    private static void run(LoadTestOptions options, InetSocketAddress address) throws Exception {
+        LatencyHistogram latency = new LatencyHistogram();
+        long measureFrom = System.nanoTime() + options.warmup().toNanos();
+        long measureUntil = measureFrom + options.duration().toNanos();
+
+        List<LoadClient> clients = new ArrayList<>(options.threads());
+        List<Thread> threads = new ArrayList<>(options.threads());
+        for (int i = 0; i < options.threads(); i++) {
+            LoadClient client = new LoadClient(address, options, latency, measureFrom, measureUntil);
+            clients.add(client);
+            threads.add(new Thread(client, "load-client-" + i));
+        }
+        int timeWaitBefore = countTimeWait(address.getPort());
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        int timeWaitAfter = countTimeWait(address.getPort());
+
+        long requests = 0, errors = 0, connections = 0, closedByServer = 0, failures = 0;
+        for (LoadClient client : clients) {
+            requests += client.requests;
+            errors += client.errors;
+            connections += client.connections;
+            closedByServer += client.closedByServer;
+            failures += client.failures;
+        }
+        double seconds = options.duration().toNanos() / 1e9;
+        System.out.printf(Locale.ROOT, "requests:            %d (%.1f req/s)%n", requests, requests / seconds);
+        System.out.printf(Locale.ROOT, "error responses:     %d (%.1f%%)%n", errors, percent(errors, requests));
+        System.out.printf(Locale.ROOT, "latency, us:         p50=%.1f p99=%.1f p999=%.1f max=%.1f%n",
+                latency.getPercentile(50) / 1e3, latency.getPercentile(99) / 1e3,
+                latency.getPercentile(99.9) / 1e3, latency.getMax() / 1e3);
+        System.out.printf(Locale.ROOT, "connections opened:  %d (%.1f requests per connection)%n",
+                connections, connections == 0 ? (double) requests : (double) requests / connections);
+        System.out.printf(Locale.ROOT, "closed by server:    %d%n", closedByServer);
+        System.out.printf(Locale.ROOT, "I/O failures:        %d%n", failures);
+        if (timeWaitAfter >= 0) {
+            System.out.printf(Locale.ROOT, "TIME_WAIT sockets:   %d (%d before the test)%n", timeWaitAfter, timeWaitBefore);
+        } else {
+            System.out.println("TIME_WAIT sockets:   unavailable, /proc/net/tcp is not readable");
+        }
+    }
+
+    private static double percent(long part, long total) {
+        return total == 0 ? 0 : part * 100.0 / total;
+    }
+
+    /**
+     * Count sockets in {@code TIME_WAIT} state on either side of connections to the given port.
+     *
+     * @param port the server port
+     * @return number of sockets or {@code -1} if {@code /proc/net} is not available
+     */
+    static int countTimeWait(int port) {
+        String hexPort = String.format(Locale.ROOT, ":%04X", port);
+        int count = 0;
+        boolean available = false;
+        for (String table : List.of("/proc/net/tcp", "/proc/net/tcp6")) {
+            List<String> lines;
+            try {
+                lines = Files.readAllLines(Path.of(table));
+            } catch (IOException e) {
+                continue;
+            }
+            available = true;
+            for (int i = 1; i < lines.size(); i++) {
+                String[] columns = lines.get(i).trim().split("\\s+");
+                if (columns.length > 3 && TIME_WAIT.equals(columns[3])
+                        && (columns[1].endsWith(hexPort) || columns[2].endsWith(hexPort))) {
+                    count++;
+                }
+            }
+        }
+        return available ? count : -1;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.loadtest;
+
+import jakarta.servlet.MultipartConfigElement;
+import org.apache.catalina.Lifecycle;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.core.StandardContext;
+import org.apache.catalina.startup.Tomcat;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import pro.nikolaev.restutils.annotations.EnableRestExceptionHandler;
+import pro.nikolaev.restutils.connection.ConnectionMode;
+import pro.nikolaev.restutils.connection.DefaultConnectionPolicy;
+import pro.nikolaev.restutils.exceptions.ApiException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Application served by embedded Tomcat during the load test.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableWebMvc
+@EnableRestExceptionHandler
+public class LoadTestApplication {
+
+    @Bean
+    public MultipartConfigElement multipartConfigElement() {
+        return new MultipartConfigElement("", 1 << 20, 10 << 20, 0);
+    }
+
+    /**
+     * Start embedded Tomcat on a random local port.
+     *
+     * <p>Keep-alive is not limited by the number of requests, so every
+     * connection closed during the test is closed because of an error response.
+     *
+     * @param errorMode connection mode for all error responses,
+     *                  {@link ConnectionMode#DEFAULT} keeps the library default
+     * @return started server
+     */
+    public static Tomcat start(ConnectionMode errorMode) throws IOException, LifecycleException {
+        Path baseDir = Files.createTempDirectory("rest-utils-load-test");
+        baseDir.toFile().deleteOnExit();
+
+        Logger.getLogger("org.apache").setLevel(Level.WARNING);
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(baseDir.toString());
+        Connector connector = new Connector();
+        connector.setPort(0);
+        connector.setProperty("address", "127.0.0.1");
+        connector.setProperty("maxKeepAliveRequests", "-1");
+        tomcat.setConnector(connector);
+
+        AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
+        context.register(LoadTestApplication.class);
+        if (errorMode != ConnectionMode.DEFAULT) {
+            DefaultConnectionPolicy policy = new DefaultConnectionPolicy()
+                    .setMode(HttpStatus.Series.CLIENT_ERROR, errorMode)
+                    .setMode(HttpStatus.Series.SERVER_ERROR, errorMode);
+            context.addBeanFactoryPostProcessor(beanFactory -> beanFactory.registerSingleton("connectionPolicy", policy));
+        }
+
+        // Tomcat.addContext() scans servlets for jakarta.annotation which is not on the classpath
+        StandardContext servletContext = new StandardContext();
+        servletContext.setPath("");
+        servletContext.setDocBase(baseDir.toString());
+        servletContext.setClearReferencesObjectStreamClassCaches(false);
+        servletContext.setClearReferencesRmiTargets(false);
+        servletContext.setClearReferencesThreadLocals(false);
+        servletContext.addLifecycleListener(event -> {
+            if (Lifecycle.CONFIGURE_START_EVENT.equals(event.getType())) {
+                servletContext.setConfigured(true);
+            }
+        });
+        tomcat.getHost().addChild(servletContext);
+        Tomcat.addServlet(servletContext, "dispatcher", new DispatcherServlet(context)).setLoadOnStartup(1);
+        servletContext.addServletMappingDecoded("/", "dispatcher");
+        tomcat.start();
+        return tomcat;
+    }
+
+    public record Order(String name) {
+    }
+
+    @RestController
+    public static class OrderController {
+        private static final ApiException PAID =
+                ApiException.constant(HttpStatus.CONFLICT, "Заказ уже оплачен", "Повторная оплата невозможна");
+
+        @GetMapping("/ok")
+        public Order ok() {
+            return new Order("ok");
+        }
+
+        @GetMapping("/constant")
+        public Order constant() {
+            throw PAID;
+        }
+
+        @GetMapping("/api-exception")
+        public Order apiException() {
+            throw new ApiException(HttpStatus.CONFLICT, "Заказ уже оплачен", "Повторная оплата невозможна");
+        }
+
+        @GetMapping("/unexpected")
+        public Order unexpected() {
+            throw new IllegalStateException("Connection refused");
+        }
+
+        @PostMapping("/orders")
+        public Order create(@RequestBody Order order) {
+            return order;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.loadtest;
+
+import pro.nikolaev.restutils.connection.ConnectionMode;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Load test options parsed from {@code --name=value} command line arguments.
+ *
+ * @param threads    number of client threads, each with its own connection
+ * @param warmup     warmup duration excluded from the report
+ * @param duration   measurement duration
+ * @param errorRatio share of requests that result in an error, from {@code 0} to {@code 1}
+ * @param error      kind of error requests
+ * @param connection connection mode for error responses
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+public record LoadTestOptions(int threads, Duration warmup, Duration duration, double errorRatio,
+                              RequestKind error, ConnectionMode connection) {
+
+    static final String USAGE = """
+            Usage: java -jar load-test.jar [options]
+              --threads=N          client threads, each with its own connection (default 8)
+              --warmup=SECONDS     warmup excluded from the report (default 5)
+              --duration=SECONDS   measurement duration (default 20)
+              --error-ratio=R      share of error requests from 0 to 1 (default 0.1)
+              --error=KIND         constant, api_exception, unexpected or unreadable (default unreadable)
+              --connection=MODE    default, auto, keep_alive or close for error responses (default default)
+            """;
+
+    public LoadTestOptions {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        if (errorRatio < 0 || errorRatio > 1) {
+            throw new IllegalArgumentException("error-ratio must be between 0 and 1");
+        }
+        if (error == RequestKind.OK) {
+            throw new IllegalArgumentException("error must not be ok");
+        }
+    }
+
+    /**
+     * Parse options from command line arguments.
+     *
+     * @param args the arguments
+     * @return parsed options
+     * @throws IllegalArgumentException if an argument is unknown or invalid
+     */
+    public static LoadTestOptions parse(String... args) {
+        int threads = 8;
+        Duration warmup = Duration.ofSeconds(5);
+        Duration duration = Duration.ofSeconds(20);
+        double errorRatio = 0.1;
+        RequestKind error = RequestKind.UNREADABLE;
+        ConnectionMode connection = ConnectionMode.DEFAULT;
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+            String value = arg.substring(separator + 1);
+            switch (arg.substring(2, separator)) {
+                case "threads" -> threads = Integer.parseInt(value);
+                case "warmup" -> warmup = Duration.ofSeconds(Long.parseLong(value));
+                case "duration" -> duration = Duration.ofSeconds(Long.parseLong(value));
+                case "error-ratio" -> errorRatio = Double.parseDouble(value);
+                case "error" -> error = RequestKind.valueOf(value.toUpperCase(Locale.ROOT));
+                case "connection" -> connection = ConnectionMode.valueOf(value.toUpperCase(Locale.ROOT));
+                default -> throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        return new LoadTestOptions(threads, warmup, duration, errorRatio, error, connection);
+    }
+}
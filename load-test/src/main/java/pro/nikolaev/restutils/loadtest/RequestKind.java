@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.loadtest;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Requests sent by the load test client.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+public enum RequestKind {
+
+    /**
+     * Successful request, {@code 200}.
+     */
+    OK("GET", "/ok", null),
+
+    /**
+     * Shared stackless {@code ApiException}, {@code 409}.
+     */
+    CONSTANT("GET", "/constant", null),
+
+    /**
+     * New {@code ApiException} with stack trace, {@code 409}.
+     */
+    API_EXCEPTION("GET", "/api-exception", null),
+
+    /**
+     * Unexpected exception, {@code 500}.
+     */
+    UNEXPECTED("GET", "/unexpected", null),
+
+    /**
+     * Unreadable request body, {@code 400} closing the connection by default.
+     */
+    UNREADABLE("POST", "/orders", "{\"name\":");
+
+    private final byte[] request;
+
+    RequestKind(String method, String path, String body) {
+        StringBuilder request = new StringBuilder()
+                .append(method).append(' ').append(path).append(" HTTP/1.1\r\n")
+                .append("Host: 127.0.0.1\r\n")
+                .append("Accept: application/json\r\n");
+        if (body != null) {
+            request.append("Content-Type: application/json\r\n")
+                    .append("Content-Length: ").append(body.length()).append("\r\n");
+        }
+        request.append("\r\n");
+        if (body != null) {
+            request.append(body);
+        }
+        this.request = request.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Return the encoded {@code HTTP/1.1} request.
+     *
+     * @return request bytes, must not be modified
+     */
+    byte[] request() {
+        return request;
+    }
+}
@@ -20,8 +20,13 @@ import org.springframework.context.annotation.Import;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
-import pro.nikolaev.restutils.components.ExceptionHandlingAdvice;
+import pro.nikolaev.restutils.components.ReactiveExceptionHandler;
+import pro.nikolaev.restutils.components.RestExceptionHandlerImportSelector;
 import pro.nikolaev.restutils.dto.ApiError;
+import pro.nikolaev.restutils.multipart.MultipartMode;
+import pro.nikolaev.restutils.multipart.StreamingMultipartConfiguration;
+import pro.nikolaev.restutils.validation.FailFastValidationConfiguration;
+import pro.nikolaev.restutils.validation.ValidationProfile;
 
 import java.lang.annotation.*;
 
@@ -34,6 +39,8 @@ import java.lang.annotation.*;
  * {@link ExceptionHandler @ExceptionHandler} methods use
  * {@link ResponseBody @ResponseBody} of type {@link ApiError}.
  *
+ * <p>In {@code WebFlux} applications {@link ReactiveExceptionHandler} is registered instead.
+ *
  * @author Ilya Nikolaev
  * @see RestControllerAdvice
  * @see ApiError
@@ -41,7 +48,23 @@ import java.lang.annotation.*;
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.TYPE)
-@Import(ExceptionHandlingAdvice.class)
+@Import(RestExceptionHandlerImportSelector.class)
 @Documented
 public @interface EnableRestExceptionHandler {
+
+    /**
+     * {@link ValidationProfile} of request bodies. {@link ValidationProfile#FAIL_FAST} imports
+     * {@link FailFastValidationConfiguration} if {@code Jakarta Bean Validation} is on the classpath.
+     *
+     * @since 1.2
+     */
+    ValidationProfile validation() default ValidationProfile.FULL;
+
+    /**
+     * {@link MultipartMode} of multipart requests. {@link MultipartMode#STREAMING} imports
+     * {@link StreamingMultipartConfiguration}. Ignored in {@code WebFlux} applications.
+     *
+     * @since 1.2
+     */
+    MultipartMode multipart() default MultipartMode.STANDARD;
 }
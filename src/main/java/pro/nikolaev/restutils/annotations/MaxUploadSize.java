@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pro.nikolaev.restutils.annotations;
+
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.RequestMapping;
+import pro.nikolaev.restutils.annotations.swagger.clienterrors.PayloadTooLarge;
+import pro.nikolaev.restutils.components.UploadSizeFilter;
+
+import java.lang.annotation.*;
+
+/**
+ * Limits request body size of {@link RequestMapping @RequestMapping} methods.
+ *
+ * <p>The limit is enforced by {@link UploadSizeFilter} before the request is dispatched, so oversized
+ * uploads are rejected with HTTP status 413 before multipart parsing starts. Put on a type, applies to all
+ * its handler methods unless overridden on a method. Use {@link PayloadTooLarge @PayloadTooLarge} to document
+ * the response.
+ *
+ * @author Ilya Nikolaev
+ * @see UploadSizeFilter
+ * @since 1.2
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Documented
+public @interface MaxUploadSize {
+
+    /**
+     * Maximum request body size in {@link DataSize#parse(CharSequence)} format, e.g. {@code "10MB"}
+     * or {@code "512KB"}. Bare numbers are bytes.
+     */
+    String value();
+}
@@ -20,7 +20,10 @@ import org.springframework.context.annotation.Import;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
-import pro.nikolaev.restutils.components.PerControllerExceptionHandlingAdvice;
+import pro.nikolaev.restutils.components.PerControllerReactiveExceptionHandler;
+import pro.nikolaev.restutils.components.RestExceptionHandlerImportSelector;
+import pro.nikolaev.restutils.connection.ConnectionMode;
+import pro.nikolaev.restutils.connection.ConnectionPolicy;
 import pro.nikolaev.restutils.dto.ApiError;
 
 import java.lang.annotation.*;
@@ -34,6 +37,8 @@ import java.lang.annotation.*;
  * {@link ExceptionHandler @ExceptionHandler} methods use
  * {@link ResponseBody @ResponseBody} of type {@link ApiError}.
  *
+ * <p>In {@code WebFlux} applications {@link PerControllerReactiveExceptionHandler} is registered instead.
+ *
  * @author Ilya Nikolaev
  * @see RestControllerAdvice
  * @see ApiError
@@ -41,7 +46,16 @@ import java.lang.annotation.*;
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.TYPE)
-@Import(PerControllerExceptionHandlingAdvice.class)
+@Import(RestExceptionHandlerImportSelector.class)
 @Documented
 public @interface RestExceptionHandler {
+
+    /**
+     * {@link ConnectionMode} of error responses produced for the annotated controller.
+     * By default the decision is delegated to the configured {@link ConnectionPolicy}.
+     * Ignored in {@code WebFlux} applications.
+     *
+     * @since 1.2
+     */
+    ConnectionMode connection() default ConnectionMode.DEFAULT;
 }
@@ -25,6 +25,8 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import pro.nikolaev.restutils.download.FileDownload;
+import pro.nikolaev.restutils.export.StreamingExport;
 
 import java.lang.annotation.*;
 
@@ -34,7 +36,7 @@ import java.lang.annotation.*;
  *
  * <p>Methods that carry this annotation will be included in generated
  * openApi documentation with predefined HTTP status code 200.
- * And are assumed to have a {@link ResponseEntity} return type.
+ * And are assumed to have a {@link ResponseEntity}, {@link FileDownload} or {@link StreamingExport} return type.
  * That will have at least {@code Content-Disposition} header specified.
  * {@link ResponseBody @ResponseBody} description and example will
  * not be generated.
@@ -47,6 +49,8 @@ import java.lang.annotation.*;
  * @see ApiResponse
  * @see ResponseEntity
  * @see RestController
+ * @see FileDownload
+ * @see StreamingExport
  * @since 1.0
  */
 @Retention(RetentionPolicy.RUNTIME)
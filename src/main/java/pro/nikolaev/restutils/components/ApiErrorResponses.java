@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pro.nikolaev.restutils.components;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import pro.nikolaev.restutils.connection.ConnectionPolicy;
+import pro.nikolaev.restutils.converters.ApiErrorHttpMessageConverter;
+import pro.nikolaev.restutils.dto.ApiError;
+
+/**
+ * Builds error responses shared by {@link ExceptionHandlingAdvice} and
+ * {@link ApiResultReturnValueHandler}, so both produce the same wire format.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+final class ApiErrorResponses {
+    private static final HttpHeaders JSON_HEADERS = createHeaders(MediaType.APPLICATION_JSON, false);
+    private static final HttpHeaders JSON_CLOSE_HEADERS = createHeaders(MediaType.APPLICATION_JSON, true);
+    private static final HttpHeaders CBOR_HEADERS = createHeaders(MediaType.APPLICATION_CBOR, false);
+    private static final HttpHeaders CBOR_CLOSE_HEADERS = createHeaders(MediaType.APPLICATION_CBOR, true);
+    private static final HttpHeaders SMILE_HEADERS = createHeaders(ApiErrorHttpMessageConverter.APPLICATION_SMILE, false);
+    private static final HttpHeaders SMILE_CLOSE_HEADERS = createHeaders(ApiErrorHttpMessageConverter.APPLICATION_SMILE, true);
+
+    private ApiErrorResponses() {
+    }
+
+    /**
+     * Build {@link ResponseEntity} with body of the media type chosen by
+     * {@link ApiErrorHttpMessageConverter#negotiate(String)} and {@code Connection: Close}
+     * header if required by {@link ConnectionPolicy}. The header is never added for {@code HTTP/2}
+     * requests as connection-specific headers are prohibited there.
+     *
+     * <p>Response headers are shared read-only instances, so nothing but the entity itself
+     * is allocated per call.
+     */
+    static ResponseEntity<ApiError> create(HttpServletRequest request, ConnectionPolicy connectionPolicy,
+                                           HttpStatusCode status, @Nullable Exception e, ApiError body) {
+        boolean close = !isHttp2(request) && connectionPolicy.shouldClose(request, status, e);
+        MediaType mediaType = ApiErrorHttpMessageConverter.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        return new ResponseEntity<>(body, headers(mediaType, close), status);
+    }
+
+    private static HttpHeaders headers(MediaType mediaType, boolean close) {
+        if (mediaType == MediaType.APPLICATION_CBOR) {
+            return close ? CBOR_CLOSE_HEADERS : CBOR_HEADERS;
+        }
+        if (mediaType == ApiErrorHttpMessageConverter.APPLICATION_SMILE) {
+            return close ? SMILE_CLOSE_HEADERS : SMILE_HEADERS;
+        }
+        return close ? JSON_CLOSE_HEADERS : JSON_HEADERS;
+    }
+
+    private static boolean isHttp2(HttpServletRequest request) {
+        return request.getProtocol().startsWith("HTTP/2");
+    }
+
+    private static HttpHeaders createHeaders(MediaType mediaType, boolean close) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(mediaType);
+        if (close) {
+            headers.set(HttpHeaders.CONNECTION, "Close");
+        }
+        return HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+}
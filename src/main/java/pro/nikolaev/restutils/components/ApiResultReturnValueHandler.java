@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pro.nikolaev.restutils.components;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.HttpEntityMethodProcessor;
+import pro.nikolaev.restutils.connection.ConnectionPolicy;
+import pro.nikolaev.restutils.dto.ApiResult;
+import pro.nikolaev.restutils.metrics.ErrorMetrics;
+import pro.nikolaev.restutils.exceptions.ApiException;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link HandlerMethodReturnValueHandler} for controller methods returning {@link ApiResult}.
+ *
+ * <p>{@link ApiResult.Success} is written as a regular response body with its status,
+ * {@link ApiResult.Failure} is written exactly as {@link ExceptionHandlingAdvice}
+ * writes {@link ApiException}, but without any exception resolution involved.
+ * Actual writing is delegated to {@link HttpEntityMethodProcessor}, so message
+ * converters and content negotiation work as usual.
+ *
+ * @author Ilya Nikolaev
+ * @see ApiResult
+ * @since 1.2
+ */
+public class ApiResultReturnValueHandler implements HandlerMethodReturnValueHandler {
+    private final HandlerMethodReturnValueHandler delegate;
+    private final ConnectionPolicy connectionPolicy;
+    @Nullable
+    private final ErrorMetrics errorMetrics;
+    private final Map<MethodParameter, MethodParameter> entityReturnTypes = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new handler.
+     *
+     * @param delegate         handler capable of writing {@link ResponseEntity}, usually {@link HttpEntityMethodProcessor}
+     * @param connectionPolicy policy to decide whether failed results close the connection
+     */
+    public ApiResultReturnValueHandler(HandlerMethodReturnValueHandler delegate, ConnectionPolicy connectionPolicy) {
+        this(delegate, connectionPolicy, null);
+    }
+
+    /**
+     * Create a new handler counting failed results.
+     *
+     * @param delegate         handler capable of writing {@link ResponseEntity}, usually {@link HttpEntityMethodProcessor}
+     * @param connectionPolicy policy to decide whether failed results close the connection
+     * @param errorMetrics     metrics to count failed results in, {@code null} to not count them
+     * @since 1.2
+     */
+    public ApiResultReturnValueHandler(HandlerMethodReturnValueHandler delegate, ConnectionPolicy connectionPolicy,
+                                       @Nullable ErrorMetrics errorMetrics) {
+        Assert.notNull(delegate, "Delegate must not be null");
+        Assert.notNull(connectionPolicy, "ConnectionPolicy must not be null");
+        this.delegate = delegate;
+        this.connectionPolicy = connectionPolicy;
+        this.errorMetrics = errorMetrics;
+    }
+
+    @Override
+    public boolean supportsReturnType(MethodParameter returnType) {
+        return ApiResult.class.isAssignableFrom(returnType.getParameterType());
+    }
+
+    @Override
+    public void handleReturnValue(@Nullable Object returnValue, MethodParameter returnType,
+                                  ModelAndViewContainer mavContainer, NativeWebRequest webRequest) throws Exception {
+        ResponseEntity<?> entity;
+        if (returnValue instanceof ApiResult.Success<?> success) {
+            entity = new ResponseEntity<>(success.body(), success.status());
+        } else if (returnValue instanceof ApiResult.Failure<?> failure) {
+            HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+            Assert.state(request != null, "No HttpServletRequest");
+            if (errorMetrics != null) {
+                errorMetrics.record(request, failure.status(), null);
+            }
+            entity = ApiErrorResponses.create(request, connectionPolicy, failure.status(), null, failure.error());
+        } else {
+            entity = null;
+        }
+        delegate.handleReturnValue(entity, entityReturnTypes.computeIfAbsent(returnType, EntityReturnType::new),
+                mavContainer, webRequest);
+    }
+
+    /**
+     * {@link MethodParameter} that exposes {@code ApiResult<T>} return type
+     * as {@code ResponseEntity<T>} for the delegate.
+     */
+    private static final class EntityReturnType extends MethodParameter {
+        private final Type genericType;
+
+        private EntityReturnType(MethodParameter returnType) {
+            this(returnType, ResolvableType.forClassWithGenerics(ResponseEntity.class,
+                    ResolvableType.forMethodParameter(returnType).as(ApiResult.class).getGeneric()).getType());
+        }
+
+        private EntityReturnType(MethodParameter returnType, Type genericType) {
+            super(returnType);
+            this.genericType = genericType;
+        }
+
+        @Override
+        public Class<?> getParameterType() {
+            return ResponseEntity.class;
+        }
+
+        @Override
+        public Type getGenericParameterType() {
+            return genericType;
+        }
+
+        @Override
+        public EntityReturnType clone() {
+            return new EntityReturnType(this, genericType);
+        }
+    }
+}
@@ -17,19 +17,17 @@
 package pro.nikolaev.restutils.components;
 
 import jakarta.servlet.MultipartConfigElement;
+import jakarta.servlet.http.HttpServletRequest;
 import org.apache.tomcat.util.http.fileupload.impl.FileSizeLimitExceededException;
 import org.apache.tomcat.util.http.fileupload.impl.SizeLimitExceededException;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpHeaders;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.util.unit.DataSize;
-import org.springframework.validation.FieldError;
-import org.springframework.validation.ObjectError;
 import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
@@ -41,10 +39,20 @@ import org.springframework.web.method.annotation.MethodArgumentTypeMismatchExcep
 import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
+import pro.nikolaev.restutils.connection.ConnectionPolicy;
+import pro.nikolaev.restutils.connection.DefaultConnectionPolicy;
+import pro.nikolaev.restutils.converters.ApiErrorJsonWriter;
 import pro.nikolaev.restutils.dto.ApiError;
 import pro.nikolaev.restutils.exceptions.ApiException;
+import pro.nikolaev.restutils.logging.AsyncExceptionLogger;
+import pro.nikolaev.restutils.logging.DeduplicatingExceptionLogger;
+import pro.nikolaev.restutils.logging.ErrorContext;
+import pro.nikolaev.restutils.logging.ExceptionLogger;
+import pro.nikolaev.restutils.metrics.ErrorMetrics;
+import pro.nikolaev.restutils.validation.ViolationReporting;
 
-import java.text.MessageFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Class representing {@link RestControllerAdvice} bean for handling MVC exception.
@@ -53,53 +61,174 @@ import java.text.MessageFormat;
  * @version 1.0
  */
 @RestControllerAdvice
-public class ExceptionHandlingAdvice {
-    private static final String BAD_REQUEST = "Некорректный запрос";
-    private final Logger logger = LoggerFactory.getLogger(ExceptionHandlingAdvice.class);
-    private final long maxFileSize;
-    private final long maxRequestSize;
+public class ExceptionHandlingAdvice implements DisposableBean {
+    static final String BAD_REQUEST = "Некорректный запрос";
+    static final String METHOD_NOT_ALLOWED = "Метод не поддерживается";
+    static final String NOT_ACCEPTABLE = "Тип данных не поддерживается";
+    static final String UNSUPPORTED_MEDIA_TYPE = "Не поддерживаемый тип данных";
+    static final String PAYLOAD_TOO_LARGE = "Превышен максимальный размер запроса";
+    static final String NOT_FOUND = "Не найдено";
+    static final String INTERNAL_SERVER_ERROR = "Внутренняя ошибка приложения";
+    static final String FORBIDDEN = "Доступ запрещен";
+    static final ApiError METHOD_NOT_ALLOWED_ERROR = new ApiError(METHOD_NOT_ALLOWED, null);
+    static final ApiError PAYLOAD_TOO_LARGE_ERROR = new ApiError(PAYLOAD_TOO_LARGE, null);
+    private static final int MAX_LIMIT_ERRORS = 64;
+    static final MessageTemplate REQUEST_SIZE = MessageTemplate.compile("Максимальный размер тела запроса: {0} Mb");
+    static final MessageTemplate REQUEST_SIZE_KB = MessageTemplate.compile("Максимальный размер тела запроса: {0} Kb");
+    static final MessageTemplate TYPE_MISMATCH =
+            MessageTemplate.compile("Некорректное значение параметра < {0} >. {1}");
+
+    static {
+        for (String message : new String[]{BAD_REQUEST, METHOD_NOT_ALLOWED, NOT_ACCEPTABLE, UNSUPPORTED_MEDIA_TYPE,
+                PAYLOAD_TOO_LARGE, NOT_FOUND, INTERNAL_SERVER_ERROR, FORBIDDEN}) {
+            ApiErrorJsonWriter.prepare(message);
+        }
+    }
+
+    private final ApiError requestSizeError;
+    private final ApiError fileSizeError;
+    private final ApiError uploadSizeError;
+    private final Map<Long, ApiError> limitErrors = new ConcurrentHashMap<>();
+    private ConnectionPolicy connectionPolicy = new DefaultConnectionPolicy();
+    private final AsyncExceptionLogger defaultExceptionLogger = new AsyncExceptionLogger();
+    private ExceptionLogger exceptionLogger = defaultExceptionLogger;
+    private ErrorMetrics errorMetrics;
+    private ViolationReporting violationReporting = new ViolationReporting();
 
     public ExceptionHandlingAdvice(MultipartConfigElement multipartConfigElement) {
-        this.maxFileSize = DataSize.ofBytes(multipartConfigElement.getMaxFileSize()).toMegabytes();
-        this.maxRequestSize = DataSize.ofBytes(multipartConfigElement.getMaxRequestSize()).toMegabytes();
+        long maxFileSize = DataSize.ofBytes(multipartConfigElement.getMaxFileSize()).toMegabytes();
+        long maxRequestSize = DataSize.ofBytes(multipartConfigElement.getMaxRequestSize()).toMegabytes();
+        this.requestSizeError = uploadError(REQUEST_SIZE.format(maxRequestSize));
+        this.fileSizeError = uploadError(MessageTemplate
+                .compile("Максимальный размер загружаемого файла: {0} Mb")
+                .format(maxFileSize));
+        this.uploadSizeError = uploadError(MessageTemplate
+                .compile("Максимальный размер тела запроса: {0} Mb. Максимальный размер одного файла: {1} Mb")
+                .format(maxRequestSize, maxFileSize));
+    }
+
+    private ApiError limitError(long maxUploadSize) {
+        ApiError error = limitErrors.get(maxUploadSize);
+        if (error == null) {
+            DataSize size = DataSize.ofBytes(maxUploadSize);
+            String details = size.toMegabytes() > 0 ? REQUEST_SIZE.format(size.toMegabytes())
+                    : REQUEST_SIZE_KB.format(Math.max(size.toKilobytes(), 1));
+            error = limitErrors.size() < MAX_LIMIT_ERRORS
+                    ? limitErrors.computeIfAbsent(maxUploadSize, key -> uploadError(details))
+                    : new ApiError(PAYLOAD_TOO_LARGE, details);
+        }
+        return error;
+    }
+
+    private static ApiError uploadError(String details) {
+        ApiError error = new ApiError(PAYLOAD_TOO_LARGE, details);
+        ApiErrorJsonWriter.prepare(error);
+        return error;
+    }
+
+    /**
+     * Set {@link ConnectionPolicy} to decide whether error responses close the connection.
+     * {@link DefaultConnectionPolicy} is used if no policy bean is present.
+     *
+     * @param connectionPolicy the policy to use
+     * @since 1.2
+     */
+    @Autowired(required = false)
+    public void setConnectionPolicy(ConnectionPolicy connectionPolicy) {
+        this.connectionPolicy = connectionPolicy;
+    }
+
+    /**
+     * Set {@link ExceptionLogger} to log exceptions handled by {@link #handleUnexpectedException}.
+     * {@link AsyncExceptionLogger} backed by {@link DeduplicatingExceptionLogger} is used
+     * if no logger bean is present.
+     *
+     * @param exceptionLogger the logger to use
+     * @since 1.2
+     */
+    @Autowired(required = false)
+    public void setExceptionLogger(ExceptionLogger exceptionLogger) {
+        this.exceptionLogger = exceptionLogger;
+    }
+
+    /**
+     * Set {@link ErrorMetrics} to count error responses in. Unless set explicitly, {@link RestUtilsWebMvcConfigurer}
+     * sets {@link ErrorMetrics} bean, or a default instance if there is no unique such bean.
+     *
+     * @param errorMetrics the metrics to record to
+     * @since 1.2
+     */
+    public void setErrorMetrics(ErrorMetrics errorMetrics) {
+        this.errorMetrics = errorMetrics;
+    }
+
+    void initErrorMetrics(ErrorMetrics errorMetrics) {
+        if (this.errorMetrics == null) {
+            this.errorMetrics = errorMetrics;
+        }
+    }
+
+    ExceptionLogger exceptionLogger() {
+        return exceptionLogger;
+    }
+
+    /**
+     * Set {@link ViolationReporting} to choose how validation errors are reported.
+     * Only the first error is reported if no settings bean is present.
+     *
+     * @param violationReporting the settings to use
+     * @since 1.2
+     */
+    @Autowired(required = false)
+    public void setViolationReporting(ViolationReporting violationReporting) {
+        this.violationReporting = violationReporting;
+    }
+
+    /**
+     * Stop the default {@link AsyncExceptionLogger}. Logger beans are closed by the container.
+     *
+     * @since 1.2
+     */
+    @Override
+    public void destroy() {
+        defaultExceptionLogger.close();
     }
 
     /**
      * {@link ExceptionHandler} to handle {@link ApiException}.
      *
      * @param e {@link ApiException} to be processed by {@link ExceptionHandler}
+     * @param request current request
      * @return {@link ResponseEntity ResponseEntity} with HTTP status from exception,
      * exception reason as {@code message},
      * exception message in {@code details} part of the body
-     * and {@code Connection: Close} header
+     * and {@code Connection} header resolved by {@link ConnectionPolicy}
      * @see ExceptionHandler
      * @see ApiException
      * @see ResponseEntity
      * @since 1.0
      */
     @ExceptionHandler(ApiException.class)
-    public ResponseEntity<ApiError> handleApiException(ApiException e) {
-        return ResponseEntity.status(e.getStatus()).header(HttpHeaders.CONNECTION, "Close")
-                .contentType(MediaType.APPLICATION_JSON).body(new ApiError(e.getReason(), e.getMessage()));
+    public ResponseEntity<ApiError> handleApiException(ApiException e, HttpServletRequest request) {
+        return respond(request, e.getStatus(), e, e.toApiError());
     }
 
     /**
      * {@link ExceptionHandler} to handle {@link HttpRequestMethodNotSupportedException}.
      *
-     * @param ignored {@link HttpRequestMethodNotSupportedException} to be processed by {@link ExceptionHandler}
+     * @param e {@link HttpRequestMethodNotSupportedException} to be processed by {@link ExceptionHandler}
+     * @param request current request
      * @return {@link ResponseEntity ResponseEntity} with HTTP status 405,
      * {@literal "Метод не поддерживается"} message
-     * and {@code Connection: Close} header
+     * and {@code Connection} header resolved by {@link ConnectionPolicy}
      * @see ExceptionHandler
      * @see HttpRequestMethodNotSupportedException
      * @see ResponseEntity
      * @since 1.0
      */
     @ExceptionHandler(HttpRequestMethodNotSupportedException.class)
-    public ResponseEntity<ApiError> handle405(HttpRequestMethodNotSupportedException ignored) {
-        return ResponseEntity.status(HttpStatus.METHOD_NOT_ALLOWED).header(HttpHeaders.CONNECTION, "Close")
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(new ApiError("Метод не поддерживается", null));
+    public ResponseEntity<ApiError> handle405(HttpRequestMethodNotSupportedException e, HttpServletRequest request) {
+        return respond(request, HttpStatus.METHOD_NOT_ALLOWED, e, METHOD_NOT_ALLOWED_ERROR);
     }
 
     /**
@@ -110,181 +239,168 @@ public class ExceptionHandlingAdvice {
      * {@code Jakarta Bean Validation}</a> is properly configured.
      *
      * @param e {@link MethodArgumentNotValidException} to be processed by {@link ExceptionHandler}
+     * @param request current request
      * @return {@link ResponseEntity ResponseEntity} with HTTP status 400,
      * {@literal "Некорректный запрос"} message,
-     * failed parameter info in {@code details} part of the body
-     * and {@code Connection: Close} header
+     * failed parameter info in {@code details} part of the body,
+     * all violations if enabled by {@link ViolationReporting}
+     * and {@code Connection} header resolved by {@link ConnectionPolicy}
      * @see ExceptionHandler
      * @see MethodArgumentNotValidException
      * @see ResponseEntity
      * @since 1.0
      */
     @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<ApiError> handle400(MethodArgumentNotValidException e) {
-        String details = null;
-        FieldError fieldError = e.getFieldError();
-        ObjectError globalError = e.getGlobalError();
-        if (fieldError != null) {
-            details = MessageFormat
-                    .format("{0} {1}", fieldError.getField(), fieldError.getDefaultMessage());
-        } else if (globalError != null) {
-            details = MessageFormat
-                    .format("{0} {1}", globalError.getObjectName(), globalError.getDefaultMessage());
-        }
-
-        return ResponseEntity.badRequest().header(HttpHeaders.CONNECTION, "Close")
-                .contentType(MediaType.APPLICATION_JSON).body(new ApiError(BAD_REQUEST, details));
+    public ResponseEntity<ApiError> handle400(MethodArgumentNotValidException e, HttpServletRequest request) {
+        return respond(request, HttpStatus.BAD_REQUEST, e, Violations.toApiError(e, violationReporting));
     }
 
     /**
      * {@link ExceptionHandler} to handle {@link HttpMessageNotReadableException}.
      *
      * @param e {@link HttpMessageNotReadableException} to be processed by {@link ExceptionHandler}
+     * @param request current request
      * @return {@link ResponseEntity ResponseEntity} with HTTP status 400,
      * {@literal "Некорректный запрос"} message,
      * exception message in {@code details} part of the body
-     * and {@code Connection: Close} header
+     * and {@code Connection} header resolved by {@link ConnectionPolicy}
      * @see ExceptionHandler
      * @see HttpMessageNotReadableException
      * @see ResponseEntity
      * @since 1.0
      */
     @ExceptionHandler(HttpMessageNotReadableException.class)
-    public ResponseEntity<ApiError> handle400(HttpMessageNotReadableException e) {
-        return ResponseEntity.badRequest().header(HttpHeaders.CONNECTION, "Close")
-                .contentType(MediaType.APPLICATION_JSON).body(new ApiError(BAD_REQUEST, e.getMessage()));
+    public ResponseEntity<ApiError> handle400(HttpMessageNotReadableException e, HttpServletRequest request) {
+        return respond(request, HttpStatus.BAD_REQUEST, e, new ApiError(BAD_REQUEST, e.getMessage()));
     }
 
     /**
      * {@link ExceptionHandler} to handle {@link MethodArgumentTypeMismatchException}.
      *
      * @param e {@link MethodArgumentTypeMismatchException} to be processed by {@link ExceptionHandler}
+     * @param request current request
      * @return {@link ResponseEntity ResponseEntity} with HTTP status 400,
      * {@literal "Некорректный запрос"} message,
      * information about invalid parameter in {@code details} part of the body
-     * and {@code Connection: Close} header
+     * and {@code Connection} header resolved by {@link ConnectionPolicy}
      * @see ExceptionHandler
      * @see MethodArgumentTypeMismatchException
      * @see ResponseEntity
      * @since 1.0
      */
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
-    public ResponseEntity<ApiError> handle400(MethodArgumentTypeMismatchException e) {
-        return ResponseEntity.badRequest().header(HttpHeaders.CONNECTION, "Close")
-                .contentType(MediaType.APPLICATION_JSON).body(new ApiError(BAD_REQUEST,
-                        MessageFormat.format("Некорректное значение параметра < {0} >. {1}",
-                                e.getParameter().getParameterName(), e.getMessage())));
+    public ResponseEntity<ApiError> handle400(MethodArgumentTypeMismatchException e, HttpServletRequest request) {
+        return respond(request, HttpStatus.BAD_REQUEST, e, new ApiError(BAD_REQUEST,
+                TYPE_MISMATCH.format(e.getParameter().getParameterName(), e.getMessage())));
     }
 
     /**
      * {@link ExceptionHandler} to handle {@link HttpMediaTypeNotAcceptableException}.
      *
      * @param e {@link HttpMediaTypeNotAcceptableException} to be processed by {@link ExceptionHandler}
+     * @param request current request
      * @return {@link ResponseEntity ResponseEntity} with HTTP status 406,
      * {@literal "Тип данных не поддерживается"} message,
      * exception message in {@code details} part of the body
-     * and {@code Connection: Close} header
+     * and {@code Connection} header resolved by {@link ConnectionPolicy}
      * @see ExceptionHandler
      * @see HttpMediaTypeNotAcceptableException
      * @see ResponseEntity
      * @since 1.0
      */
     @ExceptionHandler(HttpMediaTypeNotAcceptableException.class)
-    public ResponseEntity<ApiError> handle406(HttpMediaTypeNotAcceptableException e) {
-        return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).header(HttpHeaders.CONNECTION, "Close")
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(new ApiError("Тип данных не поддерживается", e.getMessage()));
+    public ResponseEntity<ApiError> handle406(HttpMediaTypeNotAcceptableException e, HttpServletRequest request) {
+        return respond(request, HttpStatus.NOT_ACCEPTABLE, e,
+                new ApiError(NOT_ACCEPTABLE, e.getMessage()));
     }
 
     /**
      * {@link ExceptionHandler} to handle {@link HttpMediaTypeNotSupportedException}.
      *
      * @param e {@link HttpMediaTypeNotSupportedException} to be processed by {@link ExceptionHandler}
+     * @param request current request
      * @return {@link ResponseEntity ResponseEntity} with HTTP status 415,
      * {@literal "Не поддерживаемый тип данных"} message,
      * exception message in {@code details} part of the body
-     * and {@code Connection: Close} header
+     * and {@code Connection} header resolved by {@link ConnectionPolicy}
      * @see ExceptionHandler
      * @see HttpMediaTypeNotSupportedException
      * @see ResponseEntity
      * @since 1.0
      */
     @ExceptionHandler(HttpMediaTypeNotSupportedException.class)
-    public ResponseEntity<ApiError> handle415(HttpMediaTypeNotSupportedException e) {
-        return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).header(HttpHeaders.CONNECTION, "Close")
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(new ApiError("Не поддерживаемый тип данных", e.getMessage()));
+    public ResponseEntity<ApiError> handle415(HttpMediaTypeNotSupportedException e, HttpServletRequest request) {
+        return respond(request, HttpStatus.UNSUPPORTED_MEDIA_TYPE, e,
+                new ApiError(UNSUPPORTED_MEDIA_TYPE, e.getMessage()));
     }
 
     /**
      * {@link ExceptionHandler} to handle {@link MaxUploadSizeExceededException}.
      *
      * @param e {@link MaxUploadSizeExceededException} to be processed by {@link ExceptionHandler}
+     * @param request current request
      * @return {@link ResponseEntity ResponseEntity} with HTTP status 413,
      * {@literal "Превышен максимальный размер запроса"} message,
-     * either max request size, max file size or both in {@code details} part of the body
-     * and {@code Connection: Close} header
+     * either max request size, max file size or both in {@code details} part of the body,
+     * or the limit carried by the exception if it is raised outside of multipart parsing
+     * and {@code Connection} header resolved by {@link ConnectionPolicy}
      * @see ExceptionHandler
      * @see MaxUploadSizeExceededException
      * @see ResponseEntity
      * @since 1.0
      */
     @ExceptionHandler(MaxUploadSizeExceededException.class)
-    public ResponseEntity<ApiError> handle413(MaxUploadSizeExceededException e) {
+    public ResponseEntity<ApiError> handle413(MaxUploadSizeExceededException e, HttpServletRequest request) {
         Throwable cause = e.getCause();
-        String detail = null;
-        if (cause != null) {
-            if (cause.getCause() instanceof SizeLimitExceededException) {
-                detail = MessageFormat.format("Максимальный размер тела запроса: {0} Mb", maxRequestSize);
-            } else if (cause.getCause() instanceof FileSizeLimitExceededException) {
-                detail = MessageFormat.format("Максимальный размер загружаемого файла: {0} Mb", maxFileSize);
-            } else {
-                detail = MessageFormat.format(
-                        "Максимальный размер тела запроса: {0} Mb. Максимальный размер одного файла: {1} Mb",
-                        maxFileSize, maxRequestSize);
-            }
+        ApiError error;
+        if (cause == null) {
+            error = e.getMaxUploadSize() > 0 ? limitError(e.getMaxUploadSize()) : PAYLOAD_TOO_LARGE_ERROR;
+        } else if (cause.getCause() instanceof SizeLimitExceededException) {
+            error = requestSizeError;
+        } else if (cause.getCause() instanceof FileSizeLimitExceededException) {
+            error = fileSizeError;
+        } else {
+            error = uploadSizeError;
         }
-        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).header(HttpHeaders.CONNECTION, "Close")
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(new ApiError("Превышен максимальный размер запроса", detail));
+        return respond(request, HttpStatus.PAYLOAD_TOO_LARGE, e, error);
     }
 
     /**
      * {@link ExceptionHandler} to handle {@link ResponseStatusException}.
      *
      * @param e {@link ResponseStatusException} to be processed by {@link ExceptionHandler}
+     * @param request current request
      * @return {@link ResponseEntity ResponseEntity} with HTTP status from exception,
      * exception reason as {@code message},
      * exception detailed message code in {@code details} part of the body
-     * and {@code Connection: Close} header
+     * and {@code Connection} header resolved by {@link ConnectionPolicy}
      * @see ExceptionHandler
      * @see ResponseStatusException
      * @see ResponseEntity
      * @since 1.0
      */
     @ExceptionHandler(ResponseStatusException.class)
-    public ResponseEntity<ApiError> handleStatusException(ResponseStatusException e) {
-        return ResponseEntity.status(e.getStatusCode()).header(HttpHeaders.CONNECTION, "Close")
-                .contentType(MediaType.APPLICATION_JSON).body(new ApiError(e.getReason(), e.getDetailMessageCode()));
+    public ResponseEntity<ApiError> handleStatusException(ResponseStatusException e, HttpServletRequest request) {
+        return respond(request, e.getStatusCode(), e, new ApiError(e.getReason(), e.getDetailMessageCode()));
     }
 
     /**
      * {@link ExceptionHandler} to handle {@link NoResourceFoundException}.
      *
      * @param e {@link NoResourceFoundException} to be processed by {@link ExceptionHandler}
+     * @param request current request
      * @return {@link ResponseEntity ResponseEntity} with HTTP status 404,
      * {@literal "Не найдено"} message,
      * resource path in {@code details} part of the body
-     * and {@code Connection: Close} header
+     * and {@code Connection} header resolved by {@link ConnectionPolicy}
      * @see ExceptionHandler
      * @see NoResourceFoundException
      * @see ResponseEntity
      * @since 1.0
      */
     @ExceptionHandler(NoResourceFoundException.class)
-    public ResponseEntity<ApiError> handle404(NoResourceFoundException e) {
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).header(HttpHeaders.CONNECTION, "Close")
-                .contentType(MediaType.APPLICATION_JSON).body(new ApiError("Не найдено", e.getResourcePath()));
+    public ResponseEntity<ApiError> handle404(NoResourceFoundException e, HttpServletRequest request) {
+        return respond(request, HttpStatus.NOT_FOUND, e, new ApiError(NOT_FOUND, e.getResourcePath()));
     }
 
     /**
@@ -292,42 +408,63 @@ public class ExceptionHandlingAdvice {
      * {@link ExceptionHandlingAdvice} thrown while executing a {@link RestController} method.
      *
      * <p>As this method is intended to handle any unexpected or otherwise handled exceptions
-     * it also logs them at {@code ERROR} level for easier debugging.</p>
+     * it also logs them at {@code ERROR} level for easier debugging. Repeated stack traces
+     * are suppressed by {@link ExceptionLogger}.</p>
      *
      * @param e {@link Exception} to be processed by {@link ExceptionHandler}
+     * @param request current request
      * @return {@link ResponseEntity ResponseEntity} with HTTP status 500,
      * {@literal "Внутренняя ошибка приложения"} message,
      * exception message in {@code details} part of the body
-     * and {@code Connection: Close} header
+     * and {@code Connection} header resolved by {@link ConnectionPolicy}
      * @see ExceptionHandler
      * @see ResponseEntity
      * @since 1.0
      */
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<ApiError> handleUnexpectedException(Exception e) {
-        logger.error("Unexpected error:", e);
-        return ResponseEntity.internalServerError().header(HttpHeaders.CONNECTION, "Close")
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(new ApiError("Внутренняя ошибка приложения", e.getMessage()));
+    public ResponseEntity<ApiError> handleUnexpectedException(Exception e, HttpServletRequest request) {
+        exceptionLogger.log(e, ErrorContext.of(request));
+        return respond(request, HttpStatus.INTERNAL_SERVER_ERROR, e,
+                new ApiError(INTERNAL_SERVER_ERROR, e.getMessage()));
     }
 
     /**
      * {@link ExceptionHandler} to handle {@link AccessDeniedException}.
      *
      * @param e {@link AccessDeniedException} to be processed by {@link ExceptionHandler}
+     * @param request current request
      * @return {@link ResponseEntity ResponseEntity} with HTTP status 403,
      * {@literal "Доступ запрещен"} message,
      * resource path in {@code details} part of the body
-     * and {@code Connection: Close} header
+     * and {@code Connection} header resolved by {@link ConnectionPolicy}
      * @see ExceptionHandler
      * @see AccessDeniedException
      * @see ResponseEntity
      * @since 1.0.5
      */
     @ExceptionHandler(AccessDeniedException.class)
-    public ResponseEntity<ApiError> handle403(AccessDeniedException e) {
-        return ResponseEntity.status(HttpStatus.FORBIDDEN).header(HttpHeaders.CONNECTION, "Close")
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(new ApiError("Доступ запрещен", e.getMessage()));
+    public ResponseEntity<ApiError> handle403(AccessDeniedException e, HttpServletRequest request) {
+        return respond(request, HttpStatus.FORBIDDEN, e, new ApiError(FORBIDDEN, e.getMessage()));
+    }
+
+    /**
+     * Build {@link ResponseEntity} with {@code application/json} body and {@code Connection: Close}
+     * header if required by {@link ConnectionPolicy}. The header is never added for {@code HTTP/2}
+     * requests as connection-specific headers are prohibited there. The response is counted
+     * in {@link ErrorMetrics} if present.
+     *
+     * @param request current request
+     * @param status  the HTTP status
+     * @param e       exception being handled
+     * @param body    response body
+     * @return {@link ResponseEntity ResponseEntity} to be returned from {@link ExceptionHandler}
+     * @since 1.2
+     */
+    protected ResponseEntity<ApiError> respond(HttpServletRequest request, HttpStatusCode status,
+                                               Exception e, ApiError body) {
+        if (errorMetrics != null) {
+            errorMetrics.record(request, status, e);
+        }
+        return ApiErrorResponses.create(request, connectionPolicy, status, e, body);
     }
 }
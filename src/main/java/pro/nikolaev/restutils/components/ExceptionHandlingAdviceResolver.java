@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pro.nikolaev.restutils.components;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.Ordered;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.util.Assert;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.method.ControllerAdviceBean;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.method.annotation.ExceptionHandlerMethodResolver;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.ExceptionHandlerExceptionResolver;
+import org.springframework.web.servlet.mvc.method.annotation.HttpEntityMethodProcessor;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+import org.springframework.web.servlet.resource.NoResourceFoundException;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+import org.springframework.web.util.DisconnectedClientHelper;
+import pro.nikolaev.restutils.dto.ApiError;
+import pro.nikolaev.restutils.exceptions.ApiException;
+import pro.nikolaev.restutils.metrics.ErrorLatency;
+import pro.nikolaev.restutils.metrics.LatencyHistogram;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link HandlerExceptionResolver} that invokes {@link ExceptionHandler @ExceptionHandler} methods
+ * of {@link ExceptionHandlingAdvice} and {@link PerControllerExceptionHandlingAdvice} through direct calls
+ * instead of reflective invocation with argument resolution.
+ *
+ * <p>Handler methods of the advice are compiled into a table at startup and looked up by exception
+ * class through {@link ClassValue}, with superclass fallback and cause unwrapping. Applicable advice beans
+ * are resolved per controller type once. Precedence is the same as in {@link ExceptionHandlerExceptionResolver}:
+ * local {@code @ExceptionHandler} methods of a controller go first, then advice beans in their order.
+ * Whenever that order selects a method this resolver can't call directly, e.g. from another advice or
+ * a subclass of {@link ExceptionHandlingAdvice}, the exception is left to {@link ExceptionHandlerExceptionResolver}.
+ *
+ * <p>The returned {@link ResponseEntity} is written with the given converter instead of
+ * {@link HttpEntityMethodProcessor}, so the body is not negotiated against {@code Accept} header beyond
+ * what the converter does itself. {@link ResponseBodyAdvice} would be skipped this way, therefore advice
+ * beans that a {@link ResponseBodyAdvice} advice bean applies to are not called directly and their exceptions
+ * are left to {@link ExceptionHandlerExceptionResolver} too. Advice registered through
+ * {@link ExceptionHandlerExceptionResolver#setResponseBodyAdvice(List)} instead of an advice bean is not detected.
+ *
+ * <p>If {@link ErrorLatency} is given, time from exception resolution to response commit
+ * is recorded per handler, and {@code Server-Timing} header is added if enabled.
+ *
+ * @author Ilya Nikolaev
+ * @see RestUtilsWebMvcConfigurer
+ * @since 1.2
+ */
+public class ExceptionHandlingAdviceResolver implements HandlerExceptionResolver, Ordered {
+    private static final String SERVER_TIMING = "Server-Timing";
+    private static final HandlerEntry NO_HANDLER = new HandlerEntry(null, null, null);
+    private static final Map<Class<? extends Exception>, HandlerEntry> HANDLERS = Map.ofEntries(
+            handler(ApiException.class, "handleApiException",
+                    (advice, e, request) -> advice.handleApiException((ApiException) e, request)),
+            handler(HttpRequestMethodNotSupportedException.class, "handle405",
+                    (advice, e, request) -> advice.handle405((HttpRequestMethodNotSupportedException) e, request)),
+            handler(MethodArgumentNotValidException.class, "handle400",
+                    (advice, e, request) -> advice.handle400((MethodArgumentNotValidException) e, request)),
+            handler(HttpMessageNotReadableException.class, "handle400",
+                    (advice, e, request) -> advice.handle400((HttpMessageNotReadableException) e, request)),
+            handler(MethodArgumentTypeMismatchException.class, "handle400",
+                    (advice, e, request) -> advice.handle400((MethodArgumentTypeMismatchException) e, request)),
+            handler(HttpMediaTypeNotAcceptableException.class, "handle406",
+                    (advice, e, request) -> advice.handle406((HttpMediaTypeNotAcceptableException) e, request)),
+            handler(HttpMediaTypeNotSupportedException.class, "handle415",
+                    (advice, e, request) -> advice.handle415((HttpMediaTypeNotSupportedException) e, request)),
+            handler(MaxUploadSizeExceededException.class, "handle413",
+                    (advice, e, request) -> advice.handle413((MaxUploadSizeExceededException) e, request)),
+            handler(ResponseStatusException.class, "handleStatusException",
+                    (advice, e, request) -> advice.handleStatusException((ResponseStatusException) e, request)),
+            handler(NoResourceFoundException.class, "handle404",
+                    (advice, e, request) -> advice.handle404((NoResourceFoundException) e, request)),
+            handler(AccessDeniedException.class, "handle403",
+                    (advice, e, request) -> advice.handle403((AccessDeniedException) e, request)),
+            handler(Exception.class, "handleUnexpectedException",
+                    (advice, e, request) -> advice.handleUnexpectedException((Exception) e, request)));
+    private static final ClassValue<HandlerEntry> HANDLER_LOOKUP = new ClassValue<>() {
+        @Override
+        protected HandlerEntry computeValue(Class<?> type) {
+            for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                HandlerEntry entry = HANDLERS.get(current);
+                if (entry != null) {
+                    return entry;
+                }
+            }
+            return NO_HANDLER;
+        }
+    };
+
+    private final Logger logger = LoggerFactory.getLogger(ExceptionHandlingAdviceResolver.class);
+    private final HttpMessageConverter<ApiError> converter;
+    @Nullable
+    private final ErrorLatency errorLatency;
+    private final Map<HandlerEntry, LatencyHistogram> histograms = new IdentityHashMap<>();
+    private volatile Plan globalPlan;
+    private volatile ClassValue<Plan> plans;
+
+    /**
+     * Create a new resolver.
+     *
+     * @param converter converter used to write {@link ApiError} bodies
+     */
+    public ExceptionHandlingAdviceResolver(HttpMessageConverter<ApiError> converter) {
+        this(converter, null);
+    }
+
+    /**
+     * Create a new resolver recording latency of the error path.
+     *
+     * @param converter    converter used to write {@link ApiError} bodies
+     * @param errorLatency histograms to record to, {@code null} to not record latency
+     */
+    public ExceptionHandlingAdviceResolver(HttpMessageConverter<ApiError> converter,
+                                           @Nullable ErrorLatency errorLatency) {
+        Assert.notNull(converter, "HttpMessageConverter must not be null");
+        this.converter = converter;
+        this.errorLatency = errorLatency;
+        if (errorLatency != null) {
+            HANDLERS.values().forEach(entry -> histograms.put(entry, errorLatency.histogram(entry.name)));
+        }
+    }
+
+    /**
+     * Compile handler lookup for advice beans of the given context.
+     * Until called the resolver doesn't handle any exceptions.
+     * Calling it again replaces the lookup compiled before.
+     *
+     * @param context application context to find advice beans in
+     */
+    public void initialize(ApplicationContext context) {
+        verifyHandlers();
+        List<ControllerAdviceBean> adviceBeans = ControllerAdviceBean.findAnnotatedBeans(context);
+        List<ControllerAdviceBean> responseBodyAdvices = adviceBeans.stream()
+                .filter(adviceBean -> adviceBean.getBeanType() != null
+                        && ResponseBodyAdvice.class.isAssignableFrom(adviceBean.getBeanType()))
+                .toList();
+        List<AdviceEntry> entries = new ArrayList<>();
+        for (ControllerAdviceBean adviceBean : adviceBeans) {
+            Class<?> beanType = adviceBean.getBeanType();
+            if (beanType == null) {
+                continue;
+            }
+            ExceptionHandlerMethodResolver resolver = new ExceptionHandlerMethodResolver(beanType);
+            if (!resolver.hasExceptionMappings()) {
+                continue;
+            }
+            if ((beanType == ExceptionHandlingAdvice.class || beanType == PerControllerExceptionHandlingAdvice.class)
+                    && responseBodyAdvices.stream().noneMatch(advice -> advice.isApplicableToBeanType(beanType))) {
+                entries.add(new AdviceEntry(adviceBean, (ExceptionHandlingAdvice) adviceBean.resolveBean(), null));
+            } else {
+                entries.add(new AdviceEntry(adviceBean, null, resolver));
+            }
+        }
+        List<AdviceEntry> adviceEntries = List.copyOf(entries);
+        this.globalPlan = plan(adviceEntries, null);
+        this.plans = new ClassValue<>() {
+            @Override
+            protected Plan computeValue(Class<?> handlerType) {
+                return plan(adviceEntries, handlerType);
+            }
+        };
+    }
+
+    @Override
+    @Nullable
+    public ModelAndView resolveException(HttpServletRequest request, HttpServletResponse response,
+                                         @Nullable Object handler, Exception ex) {
+        ClassValue<Plan> plans = this.plans;
+        if (plans == null) {
+            return null;
+        }
+        long start = errorLatency != null ? System.nanoTime() : 0;
+        Plan plan;
+        if (handler == null || handler instanceof ResourceHttpRequestHandler) {
+            plan = globalPlan;
+        } else if (handler instanceof HandlerMethod handlerMethod && !Proxy.isProxyClass(handlerMethod.getBeanType())) {
+            plan = plans.get(handlerMethod.getBeanType());
+        } else {
+            return null;
+        }
+        if (plan.local != null && plan.local.resolveMethod(ex) != null) {
+            return null;
+        }
+        for (AdviceEntry entry : plan.advices) {
+            if (entry.advice == null) {
+                if (entry.resolver.resolveMethod(ex) != null) {
+                    return null;
+                }
+                continue;
+            }
+            for (Throwable exception = ex; exception != null; exception = exception.getCause()) {
+                HandlerEntry handlerEntry = HANDLER_LOOKUP.get(exception.getClass());
+                if (handlerEntry != NO_HANDLER) {
+                    return handle(entry.advice, handlerEntry, exception, request, response, start);
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Nullable
+    private ModelAndView handle(ExceptionHandlingAdvice advice, HandlerEntry handlerEntry, Throwable exception,
+                                HttpServletRequest request, HttpServletResponse response, long start) {
+        try {
+            ResponseEntity<ApiError> entity = handlerEntry.method.invoke(advice, exception, request);
+            ServletServerHttpResponse outputMessage = new ServletServerHttpResponse(response);
+            outputMessage.setStatusCode(entity.getStatusCode());
+            entity.getHeaders().forEach(outputMessage.getHeaders()::put);
+            if (errorLatency != null && errorLatency.isServerTimingEnabled()) {
+                outputMessage.getHeaders().add(SERVER_TIMING,
+                        serverTiming(handlerEntry.methodName, System.nanoTime() - start));
+            }
+            ApiError body = entity.getBody();
+            if (body != null) {
+                converter.write(body, outputMessage.getHeaders().getContentType(), outputMessage);
+            }
+            outputMessage.flush();
+            if (errorLatency != null) {
+                histograms.get(handlerEntry).record(System.nanoTime() - start);
+            }
+            return new ModelAndView();
+        } catch (Exception e) {
+            if (DisconnectedClientHelper.isClientDisconnectedException(e)) {
+                return new ModelAndView();
+            }
+            logger.warn("Failure in @ExceptionHandler {}", handlerEntry.methodName, e);
+            return null;
+        }
+    }
+
+    private static String serverTiming(String handler, long nanos) {
+        long micros = nanos / 1000;
+        StringBuilder builder = new StringBuilder(48).append("error;desc=\"").append(handler)
+                .append("\";dur=").append(micros / 1000).append('.');
+        long fraction = micros % 1000;
+        if (fraction < 100) {
+            builder.append(fraction < 10 ? "00" : "0");
+        }
+        return builder.append(fraction).toString();
+    }
+
+    private static Plan plan(List<AdviceEntry> entries, @Nullable Class<?> handlerType) {
+        ExceptionHandlerMethodResolver local = null;
+        if (handlerType != null) {
+            local = new ExceptionHandlerMethodResolver(handlerType);
+            if (!local.hasExceptionMappings()) {
+                local = null;
+            }
+        }
+        AdviceEntry[] advices = entries.stream()
+                .filter(entry -> entry.adviceBean.isApplicableToBeanType(handlerType))
+                .toArray(AdviceEntry[]::new);
+        return new Plan(local, advices);
+    }
+
+    /**
+     * Make sure the compiled table matches {@link ExceptionHandler @ExceptionHandler}
+     * declarations of {@link ExceptionHandlingAdvice}.
+     */
+    private static void verifyHandlers() {
+        ExceptionHandlerMethodResolver resolver = new ExceptionHandlerMethodResolver(ExceptionHandlingAdvice.class);
+        HANDLERS.forEach((type, entry) -> {
+            Method method = resolver.resolveMethodByExceptionType(type);
+            Assert.state(method != null && method.getName().equals(entry.methodName)
+                            && method.getParameterTypes()[0] == type,
+                    () -> "No direct handler for " + type.getName() + " in " + ExceptionHandlingAdvice.class);
+        });
+        Assert.state(MethodIntrospector.selectMethods(ExceptionHandlingAdvice.class,
+                        ExceptionHandlerMethodResolver.EXCEPTION_HANDLER_METHODS).size() == HANDLERS.size(),
+                () -> "Not all @ExceptionHandler methods of " + ExceptionHandlingAdvice.class + " are compiled");
+    }
+
+    private static Map.Entry<Class<? extends Exception>, HandlerEntry> handler(
+            Class<? extends Exception> type, String methodName, AdviceMethod method) {
+        return Map.entry(type, new HandlerEntry(methodName, methodName + "(" + type.getSimpleName() + ")", method));
+    }
+
+    @FunctionalInterface
+    private interface AdviceMethod {
+        ResponseEntity<ApiError> invoke(ExceptionHandlingAdvice advice, Throwable exception,
+                                        HttpServletRequest request);
+    }
+
+    private record HandlerEntry(String methodName, String name, AdviceMethod method) {
+    }
+
+    private record AdviceEntry(ControllerAdviceBean adviceBean, @Nullable ExceptionHandlingAdvice advice,
+                               @Nullable ExceptionHandlerMethodResolver resolver) {
+    }
+
+    private record Plan(@Nullable ExceptionHandlerMethodResolver local, AdviceEntry[] advices) {
+    }
+}
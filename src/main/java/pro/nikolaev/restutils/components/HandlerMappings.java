@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.components;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.function.support.RouterFunctionMapping;
+import org.springframework.web.servlet.handler.AbstractUrlHandlerMapping;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
+import org.springframework.web.util.pattern.PathPattern;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lookups of {@link DispatcherServlet} infrastructure shared by filters that act on a request
+ * before it is dispatched.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+final class HandlerMappings {
+
+    private HandlerMappings() {
+    }
+
+    /**
+     * {@link RequestMappingInfoHandlerMapping} beans with {@link PathPattern} matching in {@link DispatcherServlet}
+     * order, up to the first non-empty mapping of any other kind. Later mappings are never asked for requests
+     * the returned ones can't decide on.
+     *
+     * @param context application context
+     * @return leading request mappings
+     */
+    static List<RequestMappingInfoHandlerMapping> requestMappings(ApplicationContext context) {
+        List<HandlerMapping> mappings = new ArrayList<>(BeanFactoryUtils.beansOfTypeIncludingAncestors(
+                context, HandlerMapping.class, true, false).values());
+        AnnotationAwareOrderComparator.sort(mappings);
+        List<RequestMappingInfoHandlerMapping> result = new ArrayList<>(2);
+        for (HandlerMapping mapping : mappings) {
+            if (mapping instanceof RouterFunctionMapping functionMapping && functionMapping.getRouterFunction() == null
+                    || mapping instanceof AbstractUrlHandlerMapping urlMapping && urlMapping.getHandlerMap().isEmpty()) {
+                continue;
+            }
+            if (!(mapping instanceof RequestMappingInfoHandlerMapping infoMapping)
+                    || infoMapping.getPatternParser() == null) {
+                break;
+            }
+            result.add(infoMapping);
+        }
+        return result;
+    }
+
+    /**
+     * {@link HandlerExceptionResolver} beans in {@link DispatcherServlet} order.
+     *
+     * @param context application context
+     * @return exception resolvers
+     */
+    static List<HandlerExceptionResolver> exceptionResolvers(ApplicationContext context) {
+        List<HandlerExceptionResolver> resolvers = new ArrayList<>(BeanFactoryUtils.beansOfTypeIncludingAncestors(
+                context, HandlerExceptionResolver.class, true, false).values());
+        AnnotationAwareOrderComparator.sort(resolvers);
+        return resolvers;
+    }
+
+    /**
+     * Resolve exception the way {@link DispatcherServlet} does.
+     *
+     * @param resolvers exception resolvers
+     * @param request   current request
+     * @param response  current response
+     * @param handler   handler the exception is raised for, if known
+     * @param exception exception to resolve
+     * @return {@code true} if a resolver has written the response,
+     * {@code false} if the request is to be dispatched as usual
+     * @throws ServletException if a resolver fails
+     */
+    static boolean resolve(List<HandlerExceptionResolver> resolvers, HttpServletRequest request,
+                           HttpServletResponse response, @Nullable Object handler, Exception exception)
+            throws ServletException {
+        for (HandlerExceptionResolver resolver : resolvers) {
+            ModelAndView modelAndView;
+            try {
+                modelAndView = resolver.resolveException(request, response, handler, exception);
+            } catch (RuntimeException e) {
+                throw new ServletException("Failed to resolve " + exception.getClass().getSimpleName(), e);
+            }
+            if (modelAndView != null) {
+                return modelAndView.isEmpty();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check whether request has a body, the same way {@code ConsumesRequestCondition} does.
+     *
+     * @param request current request
+     * @return {@code true} if the request has a non-empty or chunked body
+     */
+    static boolean hasBody(HttpServletRequest request) {
+        String contentLength = request.getHeader(HttpHeaders.CONTENT_LENGTH);
+        return StringUtils.hasText(request.getHeader(HttpHeaders.TRANSFER_ENCODING))
+                || (StringUtils.hasText(contentLength) && !contentLength.trim().equals("0"));
+    }
+}
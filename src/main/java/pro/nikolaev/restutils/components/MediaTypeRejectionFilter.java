@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.components;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+import org.springframework.web.HttpMediaTypeException;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.accept.HeaderContentNegotiationStrategy;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.mvc.condition.MediaTypeExpression;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.pattern.PathPattern;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Filter rejecting requests whose {@code Content-Type} or {@code Accept} header can't be served by any
+ * {@link RequestMappingHandlerMapping} route before {@link DispatcherServlet} is reached and before
+ * the request body is read.
+ *
+ * <p>Consumable and producible media types of every {@code @RequestMapping} route are collected into a table
+ * on the first request. A request is matched against that table only when it could fail: it has a body and
+ * a {@code Content-Type} header, or an {@code Accept} header without {@code *}{@code /*}. The rules are the
+ * same {@link RequestMappingHandlerMapping} applies when no handler matches: routes matching the path and
+ * the method are candidates, {@code 415} is returned if none of them consumes the content type, {@code 406}
+ * if none of the remaining ones produces an acceptable media type. The resulting
+ * {@link HttpMediaTypeNotSupportedException} or {@link HttpMediaTypeNotAcceptableException} is passed to
+ * {@link HandlerExceptionResolver} beans in the same order {@link DispatcherServlet} uses, so the response
+ * is the one {@link ExceptionHandlingAdvice#handle415} or {@link ExceptionHandlingAdvice#handle406} renders.
+ *
+ * <p>Handler mappings are consulted in {@link DispatcherServlet} order up to the first one that is not
+ * a {@link RequestMappingInfoHandlerMapping} with {@link PathPattern} matching, e.g. declared router functions
+ * or static resources; mappings without any routes are skipped. Anything else the table can't decide on
+ * is passed down the chain as well: routes with {@code params}, {@code headers} or custom conditions,
+ * negated or parameterized media type expressions and unparseable headers.
+ *
+ * <p>The filter must be declared as a bean in the same context as {@code Spring MVC} configuration.
+ * Its order defaults to {@link Ordered#LOWEST_PRECEDENCE}, so it runs after security filters.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+public class MediaTypeRejectionFilter extends OncePerRequestFilter implements ApplicationContextAware, Ordered {
+    private ApplicationContext applicationContext;
+    private int order = Ordered.LOWEST_PRECEDENCE;
+    private volatile Routes routes;
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    /**
+     * Set filter order.
+     *
+     * @param order order value
+     */
+    public void setOrder(int order) {
+        this.order = order;
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Routes routes = routes();
+        if (routes.isEmpty() || HttpMethod.OPTIONS.matches(request.getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String contentType = routes.anyConsumes && HandlerMappings.hasBody(request) ? request.getContentType() : null;
+        boolean checkConsumes = StringUtils.hasLength(contentType);
+        boolean checkProduces = routes.anyProduces && (!routes.acceptHeaderOnly || acceptsSpecific(request));
+        Exception rejection = checkConsumes || checkProduces
+                ? routes.match(request, checkConsumes ? contentType : null, checkProduces) : null;
+        if (rejection == null || !HandlerMappings.resolve(routes.resolvers, request, response, null, rejection)) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return true;
+    }
+
+    @Override
+    protected boolean shouldNotFilterErrorDispatch() {
+        return true;
+    }
+
+    private Routes routes() {
+        Routes routes = this.routes;
+        if (routes == null) {
+            synchronized (this) {
+                routes = this.routes;
+                if (routes == null) {
+                    routes = Routes.build(applicationContext);
+                    this.routes = routes;
+                }
+            }
+        }
+        return routes;
+    }
+
+    private static boolean acceptsSpecific(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return accept != null && !accept.isBlank() && !accept.contains("*/*");
+    }
+
+    /**
+     * Route tables of {@link RequestMappingInfoHandlerMapping} beans in {@link DispatcherServlet} order
+     * up to the first non-empty mapping the filter can't reason about.
+     */
+    private static final class Routes {
+        private final List<Table> tables = new ArrayList<>(2);
+        private final List<HandlerExceptionResolver> resolvers;
+        private boolean anyConsumes;
+        private boolean anyProduces;
+        private boolean acceptHeaderOnly = true;
+
+        private Routes(List<HandlerExceptionResolver> resolvers) {
+            this.resolvers = resolvers;
+        }
+
+        static Routes build(ApplicationContext context) {
+            Routes routes = new Routes(HandlerMappings.exceptionResolvers(context));
+            if (routes.resolvers.isEmpty()) {
+                return routes;
+            }
+            for (RequestMappingInfoHandlerMapping mapping : HandlerMappings.requestMappings(context)) {
+                Table table = new Table(mapping instanceof RequestMappingHandlerMapping requestMapping
+                        ? requestMapping.getContentNegotiationManager() : new ContentNegotiationManager());
+                for (RequestMappingInfo info : mapping.getHandlerMethods().keySet()) {
+                    table.add(info);
+                }
+                routes.tables.add(table);
+                routes.anyConsumes |= table.anyConsumes;
+                routes.anyProduces |= table.anyProduces;
+                routes.acceptHeaderOnly &= table.acceptHeaderOnly;
+            }
+            return routes;
+        }
+
+        boolean isEmpty() {
+            return tables.isEmpty();
+        }
+
+        @Nullable
+        Exception match(HttpServletRequest request, @Nullable String contentType, boolean checkProduces) {
+            return PathIndex.match(tables, request,
+                    (table, candidates) -> table.match(request, candidates, contentType, checkProduces));
+        }
+    }
+
+    /**
+     * Routes of a single {@link RequestMappingInfoHandlerMapping} with its content negotiation.
+     */
+    private static final class Table extends PathIndex<Route> {
+        private final ContentNegotiationManager contentNegotiationManager;
+        private final boolean acceptHeaderOnly;
+        private boolean anyConsumes;
+        private boolean anyProduces;
+
+        Table(ContentNegotiationManager contentNegotiationManager) {
+            this.contentNegotiationManager = contentNegotiationManager;
+            this.acceptHeaderOnly = contentNegotiationManager.getStrategies().size() == 1
+                    && contentNegotiationManager.getStrategies().get(0) instanceof HeaderContentNegotiationStrategy;
+        }
+
+        void add(RequestMappingInfo info) {
+            Route route = new Route(info);
+            if (add(info, route)) {
+                anyConsumes |= route.consumes.length > 0;
+                anyProduces |= route.produces.length > 0;
+            }
+        }
+
+        @Nullable
+        Exception match(HttpServletRequest request, List<Route> candidates,
+                        @Nullable String contentType, boolean checkProduces) {
+            for (Route route : candidates) {
+                if (route.opaque) {
+                    return null;
+                }
+            }
+            candidates.removeIf(route -> !route.methodMatches(request.getMethod()));
+            if (candidates.isEmpty()) {
+                return null;
+            }
+            if (contentType != null) {
+                MediaType mediaType;
+                try {
+                    mediaType = MediaType.parseMediaType(contentType);
+                } catch (InvalidMediaTypeException e) {
+                    return null;
+                }
+                Set<MediaType> consumable = new LinkedHashSet<>();
+                for (Route route : candidates) {
+                    consumable.addAll(Arrays.asList(route.consumes));
+                }
+                candidates.removeIf(route -> !route.consumes(mediaType));
+                if (candidates.isEmpty()) {
+                    return new HttpMediaTypeNotSupportedException(mediaType, new ArrayList<>(consumable),
+                            HttpMethod.valueOf(request.getMethod()));
+                }
+            }
+            return checkProduces && anyProduces ? matchProduces(request, candidates) : null;
+        }
+
+        @Nullable
+        private Exception matchProduces(HttpServletRequest request, List<Route> candidates) {
+            List<MediaType> accepted;
+            try {
+                accepted = contentNegotiationManager.resolveMediaTypes(new ServletWebRequest(request));
+            } catch (HttpMediaTypeException e) {
+                return null;
+            }
+            if (MediaType.ALL.isPresentIn(accepted)) {
+                return null;
+            }
+            Set<MediaType> producible = new LinkedHashSet<>();
+            for (Route route : candidates) {
+                if (route.produces(accepted)) {
+                    return null;
+                }
+                producible.addAll(Arrays.asList(route.produces));
+            }
+            return new HttpMediaTypeNotAcceptableException(new ArrayList<>(producible));
+        }
+    }
+
+    /**
+     * Methods and media types of a single {@link RequestMappingInfo}.
+     */
+    private static final class Route {
+        private final Set<RequestMethod> methods;
+        private final MediaType[] consumes;
+        private final MediaType[] produces;
+        private final boolean opaque;
+
+        Route(RequestMappingInfo info) {
+            this.methods = info.getMethodsCondition().getMethods();
+            this.consumes = info.getConsumesCondition().getConsumableMediaTypes().toArray(MediaType[]::new);
+            this.produces = info.getProducesCondition().getProducibleMediaTypes().toArray(MediaType[]::new);
+            this.opaque = !info.getParamsCondition().isEmpty() || !info.getHeadersCondition().isEmpty()
+                    || info.getCustomCondition() != null
+                    || !plain(info.getConsumesCondition().getExpressions())
+                    || !plain(info.getProducesCondition().getExpressions());
+        }
+
+        boolean methodMatches(String method) {
+            if (methods.isEmpty()) {
+                return true;
+            }
+            RequestMethod requestMethod = RequestMethod.resolve(method);
+            return requestMethod != null && (methods.contains(requestMethod)
+                    || (requestMethod == RequestMethod.HEAD && methods.contains(RequestMethod.GET)));
+        }
+
+        boolean consumes(MediaType contentType) {
+            if (consumes.length == 0) {
+                return true;
+            }
+            for (MediaType mediaType : consumes) {
+                if (mediaType.includes(contentType)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean produces(List<MediaType> accepted) {
+            if (produces.length == 0) {
+                return true;
+            }
+            for (MediaType mediaType : produces) {
+                for (MediaType acceptedType : accepted) {
+                    if (mediaType.isCompatibleWith(acceptedType)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private static boolean plain(Set<? extends MediaTypeExpression> expressions) {
+            for (MediaTypeExpression expression : expressions) {
+                if (expression.isNegated() || !expression.getMediaType().getParameters().isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
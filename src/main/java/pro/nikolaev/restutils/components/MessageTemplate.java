@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pro.nikolaev.restutils.components;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Message pattern parsed once into literal segments and argument references.
+ *
+ * <p>Supports the subset of {@link MessageFormat} syntax used by the library: {@code {index}}
+ * placeholders, quoting with {@code '} and {@code ''} for a single quote. Arguments are rendered
+ * the same way as {@link MessageFormat} does: numbers with {@link NumberFormat} of the template
+ * locale, {@code null} as {@literal "null"}, everything else with {@link Object#toString()}.
+ * Output is rendered into a per-thread builder, so the resulting {@link String} is the only
+ * allocation per call when arguments are strings.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+final class MessageTemplate {
+    private static final int MAX_RETAINED_CAPACITY = 4096;
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final String[] literals;
+    private final int[] arguments;
+    private final Locale locale;
+    private final ThreadLocal<NumberFormat> numberFormat;
+
+    private MessageTemplate(String[] literals, int[] arguments, Locale locale) {
+        this.literals = literals;
+        this.arguments = arguments;
+        this.locale = locale;
+        this.numberFormat = ThreadLocal.withInitial(() -> NumberFormat.getInstance(this.locale));
+    }
+
+    /**
+     * Compile pattern using default {@link Locale.Category#FORMAT FORMAT} locale,
+     * the same one {@link MessageFormat#format(String, Object...)} uses.
+     *
+     * @param pattern message pattern
+     * @return compiled template
+     * @throws IllegalArgumentException if pattern is malformed
+     */
+    static MessageTemplate compile(String pattern) {
+        return compile(pattern, Locale.getDefault(Locale.Category.FORMAT));
+    }
+
+    /**
+     * Compile pattern using the given locale for number formatting.
+     *
+     * @param pattern message pattern
+     * @param locale  locale to format numbers with
+     * @return compiled template
+     * @throws IllegalArgumentException if pattern is malformed
+     */
+    static MessageTemplate compile(String pattern, Locale locale) {
+        Assert.notNull(pattern, "Pattern must not be null");
+        Assert.notNull(locale, "Locale must not be null");
+        List<String> literals = new ArrayList<>();
+        List<Integer> arguments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'') {
+                    literal.append('\'');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == '{' && !quoted) {
+                int end = pattern.indexOf('}', i);
+                Assert.isTrue(end > i + 1, () -> "Unmatched braces in pattern: " + pattern);
+                int index = parseIndex(pattern, i + 1, end);
+                literals.add(literal.toString());
+                arguments.add(index);
+                literal.setLength(0);
+                i = end;
+            } else {
+                literal.append(c);
+            }
+        }
+        Assert.isTrue(!quoted, () -> "Unmatched quote in pattern: " + pattern);
+        literals.add(literal.toString());
+        return new MessageTemplate(literals.toArray(String[]::new),
+                arguments.stream().mapToInt(Integer::intValue).toArray(), locale);
+    }
+
+    /**
+     * Render template with a single argument.
+     *
+     * @param arg0 argument {@code {0}}
+     * @return rendered message
+     */
+    String format(@Nullable Object arg0) {
+        return format(arg0, null, null);
+    }
+
+    /**
+     * Render template with two arguments.
+     *
+     * @param arg0 argument {@code {0}}
+     * @param arg1 argument {@code {1}}
+     * @return rendered message
+     */
+    String format(@Nullable Object arg0, @Nullable Object arg1) {
+        return format(arg0, arg1, null);
+    }
+
+    /**
+     * Render template with any number of arguments.
+     * Placeholders without matching argument are rendered as is, like {@link MessageFormat} does.
+     *
+     * @param args arguments
+     * @return rendered message
+     */
+    String formatAll(Object... args) {
+        return format(null, null, args);
+    }
+
+    private String format(@Nullable Object arg0, @Nullable Object arg1, @Nullable Object[] args) {
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        builder.append(literals[0]);
+        for (int i = 0; i < arguments.length; i++) {
+            int index = arguments[i];
+            if (args == null ? index <= 1 : index < args.length) {
+                append(builder, args != null ? args[index] : index == 0 ? arg0 : arg1);
+            } else {
+                builder.append('{').append(index).append('}');
+            }
+            builder.append(literals[i + 1]);
+        }
+        String result = builder.toString();
+        if (builder.capacity() > MAX_RETAINED_CAPACITY) {
+            BUILDER.remove();
+        }
+        return result;
+    }
+
+    private void append(StringBuilder builder, @Nullable Object arg) {
+        if (arg instanceof String string) {
+            builder.append(string);
+        } else if (arg instanceof Number number) {
+            builder.append(numberFormat.get().format(number));
+        } else {
+            builder.append(arg);
+        }
+    }
+
+    private static int parseIndex(String pattern, int start, int end) {
+        int index = 0;
+        for (int i = start; i < end; i++) {
+            char c = pattern.charAt(i);
+            Assert.isTrue(c >= '0' && c <= '9' && end - start < 6,
+                    () -> "Only plain argument indexes are supported: " + pattern);
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+}
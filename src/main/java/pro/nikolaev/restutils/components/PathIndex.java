@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.components;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.mvc.condition.PathPatternsRequestCondition;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+import org.springframework.web.util.pattern.PathPattern;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Routes of a single {@link RequestMappingInfoHandlerMapping} looked up by request path, direct paths
+ * through a map and patterns one by one. Shared by filters that act on a request before it is dispatched,
+ * each keeping its own data per route, and per mapping by extending this class.
+ *
+ * @param <R> route type
+ * @author Ilya Nikolaev
+ * @see HandlerMappings#requestMappings
+ * @since 1.2
+ */
+class PathIndex<R> {
+    private final Map<String, List<R>> direct = new HashMap<>();
+    private final List<PatternRoute<R>> patterns = new ArrayList<>();
+
+    /**
+     * Add a route matched by paths of the given mapping.
+     *
+     * @param info  request mapping
+     * @param route route to return for the paths
+     * @return {@code false} if the mapping has no {@link PathPattern} paths and the route is not added
+     */
+    boolean add(RequestMappingInfo info, R route) {
+        PathPatternsRequestCondition paths = info.getPathPatternsCondition();
+        if (paths == null) {
+            return false;
+        }
+        for (String path : paths.getDirectPaths()) {
+            direct.computeIfAbsent(path, key -> new ArrayList<>(2)).add(route);
+        }
+        if (paths.getDirectPaths().size() < paths.getPatterns().size()) {
+            patterns.add(new PatternRoute<>(paths.getPatterns().toArray(PathPattern[]::new), route));
+        }
+        return true;
+    }
+
+    /**
+     * Return routes matching the path.
+     *
+     * @param path path within application
+     * @return mutable list of routes, or {@code null} if there are none and the next mapping is to be asked
+     */
+    @Nullable
+    List<R> candidates(PathContainer path) {
+        List<R> candidates = null;
+        for (R route : direct.getOrDefault(path.value(), List.of())) {
+            candidates = candidates != null ? candidates : new ArrayList<>(4);
+            candidates.add(route);
+        }
+        for (PatternRoute<R> route : patterns) {
+            if (route.matches(path)) {
+                candidates = candidates != null ? candidates : new ArrayList<>(4);
+                candidates.add(route.route);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Match the request against indexes of mappings in {@link HandlerMappings#requestMappings} order,
+     * the first index with routes matching the path decides.
+     *
+     * @param indexes indexes in mapping order
+     * @param request current request
+     * @param matcher function selecting the result from routes of the deciding index
+     * @param <I>     index type
+     * @param <R>     route type
+     * @param <T>     result type
+     * @return result of the matcher, {@code null} if no index has routes matching the path
+     */
+    @Nullable
+    static <I extends PathIndex<R>, R, T> T match(List<I> indexes, HttpServletRequest request,
+                                                  BiFunction<I, List<R>, T> matcher) {
+        PathContainer path = ServletRequestPathUtils.parseAndCache(request).pathWithinApplication();
+        for (I index : indexes) {
+            List<R> candidates = index.candidates(path);
+            if (candidates != null) {
+                return matcher.apply(index, candidates);
+            }
+        }
+        return null;
+    }
+
+    private record PatternRoute<R>(PathPattern[] patterns, R route) {
+
+        boolean matches(PathContainer path) {
+            for (PathPattern pattern : patterns) {
+                if (pattern.matches(path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.components;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import pro.nikolaev.restutils.annotations.RestExceptionHandler;
+
+/**
+ * {@link ReactiveExceptionHandler} registered by {@link RestExceptionHandler @RestExceptionHandler}
+ * in {@code WebFlux} applications. Only handles exceptions of requests mapped to controllers
+ * annotated with {@link RestExceptionHandler @RestExceptionHandler}.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+public class PerControllerReactiveExceptionHandler extends ReactiveExceptionHandler {
+    private static final ClassValue<Boolean> ANNOTATED = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return AnnotatedElementUtils.hasAnnotation(type, RestExceptionHandler.class);
+        }
+    };
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    protected boolean supports(ServerWebExchange exchange) {
+        return exchange.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler
+                && ANNOTATED.get(handler.getBeanType());
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.components;
+
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.reactive.resource.NoResourceFoundException;
+import org.springframework.web.server.MethodNotAllowedException;
+import org.springframework.web.server.NotAcceptableStatusException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebInputException;
+import org.springframework.web.server.UnsupportedMediaTypeStatusException;
+import org.springframework.web.server.WebExceptionHandler;
+import pro.nikolaev.restutils.annotations.EnableRestExceptionHandler;
+import pro.nikolaev.restutils.converters.ApiErrorHttpMessageConverter;
+import pro.nikolaev.restutils.dto.ApiError;
+import pro.nikolaev.restutils.exceptions.ApiException;
+import pro.nikolaev.restutils.logging.AsyncExceptionLogger;
+import pro.nikolaev.restutils.logging.DeduplicatingExceptionLogger;
+import pro.nikolaev.restutils.logging.ErrorContext;
+import pro.nikolaev.restutils.logging.ExceptionLogger;
+import pro.nikolaev.restutils.validation.ViolationReporting;
+import reactor.core.publisher.Mono;
+
+import static pro.nikolaev.restutils.components.ExceptionHandlingAdvice.BAD_REQUEST;
+import static pro.nikolaev.restutils.components.ExceptionHandlingAdvice.FORBIDDEN;
+import static pro.nikolaev.restutils.components.ExceptionHandlingAdvice.INTERNAL_SERVER_ERROR;
+import static pro.nikolaev.restutils.components.ExceptionHandlingAdvice.METHOD_NOT_ALLOWED_ERROR;
+import static pro.nikolaev.restutils.components.ExceptionHandlingAdvice.NOT_ACCEPTABLE;
+import static pro.nikolaev.restutils.components.ExceptionHandlingAdvice.NOT_FOUND;
+import static pro.nikolaev.restutils.components.ExceptionHandlingAdvice.PAYLOAD_TOO_LARGE_ERROR;
+import static pro.nikolaev.restutils.components.ExceptionHandlingAdvice.TYPE_MISMATCH;
+import static pro.nikolaev.restutils.components.ExceptionHandlingAdvice.UNSUPPORTED_MEDIA_TYPE;
+
+/**
+ * Reactive counterpart of {@link ExceptionHandlingAdvice} registered by
+ * {@link EnableRestExceptionHandler @EnableRestExceptionHandler} in {@code WebFlux} applications.
+ *
+ * <p>Maps {@link ApiException} and exceptions raised by {@code WebFlux} to the same statuses
+ * and {@link ApiError} bodies as {@link ExceptionHandlingAdvice} does for their {@code Spring MVC}
+ * equivalents. The body is rendered by {@link ApiErrorHttpMessageConverter} in the format negotiated
+ * from {@code Accept} header straight into a {@link DataBuffer}, constant {@code JSON} bodies
+ * are wrapped without copying, so nothing blocks the event loop.
+ *
+ * <p>Runs after {@link org.springframework.web.bind.annotation.ExceptionHandler @ExceptionHandler}
+ * methods of controllers and controller advice, as those are applied by {@code DispatcherHandler}.
+ *
+ * @author Ilya Nikolaev
+ * @see PerControllerReactiveExceptionHandler
+ * @since 1.2
+ */
+public class ReactiveExceptionHandler implements WebExceptionHandler, Ordered, DisposableBean {
+    private final AsyncExceptionLogger defaultExceptionLogger = new AsyncExceptionLogger();
+    private ExceptionLogger exceptionLogger = defaultExceptionLogger;
+    private ApiErrorHttpMessageConverter messageConverter = new ApiErrorHttpMessageConverter();
+    private ViolationReporting violationReporting = new ViolationReporting();
+
+    /**
+     * Write bodies with {@link ApiErrorHttpMessageConverter} bean, so reactive and {@code Spring MVC}
+     * responses are negotiated and truncated alike. A default converter is used if there is no such bean.
+     *
+     * @param converter the converter to write bodies with
+     */
+    @Autowired(required = false)
+    public void setMessageConverter(ApiErrorHttpMessageConverter converter) {
+        this.messageConverter = converter;
+    }
+
+    /**
+     * Set {@link ViolationReporting} to choose how validation errors are reported.
+     * Only the first error is reported if no settings bean is present.
+     *
+     * @param violationReporting the settings to use
+     */
+    @Autowired(required = false)
+    public void setViolationReporting(ViolationReporting violationReporting) {
+        this.violationReporting = violationReporting;
+    }
+
+    /**
+     * Set {@link ExceptionLogger} to log unexpected exceptions.
+     * {@link AsyncExceptionLogger} backed by {@link DeduplicatingExceptionLogger} is used
+     * if no logger bean is present.
+     *
+     * @param exceptionLogger the logger to use
+     */
+    @Autowired(required = false)
+    public void setExceptionLogger(ExceptionLogger exceptionLogger) {
+        this.exceptionLogger = exceptionLogger;
+    }
+
+    /**
+     * Stop the default {@link AsyncExceptionLogger}. Logger beans are closed by the container.
+     */
+    @Override
+    public void destroy() {
+        defaultExceptionLogger.close();
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+
+    @Override
+    public Mono<Void> handle(ServerWebExchange exchange, Throwable ex) {
+        ServerHttpResponse response = exchange.getResponse();
+        if (response.isCommitted() || !supports(exchange)) {
+            return Mono.error(ex);
+        }
+        HttpStatusCode status;
+        ApiError error;
+        if (ex instanceof ApiException e) {
+            status = e.getStatus();
+            error = e.toApiError();
+        } else if (ex instanceof MethodNotAllowedException) {
+            status = HttpStatus.METHOD_NOT_ALLOWED;
+            error = METHOD_NOT_ALLOWED_ERROR;
+        } else if (ex instanceof WebExchangeBindException e) {
+            status = HttpStatus.BAD_REQUEST;
+            error = Violations.toApiError(e, violationReporting);
+        } else if (isPayloadTooLarge(ex)) {
+            status = HttpStatus.PAYLOAD_TOO_LARGE;
+            error = PAYLOAD_TOO_LARGE_ERROR;
+        } else if (ex instanceof ServerWebInputException e) {
+            status = HttpStatus.BAD_REQUEST;
+            error = new ApiError(BAD_REQUEST, inputError(e));
+        } else if (ex instanceof NotAcceptableStatusException e) {
+            status = HttpStatus.NOT_ACCEPTABLE;
+            error = new ApiError(NOT_ACCEPTABLE, notAcceptableDetails(e));
+        } else if (ex instanceof UnsupportedMediaTypeStatusException e) {
+            status = HttpStatus.UNSUPPORTED_MEDIA_TYPE;
+            error = new ApiError(UNSUPPORTED_MEDIA_TYPE, unsupportedMediaTypeDetails(e));
+        } else if (isNotFound(ex)) {
+            status = HttpStatus.NOT_FOUND;
+            error = new ApiError(NOT_FOUND, resourcePath(exchange));
+        } else if (ex instanceof ResponseStatusException e) {
+            status = e.getStatusCode();
+            error = new ApiError(e.getReason(), e.getDetailMessageCode());
+        } else if (ex instanceof AccessDeniedException) {
+            status = HttpStatus.FORBIDDEN;
+            error = new ApiError(FORBIDDEN, ex.getMessage());
+        } else if (ex instanceof Exception e) {
+            exceptionLogger.log(e, ErrorContext.of(exchange.getRequest()));
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+            error = new ApiError(INTERNAL_SERVER_ERROR, e.getMessage());
+        } else {
+            return Mono.error(ex);
+        }
+        return write(exchange, status, error);
+    }
+
+    /**
+     * Whether exceptions of the current exchange should be handled.
+     *
+     * @param exchange current exchange
+     * @return {@code true} for every exchange
+     */
+    protected boolean supports(ServerWebExchange exchange) {
+        return true;
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, HttpStatusCode status, ApiError error) {
+        ServerHttpResponse response = exchange.getResponse();
+        MediaType mediaType = ApiErrorHttpMessageConverter.negotiate(
+                exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT));
+        DataBuffer body = messageConverter.write(error, mediaType, response.bufferFactory());
+        response.setStatusCode(status);
+        HttpHeaders headers = response.getHeaders();
+        headers.setContentType(mediaType);
+        headers.setContentLength(body.readableByteCount());
+        return response.writeWith(Mono.just(body));
+    }
+
+    private static String inputError(ServerWebInputException e) {
+        Throwable cause = e.getCause();
+        MethodParameter parameter = e.getMethodParameter();
+        if (cause instanceof TypeMismatchException && parameter != null) {
+            return TYPE_MISMATCH.format(parameter.getParameterName(), cause.getMessage());
+        }
+        return cause != null ? cause.getMessage() : e.getReason();
+    }
+
+    /**
+     * Same text as {@link HttpMediaTypeNotAcceptableException#getMessage()} that
+     * {@link ExceptionHandlingAdvice#handle406} reports, the reason of a malformed {@code Accept} header otherwise.
+     */
+    private static String notAcceptableDetails(NotAcceptableStatusException e) {
+        return e.getSupportedMediaTypes().isEmpty() ? e.getReason() : "No acceptable representation";
+    }
+
+    /**
+     * Same text as {@link HttpMediaTypeNotSupportedException#getMessage()} that
+     * {@link ExceptionHandlingAdvice#handle415} reports, the reason of a malformed {@code Content-Type} header otherwise.
+     */
+    private static String unsupportedMediaTypeDetails(UnsupportedMediaTypeStatusException e) {
+        MediaType contentType = e.getContentType();
+        return contentType != null ? "Content-Type '" + contentType + "' is not supported" : e.getReason();
+    }
+
+    /**
+     * {@code DispatcherHandler} reports requests without a matching handler as {@code 404}
+     * {@link ResponseStatusException} with no reason, which is {@link NoResourceFoundException}
+     * in {@code Spring MVC}.
+     */
+    private static boolean isNotFound(Throwable ex) {
+        return ex instanceof NoResourceFoundException
+                || ex instanceof ResponseStatusException e
+                && e.getStatusCode().value() == HttpStatus.NOT_FOUND.value() && e.getReason() == null;
+    }
+
+    private static String resourcePath(ServerWebExchange exchange) {
+        String path = exchange.getRequest().getPath().pathWithinApplication().value();
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+
+    private static boolean isPayloadTooLarge(Throwable ex) {
+        for (Throwable e = ex; e != null; e = e.getCause()) {
+            if (e instanceof DataBufferLimitException) {
+                return true;
+            }
+            if (e instanceof ResponseStatusException status) {
+                if (status.getStatusCode().value() == HttpStatus.PAYLOAD_TOO_LARGE.value()) {
+                    return true;
+                }
+                if (!(e instanceof ServerWebInputException)) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
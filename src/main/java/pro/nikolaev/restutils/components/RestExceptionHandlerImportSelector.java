@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.components;
+
+import org.springframework.context.ResourceLoaderAware;
+import org.springframework.context.annotation.ImportSelector;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.context.WebApplicationContext;
+import pro.nikolaev.restutils.annotations.EnableRestExceptionHandler;
+import pro.nikolaev.restutils.annotations.RestExceptionHandler;
+import pro.nikolaev.restutils.multipart.MultipartMode;
+import pro.nikolaev.restutils.multipart.StreamingMultipartConfiguration;
+import pro.nikolaev.restutils.validation.FailFastValidationConfiguration;
+import pro.nikolaev.restutils.validation.ValidationProfile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Selects exception handling components for {@link EnableRestExceptionHandler @EnableRestExceptionHandler}
+ * and {@link RestExceptionHandler @RestExceptionHandler}.
+ *
+ * <p>{@link ReactiveExceptionHandler} is imported only into a {@code WebFlux} application: a reactive web
+ * context of {@code Spring Boot}, a configuration class also annotated with {@code @EnableWebFlux}, or any
+ * context other than {@link WebApplicationContext} if {@code spring-webflux} is on the classpath and
+ * {@code spring-webmvc} is not. Every other context, including non-web contexts of {@code Spring MVC}
+ * applications that use {@code WebClient}, gets {@code Spring MVC} advice.
+ * {@link FailFastValidationConfiguration} is imported for {@link ValidationProfile#FAIL_FAST},
+ * {@link StreamingMultipartConfiguration} for {@link MultipartMode#STREAMING} in {@code Spring MVC} applications.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+public class RestExceptionHandlerImportSelector implements ImportSelector, ResourceLoaderAware {
+    private static final boolean WEBFLUX_PRESENT = ClassUtils.isPresent(
+            "org.springframework.web.reactive.DispatcherHandler", RestExceptionHandlerImportSelector.class.getClassLoader());
+    private static final boolean WEBMVC_PRESENT = ClassUtils.isPresent(
+            "org.springframework.web.servlet.DispatcherServlet", RestExceptionHandlerImportSelector.class.getClassLoader());
+    private static final String REACTIVE_WEB_CONTEXT =
+            "org.springframework.boot.web.reactive.context.ReactiveWebApplicationContext";
+    private static final String ENABLE_WEBFLUX = "org.springframework.web.reactive.config.EnableWebFlux";
+    private static final boolean VALIDATION_PRESENT = ClassUtils.isPresent(
+            "jakarta.validation.Validator", RestExceptionHandlerImportSelector.class.getClassLoader());
+
+    private ResourceLoader resourceLoader;
+
+    @Override
+    public void setResourceLoader(ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+    }
+
+    @Override
+    public String[] selectImports(AnnotationMetadata importingClassMetadata) {
+        boolean reactive = isReactive(importingClassMetadata);
+        List<String> imports = new ArrayList<>(4);
+        if (importingClassMetadata.isAnnotated(EnableRestExceptionHandler.class.getName())) {
+            imports.add(reactive ? ReactiveExceptionHandler.class.getName() : ExceptionHandlingAdvice.class.getName());
+            Map<String, Object> attributes =
+                    importingClassMetadata.getAnnotationAttributes(EnableRestExceptionHandler.class.getName());
+            if (VALIDATION_PRESENT && attributes != null
+                    && attributes.get("validation") == ValidationProfile.FAIL_FAST) {
+                imports.add(FailFastValidationConfiguration.class.getName());
+            }
+            if (!reactive && attributes != null && attributes.get("multipart") == MultipartMode.STREAMING) {
+                imports.add(StreamingMultipartConfiguration.class.getName());
+            }
+        }
+        if (importingClassMetadata.isAnnotated(RestExceptionHandler.class.getName())) {
+            imports.add(reactive ? PerControllerReactiveExceptionHandler.class.getName()
+                    : PerControllerExceptionHandlingAdvice.class.getName());
+        }
+        if (!reactive) {
+            imports.add(RestUtilsWebMvcConfigurer.class.getName());
+        }
+        return imports.toArray(String[]::new);
+    }
+
+    private boolean isReactive(AnnotationMetadata importingClassMetadata) {
+        if (!WEBFLUX_PRESENT || resourceLoader instanceof WebApplicationContext) {
+            return false;
+        }
+        return resourceLoader != null && ClassUtils.getAllInterfacesForClassAsSet(resourceLoader.getClass()).stream()
+                .anyMatch(type -> type.getName().equals(REACTIVE_WEB_CONTEXT))
+                || importingClassMetadata.hasAnnotation(ENABLE_WEBFLUX)
+                || !WEBMVC_PRESENT;
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pro.nikolaev.restutils.components;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.HttpEntityMethodProcessor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import pro.nikolaev.restutils.connection.ConnectionPolicy;
+import pro.nikolaev.restutils.connection.DefaultConnectionPolicy;
+import pro.nikolaev.restutils.converters.ApiErrorHttpMessageConverter;
+import pro.nikolaev.restutils.download.FileDownload;
+import pro.nikolaev.restutils.download.FileDownloadReturnValueHandler;
+import pro.nikolaev.restutils.download.FileDownloadWriter;
+import pro.nikolaev.restutils.dto.ApiError;
+import pro.nikolaev.restutils.dto.ApiResult;
+import pro.nikolaev.restutils.export.StreamingExport;
+import pro.nikolaev.restutils.export.StreamingExportReturnValueHandler;
+import pro.nikolaev.restutils.export.StreamingExportWriter;
+import pro.nikolaev.restutils.metrics.ErrorLatency;
+import pro.nikolaev.restutils.metrics.ErrorMetrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link WebMvcConfigurer} registering infrastructure used by {@link ExceptionHandlingAdvice}.
+ *
+ * <p>{@link ApiErrorHttpMessageConverter} bean, or a default instance if there is no such bean,
+ * is put ahead of other converters, so {@link ApiError} bodies are not serialized by {@code Jackson}.
+ * {@link ApiResultReturnValueHandler} is put ahead of default return value handlers
+ * of {@link RequestMappingHandlerAdapter}, otherwise {@link ApiResult} would be
+ * written as a plain {@code @ResponseBody}. So is {@link FileDownloadReturnValueHandler} writing
+ * {@link FileDownload} with {@link FileDownloadWriter} bean, or a default instance if there is no such bean,
+ * and {@link StreamingExportReturnValueHandler} writing {@link StreamingExport} with {@link StreamingExportWriter}
+ * bean, or an instance using {@code ObjectMapper} of {@link MappingJackson2HttpMessageConverter} if there is no such bean.
+ * {@link ExceptionHandlingAdviceResolver} is put ahead of default exception resolvers and records
+ * into {@link ErrorLatency} bean, or a default instance if there is no such bean. {@link ErrorMetrics} bean,
+ * or a default instance if there is no unique such bean, is passed to {@link ExceptionHandlingAdvice} beans
+ * and {@link ApiResultReturnValueHandler}. The same {@link ErrorMetrics} and the {@code ExceptionLogger} of
+ * {@link ExceptionHandlingAdvice} are set to {@link StreamingExportWriter} unless it has its own.
+ * {@link ErrorMetrics} and {@link ErrorLatency} are registered in the platform {@code MBeanServer} directly rather than
+ * through an {@code MBeanExporter} bean, which would replace the one exporting the application's own beans,
+ * and are unregistered when the context is closed. Names already taken are left as they are.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+@Configuration(proxyBeanMethods = false)
+public class RestUtilsWebMvcConfigurer implements WebMvcConfigurer, SmartInitializingSingleton, DisposableBean {
+    private final ApplicationContext applicationContext;
+    private final List<ObjectName> registeredMBeans = new ArrayList<>(2);
+    private final ApiErrorHttpMessageConverter converter;
+    private final ErrorLatency errorLatency;
+    private final ErrorMetrics errorMetrics;
+    private final ExceptionHandlingAdviceResolver exceptionResolver;
+    private StreamingExportWriter streamingExportWriter;
+
+    public RestUtilsWebMvcConfigurer(ApplicationContext applicationContext,
+                                     ObjectProvider<ApiErrorHttpMessageConverter> converter,
+                                     ObjectProvider<ErrorLatency> errorLatency,
+                                     ObjectProvider<ErrorMetrics> errorMetrics) {
+        this.applicationContext = applicationContext;
+        this.converter = converter.getIfAvailable(ApiErrorHttpMessageConverter::new);
+        this.errorLatency = errorLatency.getIfAvailable(ErrorLatency::new);
+        this.errorMetrics = errorMetrics.getIfUnique(ErrorMetrics::new);
+        this.exceptionResolver = new ExceptionHandlingAdviceResolver(this.converter, this.errorLatency);
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, converter);
+    }
+
+    @Override
+    public void extendHandlerExceptionResolvers(List<HandlerExceptionResolver> resolvers) {
+        resolvers.add(0, exceptionResolver);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        applicationContext.getBeanProvider(ExceptionHandlingAdvice.class)
+                .forEach(advice -> advice.initErrorMetrics(errorMetrics));
+        exceptionResolver.initialize(applicationContext);
+        if (streamingExportWriter != null) {
+            ExceptionHandlingAdvice advice = applicationContext.getBeanProvider(ExceptionHandlingAdvice.class)
+                    .getIfUnique();
+            if (streamingExportWriter.getExceptionLogger() == null && advice != null) {
+                streamingExportWriter.setExceptionLogger(advice.exceptionLogger());
+            }
+            if (streamingExportWriter.getErrorMetrics() == null) {
+                streamingExportWriter.setErrorMetrics(errorMetrics);
+            }
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        register(server, "ErrorMetrics", errorMetrics);
+        register(server, "ErrorLatency", errorLatency);
+    }
+
+    @Override
+    public void destroy() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registeredMBeans) {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        }
+        registeredMBeans.clear();
+    }
+
+    @Bean
+    static BeanPostProcessor apiResultReturnValueHandlerPostProcessor(ObjectProvider<ConnectionPolicy> connectionPolicy,
+                                                                      ObjectProvider<RestUtilsWebMvcConfigurer> configurer,
+                                                                      ObjectProvider<FileDownloadWriter> fileDownloadWriter,
+                                                                      ObjectProvider<StreamingExportWriter> streamingExportWriter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof RequestMappingHandlerAdapter adapter && adapter.getReturnValueHandlers() != null) {
+                    List<HandlerMethodReturnValueHandler> handlers = new ArrayList<>(adapter.getReturnValueHandlers());
+                    handlers.stream().filter(HttpEntityMethodProcessor.class::isInstance).findFirst()
+                            .ifPresent(delegate -> handlers.add(0, new ApiResultReturnValueHandler(delegate,
+                                    connectionPolicy.getIfAvailable(DefaultConnectionPolicy::new),
+                                    configurer.getObject().errorMetrics)));
+                    handlers.add(0, new FileDownloadReturnValueHandler(
+                            fileDownloadWriter.getIfAvailable(FileDownloadWriter::new)));
+                    StreamingExportWriter exportWriter = streamingExportWriter.getIfAvailable(
+                            () -> adapter.getMessageConverters().stream()
+                                    .filter(MappingJackson2HttpMessageConverter.class::isInstance).findFirst()
+                                    .map(MappingJackson2HttpMessageConverter.class::cast)
+                                    .map(converter -> new StreamingExportWriter(converter.getObjectMapper()))
+                                    .orElseGet(StreamingExportWriter::new));
+                    configurer.getObject().streamingExportWriter = exportWriter;
+                    handlers.add(0, new StreamingExportReturnValueHandler(exportWriter));
+                    adapter.setReturnValueHandlers(handlers);
+                }
+                return bean;
+            }
+        };
+    }
+
+    private void register(MBeanServer server, String type, Object mbean) {
+        try {
+            ObjectName name = new ObjectName("pro.nikolaev.restutils:type=" + type
+                    + ",context=" + ObjectName.quote(applicationContext.getId()));
+            server.registerMBean(mbean, name);
+            registeredMBeans.add(name);
+        } catch (InstanceAlreadyExistsException e) {
+            // registered by another context with the same id
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register " + type + " MBean", e);
+        }
+    }
+}
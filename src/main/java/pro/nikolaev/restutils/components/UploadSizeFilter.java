@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.components;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
+import pro.nikolaev.restutils.annotations.MaxUploadSize;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filter enforcing {@link MaxUploadSize @MaxUploadSize} limits before {@link DispatcherServlet} is reached.
+ *
+ * <p>Routes of {@link RequestMappingInfoHandlerMapping} beans are collected into a table once singletons are
+ * created, together with limits of their handler methods, so a malformed limit fails the context refresh. A request with a body is matched against the table only if any
+ * route declares a limit, and the best matching route is selected the same way the handler mapping does.
+ * If {@code Content-Length} exceeds its limit, {@link MaxUploadSizeExceededException} is passed to
+ * {@link HandlerExceptionResolver} beans right away, so the response is the one
+ * {@link ExceptionHandlingAdvice#handle413} renders and nothing is read or spooled to disk.
+ * Chunked bodies are counted while read through {@link HttpServletRequest#getInputStream()} or
+ * {@link HttpServletRequest#getReader()}, and reading past the limit throws the same exception.
+ *
+ * <p>Multipart parsing of the servlet container reads the connection directly, so chunked multipart requests
+ * handled by {@code StandardServletMultipartResolver} are still limited by {@code MultipartConfigElement} only.
+ * Routes the table can't reason about are not limited, see {@link MediaTypeRejectionFilter}.
+ *
+ * <p>The filter must be declared as a bean in the same context as {@code Spring MVC} configuration.
+ * Its order defaults to {@link Ordered#LOWEST_PRECEDENCE}, so it runs after security filters.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+public class UploadSizeFilter extends OncePerRequestFilter
+        implements ApplicationContextAware, SmartInitializingSingleton, Ordered {
+    private ApplicationContext applicationContext;
+    private int order = Ordered.LOWEST_PRECEDENCE;
+    private volatile Routes routes;
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    /**
+     * Set filter order.
+     *
+     * @param order order value
+     */
+    public void setOrder(int order) {
+        this.order = order;
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        routes();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Routes routes = routes();
+        Route route = routes.limited && HandlerMappings.hasBody(request) ? routes.match(request) : null;
+        if (route == null || route.limit < 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+        long contentLength = request.getContentLengthLong();
+        if (contentLength > route.limit) {
+            if (HandlerMappings.resolve(routes.resolvers, request, response, route.handler.createWithResolvedBean(),
+                    new MaxUploadSizeExceededException(route.limit))) {
+                return;
+            }
+        } else if (contentLength < 0) {
+            request = new LimitedRequest(request, route.limit);
+        }
+        chain.doFilter(request, response);
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return true;
+    }
+
+    @Override
+    protected boolean shouldNotFilterErrorDispatch() {
+        return true;
+    }
+
+    private Routes routes() {
+        Routes routes = this.routes;
+        if (routes == null) {
+            synchronized (this) {
+                routes = this.routes;
+                if (routes == null) {
+                    routes = Routes.build(applicationContext);
+                    this.routes = routes;
+                }
+            }
+        }
+        return routes;
+    }
+
+    /**
+     * Route tables of request mappings, see {@link HandlerMappings#requestMappings}.
+     */
+    private static final class Routes {
+        private final List<PathIndex<Route>> tables = new ArrayList<>(2);
+        private final List<HandlerExceptionResolver> resolvers;
+        private boolean limited;
+
+        private Routes(List<HandlerExceptionResolver> resolvers) {
+            this.resolvers = resolvers;
+        }
+
+        static Routes build(ApplicationContext context) {
+            Routes routes = new Routes(HandlerMappings.exceptionResolvers(context));
+            for (RequestMappingInfoHandlerMapping mapping : HandlerMappings.requestMappings(context)) {
+                PathIndex<Route> table = new PathIndex<>();
+                mapping.getHandlerMethods().forEach((info, handler) -> {
+                    Route route = new Route(info, handler);
+                    if (table.add(info, route)) {
+                        routes.limited |= route.limit >= 0;
+                    }
+                });
+                routes.tables.add(table);
+            }
+            routes.limited &= !routes.resolvers.isEmpty();
+            return routes;
+        }
+
+        @Nullable
+        Route match(HttpServletRequest request) {
+            return PathIndex.match(tables, request, (table, candidates) -> best(request, candidates));
+        }
+
+        @Nullable
+        private static Route best(HttpServletRequest request, List<Route> candidates) {
+            Route best = null;
+            RequestMappingInfo bestMatch = null;
+            for (Route route : candidates) {
+                RequestMappingInfo match = route.info.getMatchingCondition(request);
+                if (match != null && (bestMatch == null || match.compareTo(bestMatch, request) < 0)) {
+                    best = route;
+                    bestMatch = match;
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * {@link RequestMappingInfo} with its handler and body size limit, {@code -1} if unlimited.
+     */
+    private static final class Route {
+        private final RequestMappingInfo info;
+        private final HandlerMethod handler;
+        private final long limit;
+
+        Route(RequestMappingInfo info, HandlerMethod handler) {
+            this.info = info;
+            this.handler = handler;
+            MaxUploadSize maxUploadSize = AnnotatedElementUtils.findMergedAnnotation(handler.getMethod(), MaxUploadSize.class);
+            if (maxUploadSize == null) {
+                maxUploadSize = AnnotatedElementUtils.findMergedAnnotation(handler.getBeanType(), MaxUploadSize.class);
+            }
+            this.limit = maxUploadSize != null ? limit(maxUploadSize, handler) : -1;
+        }
+
+        private static long limit(MaxUploadSize maxUploadSize, HandlerMethod handler) {
+            try {
+                return DataSize.parse(maxUploadSize.value()).toBytes();
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Invalid @MaxUploadSize value '" + maxUploadSize.value()
+                        + "' of " + handler, e);
+            }
+        }
+    }
+
+    /**
+     * Request counting body bytes read through the servlet API.
+     */
+    private static final class LimitedRequest extends HttpServletRequestWrapper {
+        private final long limit;
+        private ServletInputStream inputStream;
+        private BufferedReader reader;
+
+        LimitedRequest(HttpServletRequest request, long limit) {
+            super(request);
+            this.limit = limit;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new LimitedInputStream(super.getInputStream(), limit);
+            }
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                String encoding = getCharacterEncoding();
+                Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+                reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+            }
+            return reader;
+        }
+    }
+
+    /**
+     * Input stream throwing {@link MaxUploadSizeExceededException} once more than the limit is read.
+     */
+    private static final class LimitedInputStream extends ServletInputStream {
+        private final ServletInputStream delegate;
+        private final long limit;
+        private long count;
+
+        LimitedInputStream(ServletInputStream delegate, long limit) {
+            this.delegate = delegate;
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = delegate.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public int readLine(byte[] b, int off, int len) throws IOException {
+            int n = delegate.readLine(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) {
+            count += n;
+            if (count > limit) {
+                throw new MaxUploadSizeExceededException(limit);
+            }
+        }
+
+        @Override
+        public int available() throws IOException {
+            return delegate.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            delegate.setReadListener(readListener);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.components;
+
+import org.springframework.lang.Nullable;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+import pro.nikolaev.restutils.dto.ApiError;
+import pro.nikolaev.restutils.dto.Violation;
+import pro.nikolaev.restutils.validation.ViolationReporting;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static pro.nikolaev.restutils.components.ExceptionHandlingAdvice.BAD_REQUEST;
+
+/**
+ * Builds {@code 400 Bad Request} bodies from {@link BindingResult} for {@link ExceptionHandlingAdvice}
+ * and {@link ReactiveExceptionHandler} according to {@link ViolationReporting}.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+final class Violations {
+    static final MessageTemplate VIOLATION = MessageTemplate.compile("{0} {1}");
+    static final MessageTemplate TRUNCATED = MessageTemplate.compile("{0}. Всего нарушений: {1}, показаны первые {2}");
+
+    private Violations() {
+    }
+
+    /**
+     * Build the body describing the first error in {@code details} and, if
+     * {@link ViolationReporting#isReportAll()}, listing errors in {@code violations}.
+     * Errors are collected in a single pass in the order they were registered.
+     */
+    static ApiError toApiError(BindingResult result, ViolationReporting reporting) {
+        if (!reporting.isReportAll()) {
+            return new ApiError(BAD_REQUEST, firstViolation(result));
+        }
+        List<ObjectError> errors = result.getAllErrors();
+        int total = errors.size();
+        int max = reporting.getMaxViolations();
+        List<Violation> violations = new ArrayList<>(Math.min(total, max));
+        FieldError firstFieldError = null;
+        ObjectError firstGlobalError = null;
+        for (ObjectError error : errors) {
+            if (error instanceof FieldError fieldError) {
+                if (firstFieldError == null) {
+                    firstFieldError = fieldError;
+                }
+                if (violations.size() < max) {
+                    String field = fieldError.getField();
+                    violations.add(new Violation(field, error.getCode(), error.getDefaultMessage(), index(field)));
+                }
+            } else {
+                if (firstGlobalError == null) {
+                    firstGlobalError = error;
+                }
+                if (violations.size() < max) {
+                    violations.add(new Violation(null, error.getCode(), error.getDefaultMessage(), null));
+                }
+            }
+        }
+        String details = describe(firstFieldError, firstGlobalError);
+        if (total > violations.size()) {
+            details = TRUNCATED.formatAll(details, total, violations.size());
+        }
+        return new ApiError(BAD_REQUEST, details, null, Collections.unmodifiableList(violations));
+    }
+
+    /**
+     * Describe the first field error, or the first object error if there are no field errors.
+     */
+    @Nullable
+    static String firstViolation(BindingResult result) {
+        return describe(result.getFieldError(), result.getGlobalError());
+    }
+
+    @Nullable
+    private static String describe(@Nullable FieldError fieldError, @Nullable ObjectError globalError) {
+        if (fieldError != null) {
+            return VIOLATION.format(fieldError.getField(), fieldError.getDefaultMessage());
+        }
+        if (globalError != null) {
+            return VIOLATION.format(globalError.getObjectName(), globalError.getDefaultMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Parse the first index of a property path such as {@code items[2].name},
+     * map keys and paths without index give {@code null}.
+     */
+    @Nullable
+    private static Integer index(String field) {
+        int start = field.indexOf('[');
+        if (start < 0) {
+            return null;
+        }
+        int value = 0;
+        int i = start + 1;
+        for (; i < field.length() && i - start <= 9; i++) {
+            char c = field.charAt(i);
+            if (c == ']') {
+                break;
+            }
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return i > start + 1 && i < field.length() && field.charAt(i) == ']' ? value : null;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pro.nikolaev.restutils.connection;
+
+import pro.nikolaev.restutils.annotations.RestExceptionHandler;
+
+/**
+ * Enumeration of the ways an error response may treat the underlying
+ * {@code HTTP/1.1} connection.
+ *
+ * @author Ilya Nikolaev
+ * @see ConnectionPolicy
+ * @see DefaultConnectionPolicy
+ * @since 1.2
+ */
+public enum ConnectionMode {
+
+    /**
+     * Defer to the configured {@link ConnectionPolicy}.
+     * Only meaningful for {@link RestExceptionHandler#connection()}.
+     */
+    DEFAULT,
+
+    /**
+     * Keep the connection alive unless the request body may not have been
+     * consumed completely, e.g. for {@code 413} or an unreadable body.
+     */
+    AUTO,
+
+    /**
+     * Always keep the connection alive.
+     */
+    KEEP_ALIVE,
+
+    /**
+     * Always close the connection with {@code Connection: Close} header.
+     */
+    CLOSE
+}
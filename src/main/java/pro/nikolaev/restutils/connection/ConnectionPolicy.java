@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pro.nikolaev.restutils.connection;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.lang.Nullable;
+import pro.nikolaev.restutils.components.ExceptionHandlingAdvice;
+
+/**
+ * Strategy that decides whether an error response produced by
+ * {@link ExceptionHandlingAdvice} should close the client connection.
+ *
+ * <p>A bean of this type, if present in the application context, replaces
+ * {@link DefaultConnectionPolicy}. The {@code Connection} header is never
+ * emitted for {@code HTTP/2} requests regardless of the policy decision.
+ *
+ * @author Ilya Nikolaev
+ * @see DefaultConnectionPolicy
+ * @since 1.2
+ */
+@FunctionalInterface
+public interface ConnectionPolicy {
+
+    /**
+     * Decide whether the connection should be closed after the error response.
+     *
+     * @param request   the current request
+     * @param status    the HTTP status of the error response
+     * @param exception the exception being handled, {@code null} if an error is reported
+     *                  without an exception, e.g. by returning {@code ApiResult}
+     * @return {@code true} to send {@code Connection: Close} header
+     */
+    boolean shouldClose(HttpServletRequest request, HttpStatusCode status, @Nullable Exception exception);
+}
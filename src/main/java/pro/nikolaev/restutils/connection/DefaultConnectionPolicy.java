@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pro.nikolaev.restutils.connection;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.servlet.HandlerMapping;
+import pro.nikolaev.restutils.annotations.RestExceptionHandler;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Default {@link ConnectionPolicy} implementation.
+ *
+ * <p>Resolves {@link ConnectionMode} from {@link RestExceptionHandler#connection()}
+ * of the controller that raised an exception, falling back to the mode configured
+ * for the {@link HttpStatus.Series} of the response status. Every series
+ * uses {@link ConnectionMode#AUTO} unless configured otherwise, so the connection is
+ * only closed when the request body may not have been consumed.
+ *
+ * <p>To customize the policy declare a bean:
+ * <pre class="code">
+ * &#064;Bean
+ * public ConnectionPolicy connectionPolicy() {
+ *     return new DefaultConnectionPolicy()
+ *             .setMode(HttpStatus.Series.SERVER_ERROR, ConnectionMode.CLOSE);
+ * }
+ * </pre>
+ *
+ * @author Ilya Nikolaev
+ * @see ConnectionMode
+ * @since 1.2
+ */
+public class DefaultConnectionPolicy implements ConnectionPolicy {
+    private static final ClassValue<ConnectionMode> CONTROLLER_MODES = new ClassValue<>() {
+        @Override
+        protected ConnectionMode computeValue(Class<?> type) {
+            RestExceptionHandler annotation =
+                    AnnotatedElementUtils.findMergedAnnotation(type, RestExceptionHandler.class);
+            return annotation != null ? annotation.connection() : ConnectionMode.DEFAULT;
+        }
+    };
+
+    private final Map<HttpStatus.Series, ConnectionMode> modes = new EnumMap<>(HttpStatus.Series.class);
+
+    /**
+     * Set {@link ConnectionMode} for all responses of the given status series.
+     *
+     * @param series the status series
+     * @param mode   the connection mode, {@link ConnectionMode#DEFAULT} means {@link ConnectionMode#AUTO}
+     * @return this policy
+     */
+    public DefaultConnectionPolicy setMode(HttpStatus.Series series, ConnectionMode mode) {
+        Assert.notNull(series, "Series must not be null");
+        Assert.notNull(mode, "ConnectionMode must not be null");
+        modes.put(series, mode);
+        return this;
+    }
+
+    @Override
+    public boolean shouldClose(HttpServletRequest request, HttpStatusCode status, @Nullable Exception exception) {
+        ConnectionMode mode = controllerMode(request);
+        if (mode == ConnectionMode.DEFAULT) {
+            HttpStatus.Series series = HttpStatus.Series.resolve(status.value());
+            mode = series != null ? modes.getOrDefault(series, ConnectionMode.AUTO) : ConnectionMode.AUTO;
+        }
+        return switch (mode) {
+            case CLOSE -> true;
+            case KEEP_ALIVE -> false;
+            default -> mayHaveUnreadBody(status, exception);
+        };
+    }
+
+    /**
+     * Whether the request body may not have been consumed completely
+     * so the connection can't be safely reused.
+     *
+     * @param status    the HTTP status of the error response
+     * @param exception the exception being handled
+     * @return {@code true} if unread body may remain on the connection
+     */
+    protected boolean mayHaveUnreadBody(HttpStatusCode status, @Nullable Exception exception) {
+        return status.value() == HttpStatus.PAYLOAD_TOO_LARGE.value()
+                || exception instanceof MaxUploadSizeExceededException
+                || exception instanceof HttpMessageNotReadableException;
+    }
+
+    private static ConnectionMode controllerMode(HttpServletRequest request) {
+        if (request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler) {
+            return CONTROLLER_MODES.get(handler.getBeanType());
+        }
+        return ConnectionMode.DEFAULT;
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.converters;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpOutputMessage;
+import pro.nikolaev.restutils.dto.ApiError;
+import pro.nikolaev.restutils.dto.Violation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Renders {@link ApiError} to {@code CBOR} (RFC 8949) as a definite-length map with the same
+ * fields as {@link ApiErrorJsonWriter} produces, readable by {@code Jackson CBORFactory}
+ * or any other {@code CBOR} decoder.
+ *
+ * <p>Field names are encoded once, messages and constraint codes are encoded on first use
+ * and cached, so for the usual constant messages only {@code details}, {@code code} and
+ * violated fields are encoded per response.
+ * {@code details} are limited to the number of bytes of their {@code UTF-8} encoding and followed by
+ * the marker of {@link ApiErrorJsonWriter}, so characters escaped in {@code JSON} may leave more of the value.
+ *
+ * @author Ilya Nikolaev
+ * @see ApiErrorHttpMessageConverter
+ * @since 1.2
+ */
+public final class ApiErrorCborWriter {
+    private static final int MAX_PREPARED_MESSAGES = 512;
+    private static final int MAJOR_UNSIGNED = 0x00;
+    private static final int MAJOR_NEGATIVE = 0x20;
+    private static final int MAJOR_TEXT = 0x60;
+    private static final int MAJOR_ARRAY = 0x80;
+    private static final int MAJOR_MAP = 0xA0;
+    private static final byte[] MESSAGE_KEY = text("message");
+    private static final byte[] DETAILS_KEY = text("details");
+    private static final byte[] CODE_KEY = text("code");
+    private static final byte[] VIOLATIONS_KEY = text("violations");
+    private static final byte[] FIELD_KEY = text("field");
+    private static final byte[] INDEX_KEY = text("index");
+    private static final byte[] MARKER = ApiErrorJsonWriter.TRUNCATION_MARKER.getBytes(StandardCharsets.UTF_8);
+    private static final ConcurrentMap<String, byte[]> PREPARED = new ConcurrentHashMap<>();
+
+    private ApiErrorCborWriter() {
+    }
+
+    /**
+     * Write {@link ApiError} as the body of the given message setting {@code Content-Length} header.
+     *
+     * @param error           error to write
+     * @param outputMessage   message to write to
+     * @param maxDetailsBytes limit of encoded {@code details} or {@link ApiErrorJsonWriter#UNLIMITED}
+     * @throws IOException in case of I/O errors
+     */
+    public static void write(ApiError error, HttpOutputMessage outputMessage, int maxDetailsBytes) throws IOException {
+        EncodingBuffer buffer = EncodingBuffer.get();
+        try {
+            render(error, buffer, maxDetailsBytes);
+            outputMessage.getHeaders().setContentLength(buffer.size);
+            outputMessage.getBody().write(buffer.bytes, 0, buffer.size);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Write {@link ApiError} to a {@link DataBuffer} for reactive responses.
+     *
+     * @param error           error to write
+     * @param bufferFactory   factory of the response
+     * @param maxDetailsBytes limit of encoded {@code details} or {@link ApiErrorJsonWriter#UNLIMITED}
+     * @return buffer holding {@code CBOR} encoded body
+     */
+    public static DataBuffer write(ApiError error, DataBufferFactory bufferFactory, int maxDetailsBytes) {
+        EncodingBuffer buffer = EncodingBuffer.get();
+        try {
+            render(error, buffer, maxDetailsBytes);
+            return bufferFactory.allocateBuffer(buffer.size).write(buffer.bytes, 0, buffer.size);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private static void render(ApiError error, EncodingBuffer buffer, int maxDetailsBytes) {
+        String message = error.message();
+        String details = error.details();
+        Integer code = error.code();
+        List<Violation> violations = error.violations();
+        int fields = (message != null ? 1 : 0) + (details != null ? 1 : 0) + (code != null ? 1 : 0)
+                + (violations != null ? 1 : 0);
+        buffer.append((char) (MAJOR_MAP | fields));
+        if (message != null) {
+            buffer.append(MESSAGE_KEY);
+            buffer.append(prepared(message));
+        }
+        if (details != null) {
+            buffer.append(DETAILS_KEY);
+            int end = Utf8.truncate(details, maxDetailsBytes);
+            boolean truncated = end < details.length();
+            header(MAJOR_TEXT, Utf8.length(details, end) + (truncated ? MARKER.length : 0), buffer);
+            Utf8.encode(details, end, buffer);
+            if (truncated) {
+                buffer.append(MARKER);
+            }
+        }
+        if (code != null) {
+            buffer.append(CODE_KEY);
+            number(code, buffer);
+        }
+        if (violations != null) {
+            buffer.append(VIOLATIONS_KEY);
+            header(MAJOR_ARRAY, violations.size(), buffer);
+            for (Violation violation : violations) {
+                render(violation, buffer);
+            }
+        }
+    }
+
+    private static void render(Violation violation, EncodingBuffer buffer) {
+        String field = violation.field();
+        String code = violation.code();
+        String message = violation.message();
+        Integer index = violation.index();
+        int fields = (field != null ? 1 : 0) + (code != null ? 1 : 0) + (message != null ? 1 : 0)
+                + (index != null ? 1 : 0);
+        buffer.append((char) (MAJOR_MAP | fields));
+        if (field != null) {
+            buffer.append(FIELD_KEY);
+            text(field, buffer);
+        }
+        if (code != null) {
+            buffer.append(CODE_KEY);
+            buffer.append(prepared(code));
+        }
+        if (message != null) {
+            buffer.append(MESSAGE_KEY);
+            buffer.append(prepared(message));
+        }
+        if (index != null) {
+            buffer.append(INDEX_KEY);
+            number(index, buffer);
+        }
+    }
+
+    private static void number(int value, EncodingBuffer buffer) {
+        if (value >= 0) {
+            header(MAJOR_UNSIGNED, value, buffer);
+        } else {
+            header(MAJOR_NEGATIVE, -1 - value, buffer);
+        }
+    }
+
+    private static byte[] prepared(String message) {
+        byte[] prepared = PREPARED.get(message);
+        if (prepared != null) {
+            return prepared;
+        }
+        return PREPARED.size() < MAX_PREPARED_MESSAGES
+                ? PREPARED.computeIfAbsent(message, ApiErrorCborWriter::text) : text(message);
+    }
+
+    private static byte[] text(String value) {
+        EncodingBuffer buffer = new EncodingBuffer();
+        text(value, buffer);
+        return Arrays.copyOf(buffer.bytes, buffer.size);
+    }
+
+    private static void text(String value, EncodingBuffer buffer) {
+        header(MAJOR_TEXT, Utf8.length(value, value.length()), buffer);
+        Utf8.encode(value, value.length(), buffer);
+    }
+
+    private static void header(int major, int argument, EncodingBuffer buffer) {
+        byte[] bytes = buffer.ensureCapacity(5);
+        int position = buffer.size;
+        if (argument < 24) {
+            bytes[position++] = (byte) (major | argument);
+        } else if (argument < 0x100) {
+            bytes[position++] = (byte) (major | 24);
+            bytes[position++] = (byte) argument;
+        } else if (argument < 0x10000) {
+            bytes[position++] = (byte) (major | 25);
+            bytes[position++] = (byte) (argument >> 8);
+            bytes[position++] = (byte) argument;
+        } else {
+            bytes[position++] = (byte) (major | 26);
+            bytes[position++] = (byte) (argument >> 24);
+            bytes[position++] = (byte) (argument >> 16);
+            bytes[position++] = (byte) (argument >> 8);
+            bytes[position++] = (byte) argument;
+        }
+        buffer.size = position;
+    }
+}
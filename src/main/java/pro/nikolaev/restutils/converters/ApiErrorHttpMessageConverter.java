@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pro.nikolaev.restutils.converters;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import pro.nikolaev.restutils.dto.ApiError;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Write-only {@link HttpMessageConverter} for {@link ApiError} producing the same
+ * {@code JSON} as {@code MappingJackson2HttpMessageConverter} would, but with
+ * {@link ApiErrorJsonWriter} instead of {@code ObjectMapper}. The body is rendered
+ * into a reusable buffer before writing, so {@code Content-Length} is always known.
+ *
+ * <p>Besides {@code JSON} the body may be written as {@code CBOR} with {@link ApiErrorCborWriter}
+ * and, if {@code jackson-dataformat-smile} is present, as {@code Smile}. Binary formats are used
+ * only when the client asks for them explicitly, see {@link #negotiate(String)}.
+ *
+ * <p>{@code details} longer than {@value #DEFAULT_MAX_DETAILS_BYTES} bytes are truncated by default.
+ * To change the limit declare a bean:
+ * <pre class="code">
+ * &#064;Bean
+ * public ApiErrorHttpMessageConverter apiErrorHttpMessageConverter() {
+ *     return new ApiErrorHttpMessageConverter().setMaxDetailsBytes(16 * 1024);
+ * }
+ * </pre>
+ *
+ * @author Ilya Nikolaev
+ * @see ApiErrorJsonWriter
+ * @since 1.2
+ */
+public class ApiErrorHttpMessageConverter implements HttpMessageConverter<ApiError> {
+    /**
+     * Default limit of encoded {@code details}.
+     */
+    public static final int DEFAULT_MAX_DETAILS_BYTES = 4096;
+
+    /**
+     * Media type of {@code Smile} encoded bodies.
+     */
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    private static final int MIN_MAX_DETAILS_BYTES = 16;
+    private static final boolean SMILE_PRESENT = ClassUtils.isPresent(
+            "com.fasterxml.jackson.dataformat.smile.SmileFactory", ApiErrorHttpMessageConverter.class.getClassLoader());
+    private static final List<MediaType> SUPPORTED_MEDIA_TYPES = SMILE_PRESENT
+            ? List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR, APPLICATION_SMILE)
+            : List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR);
+
+    private int maxDetailsBytes = DEFAULT_MAX_DETAILS_BYTES;
+
+    /**
+     * Set the limit of encoded {@code details} in bytes, longer values are truncated
+     * and end with {@value ApiErrorJsonWriter#TRUNCATION_MARKER}.
+     *
+     * @param maxDetailsBytes the limit, at least {@code 16}, or {@link ApiErrorJsonWriter#UNLIMITED}
+     * @return this converter
+     */
+    public ApiErrorHttpMessageConverter setMaxDetailsBytes(int maxDetailsBytes) {
+        Assert.isTrue(maxDetailsBytes == ApiErrorJsonWriter.UNLIMITED || maxDetailsBytes >= MIN_MAX_DETAILS_BYTES,
+                "maxDetailsBytes must be at least " + MIN_MAX_DETAILS_BYTES);
+        this.maxDetailsBytes = maxDetailsBytes;
+        return this;
+    }
+
+    /**
+     * Return the limit of encoded {@code details} in bytes.
+     *
+     * @return the limit or {@link ApiErrorJsonWriter#UNLIMITED}
+     */
+    public int getMaxDetailsBytes() {
+        return maxDetailsBytes;
+    }
+
+    /**
+     * Choose the media type of an error body for the given {@code Accept} header.
+     *
+     * <p>{@code CBOR} or {@code Smile} is chosen only if it is listed explicitly and is not
+     * outranked by {@code JSON} or a wildcard in quality. Everything else, including missing
+     * or malformed headers, falls back to {@code application/json}. Headers mentioning
+     * neither binary format are not parsed at all.
+     *
+     * @param accept value of {@code Accept} header
+     * @return {@code application/json}, {@code application/cbor} or {@link #APPLICATION_SMILE}
+     */
+    public static MediaType negotiate(@Nullable String accept) {
+        if (accept == null || !accept.contains("cbor") && !accept.contains("smile")) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        MediaType best = MediaType.APPLICATION_JSON;
+        double bestRank = 0;
+        for (MediaType mediaType : mediaTypes) {
+            double quality = mediaType.getQualityValue();
+            if (quality == 0) {
+                continue;
+            }
+            // an exact match outranks a wildcard of the same quality
+            double rank = quality * 2 + (mediaType.isWildcardType() || mediaType.isWildcardSubtype() ? 0 : 1);
+            MediaType candidate = supported(mediaType);
+            if (candidate != null && rank > bestRank) {
+                best = candidate;
+                bestRank = rank;
+            }
+        }
+        return best;
+    }
+
+    private static MediaType supported(MediaType mediaType) {
+        if (mediaType.includes(MediaType.APPLICATION_JSON)) {
+            return MediaType.APPLICATION_JSON;
+        }
+        if (MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(mediaType)) {
+            return MediaType.APPLICATION_CBOR;
+        }
+        if (SMILE_PRESENT && APPLICATION_SMILE.equalsTypeAndSubtype(mediaType)) {
+            return APPLICATION_SMILE;
+        }
+        return null;
+    }
+
+    /**
+     * Write {@link ApiError} to a {@link DataBuffer} for reactive responses.
+     *
+     * @param error         error to write
+     * @param mediaType     media type chosen by {@link #negotiate(String)}
+     * @param bufferFactory factory of the response
+     * @return buffer holding the encoded body
+     */
+    public DataBuffer write(ApiError error, MediaType mediaType, DataBufferFactory bufferFactory) {
+        if (MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(mediaType)) {
+            return ApiErrorCborWriter.write(error, bufferFactory, maxDetailsBytes);
+        }
+        if (SMILE_PRESENT && APPLICATION_SMILE.equalsTypeAndSubtype(mediaType)) {
+            try {
+                return ApiErrorSmileWriter.write(error, bufferFactory, maxDetailsBytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return ApiErrorJsonWriter.write(error, bufferFactory, maxDetailsBytes);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, @Nullable MediaType mediaType) {
+        if (ApiError.class != clazz) {
+            return false;
+        }
+        if (mediaType == null) {
+            return true;
+        }
+        for (MediaType supported : SUPPORTED_MEDIA_TYPES) {
+            if (supported.isCompatibleWith(mediaType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes() {
+        return SUPPORTED_MEDIA_TYPES;
+    }
+
+    @Override
+    public ApiError read(Class<? extends ApiError> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException(getClass().getSimpleName() + " is write-only", inputMessage);
+    }
+
+    @Override
+    public void write(ApiError error, @Nullable MediaType contentType, HttpOutputMessage outputMessage)
+            throws IOException {
+        MediaType mediaType = contentType != null && contentType.isConcrete() ? contentType : MediaType.APPLICATION_JSON;
+        HttpHeaders headers = outputMessage.getHeaders();
+        if (headers.getContentType() == null) {
+            headers.setContentType(mediaType);
+        }
+        if (MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(mediaType)) {
+            ApiErrorCborWriter.write(error, outputMessage, maxDetailsBytes);
+        } else if (SMILE_PRESENT && APPLICATION_SMILE.equalsTypeAndSubtype(mediaType)) {
+            ApiErrorSmileWriter.write(error, outputMessage, maxDetailsBytes);
+        } else {
+            ApiErrorJsonWriter.write(error, outputMessage, maxDetailsBytes);
+        }
+    }
+}
@@ -0,0 +1,421 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pro.nikolaev.restutils.converters;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpOutputMessage;
+import pro.nikolaev.restutils.dto.ApiError;
+import pro.nikolaev.restutils.dto.Violation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Renders {@link ApiError} to {@code UTF-8} encoded {@code JSON} exactly as
+ * {@code Jackson} does with default settings, without going through {@code ObjectMapper}.
+ *
+ * <p>Strings are escaped and encoded char by char straight into a per-thread
+ * reusable buffer, so rendering allocates neither intermediate strings nor
+ * generator objects. Constant messages may be {@linkplain #prepare(String) prepared}
+ * once, after that the {@code message} part of the body is copied from cache.
+ *
+ * <p>{@code details} may be limited to a number of bytes of its encoded value, so error bodies
+ * don't grow with the size of the input echoed in exception messages. A truncated value never ends
+ * in the middle of a character or a surrogate pair and is followed by {@value #TRUNCATION_MARKER}.
+ * Prepared bodies are never truncated.
+ *
+ * @author Ilya Nikolaev
+ * @see ApiErrorHttpMessageConverter
+ * @since 1.2
+ */
+public final class ApiErrorJsonWriter {
+    /**
+     * Appended to truncated {@code details}.
+     */
+    public static final String TRUNCATION_MARKER = "…";
+
+    /**
+     * Limit meaning {@code details} are never truncated.
+     */
+    public static final int UNLIMITED = -1;
+
+    private static final int MAX_PREPARED_MESSAGES = 512;
+    private static final byte[] EMPTY_OBJECT = bytes("{}");
+    private static final byte[] MESSAGE_PREFIX = bytes("{\"message\":");
+    private static final byte[] DETAILS_ONLY_PREFIX = bytes("{\"details\":");
+    private static final byte[] DETAILS_FIELD = bytes(",\"details\":");
+    private static final byte[] CODE_ONLY_PREFIX = bytes("{\"code\":");
+    private static final byte[] CODE_FIELD = bytes(",\"code\":");
+    private static final byte[] VIOLATIONS_ONLY_PREFIX = bytes("{\"violations\":[");
+    private static final byte[] VIOLATIONS_FIELD = bytes(",\"violations\":[");
+    private static final byte[] FIELD_PREFIX = bytes("{\"field\":");
+    private static final byte[] VIOLATION_CODE_PREFIX = bytes("{\"code\":");
+    private static final byte[] VIOLATION_MESSAGE_PREFIX = bytes("{\"message\":");
+    private static final byte[] INDEX_PREFIX = bytes("{\"index\":");
+    private static final byte[] MESSAGE_FIELD = bytes(",\"message\":");
+    private static final byte[] INDEX_FIELD = bytes(",\"index\":");
+    private static final byte[] HEX = bytes("0123456789ABCDEF");
+    private static final byte[] MARKER = bytes(TRUNCATION_MARKER);
+    // longest encoded unit is an escaped surrogate pair
+    private static final int MAX_UNIT_LENGTH = 12;
+    private static final byte[] SHORT_ESCAPES = new byte[0x20];
+    private static final ConcurrentMap<String, PreparedMessage> PREPARED = new ConcurrentHashMap<>();
+
+    static {
+        SHORT_ESCAPES['\b'] = 'b';
+        SHORT_ESCAPES['\f'] = 'f';
+        SHORT_ESCAPES['\n'] = 'n';
+        SHORT_ESCAPES['\r'] = 'r';
+        SHORT_ESCAPES['\t'] = 't';
+    }
+
+    private ApiErrorJsonWriter() {
+    }
+
+    /**
+     * Render the {@code message} part of the body once and cache it.
+     * Does nothing once the cache is full.
+     *
+     * @param message constant error message
+     */
+    public static void prepare(String message) {
+        if (message != null && PREPARED.size() < MAX_PREPARED_MESSAGES) {
+            PREPARED.computeIfAbsent(message, PreparedMessage::new);
+        }
+    }
+
+    /**
+     * Render the whole body of a constant {@link ApiError} once and cache it.
+     * The cached body is used only for the very same {@code details} string instance
+     * and equal {@code code}, so the error should be kept and reused by the caller.
+     * Does nothing once the cache is full.
+     *
+     * @param error constant error
+     */
+    public static void prepare(ApiError error) {
+        if (error.violations() != null) {
+            prepare(error.message());
+            return;
+        }
+        if (error.message() == null || error.details() == null && error.code() == null) {
+            prepare(error.message());
+            return;
+        }
+        PreparedMessage prepared = PREPARED.size() < MAX_PREPARED_MESSAGES
+                ? PREPARED.computeIfAbsent(error.message(), PreparedMessage::new) : PREPARED.get(error.message());
+        if (prepared != null) {
+            prepared.addBody(error.details(), error.code());
+        }
+    }
+
+    /**
+     * Write {@link ApiError} as the body of the given message setting {@code Content-Length} header.
+     *
+     * @param error           error to write
+     * @param outputMessage   message to write to
+     * @param maxDetailsBytes limit of encoded {@code details} or {@link #UNLIMITED}
+     * @throws IOException in case of I/O errors
+     */
+    static void write(ApiError error, HttpOutputMessage outputMessage, int maxDetailsBytes) throws IOException {
+        byte[] body = preparedBody(error);
+        if (body != null) {
+            outputMessage.getHeaders().setContentLength(body.length);
+            outputMessage.getBody().write(body);
+            return;
+        }
+        EncodingBuffer buffer = EncodingBuffer.get();
+        try {
+            render(error, buffer, maxDetailsBytes);
+            outputMessage.getHeaders().setContentLength(buffer.size);
+            outputMessage.getBody().write(buffer.bytes, 0, buffer.size);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Write {@link ApiError} to a {@link DataBuffer} for reactive responses.
+     * Prepared bodies are wrapped without copying, so the returned buffer must not be written to.
+     *
+     * @param error           error to write
+     * @param bufferFactory   factory of the response
+     * @param maxDetailsBytes limit of encoded {@code details} or {@link #UNLIMITED}
+     * @return buffer holding {@code UTF-8} encoded body
+     */
+    public static DataBuffer write(ApiError error, DataBufferFactory bufferFactory, int maxDetailsBytes) {
+        byte[] body = preparedBody(error);
+        if (body != null) {
+            return bufferFactory.wrap(body);
+        }
+        EncodingBuffer buffer = EncodingBuffer.get();
+        try {
+            render(error, buffer, maxDetailsBytes);
+            return bufferFactory.allocateBuffer(buffer.size).write(buffer.bytes, 0, buffer.size);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Render {@link ApiError} to {@code JSON}. Fields with {@code null} value are omitted.
+     *
+     * @param error error to render
+     * @return {@code UTF-8} encoded body
+     */
+    static byte[] toBytes(ApiError error) {
+        EncodingBuffer buffer = EncodingBuffer.get();
+        try {
+            render(error, buffer, UNLIMITED);
+            return Arrays.copyOf(buffer.bytes, buffer.size);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private static void render(ApiError error, EncodingBuffer buffer, int maxDetailsBytes) {
+        String message = error.message();
+        String details = error.details();
+        Integer code = error.code();
+        List<Violation> violations = error.violations();
+        if (message == null && details == null && code == null && violations == null) {
+            buffer.append(EMPTY_OBJECT);
+            return;
+        }
+        if (message != null) {
+            PreparedMessage prepared = PREPARED.get(message);
+            if (prepared != null) {
+                buffer.append(prepared.prefix);
+            } else {
+                buffer.append(MESSAGE_PREFIX);
+                quote(message, buffer);
+            }
+        }
+        if (details != null) {
+            buffer.append(message == null ? DETAILS_ONLY_PREFIX : DETAILS_FIELD);
+            quote(details, buffer, maxDetailsBytes);
+        }
+        if (code != null) {
+            buffer.append(message == null && details == null ? CODE_ONLY_PREFIX : CODE_FIELD);
+            number(code, buffer);
+        }
+        if (violations != null) {
+            buffer.append(message == null && details == null && code == null ? VIOLATIONS_ONLY_PREFIX : VIOLATIONS_FIELD);
+            for (int i = 0; i < violations.size(); i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                render(violations.get(i), buffer);
+            }
+            buffer.append(']');
+        }
+        buffer.append('}');
+    }
+
+    private static void render(Violation violation, EncodingBuffer buffer) {
+        String field = violation.field();
+        String code = violation.code();
+        String message = violation.message();
+        Integer index = violation.index();
+        boolean first = true;
+        if (field != null) {
+            buffer.append(FIELD_PREFIX);
+            quote(field, buffer);
+            first = false;
+        }
+        if (code != null) {
+            buffer.append(first ? VIOLATION_CODE_PREFIX : CODE_FIELD);
+            quote(code, buffer);
+            first = false;
+        }
+        if (message != null) {
+            buffer.append(first ? VIOLATION_MESSAGE_PREFIX : MESSAGE_FIELD);
+            quote(message, buffer);
+            first = false;
+        }
+        if (index != null) {
+            buffer.append(first ? INDEX_PREFIX : INDEX_FIELD);
+            number(index, buffer);
+            first = false;
+        }
+        if (first) {
+            buffer.append(EMPTY_OBJECT);
+        } else {
+            buffer.append('}');
+        }
+    }
+
+    private static byte[] preparedBody(ApiError error) {
+        if (error.violations() != null) {
+            return null;
+        }
+        String message = error.message();
+        String details = error.details();
+        Integer code = error.code();
+        if (message == null) {
+            return details == null && code == null ? EMPTY_OBJECT : null;
+        }
+        PreparedMessage prepared = PREPARED.get(message);
+        if (prepared == null) {
+            return null;
+        }
+        return details == null && code == null ? prepared.body : prepared.bodyFor(details, code);
+    }
+
+    private static void number(int value, EncodingBuffer buffer) {
+        byte[] bytes = buffer.ensureCapacity(11);
+        int position = buffer.size;
+        long remaining = value;
+        if (remaining < 0) {
+            bytes[position++] = '-';
+            remaining = -remaining;
+        }
+        int digits = 1;
+        for (long bound = 10; remaining >= bound; bound *= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            bytes[i] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        buffer.size = position + digits;
+    }
+
+    private static void quote(String value, EncodingBuffer buffer) {
+        quote(value, buffer, UNLIMITED);
+    }
+
+    private static void quote(String value, EncodingBuffer buffer, int maxBytes) {
+        int length = value.length();
+        // worst case is a 6 byte escape sequence per char
+        long worstCase = length * 6L;
+        boolean limited = maxBytes >= 0 && worstCase > maxBytes;
+        byte[] bytes = buffer.ensureCapacity((int) (limited ? maxBytes + MAX_UNIT_LENGTH : worstCase) + 2);
+        int position = buffer.size;
+        bytes[position++] = '"';
+        int start = position;
+        int limit = limited ? start + maxBytes : Integer.MAX_VALUE;
+        // end of the last unit leaving room for the marker
+        int fits = start;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c >= 0x20 && c != '"' && c != '\\') {
+                    bytes[position++] = (byte) c;
+                } else if (c == '"' || c == '\\') {
+                    bytes[position++] = '\\';
+                    bytes[position++] = (byte) c;
+                } else if (SHORT_ESCAPES[c] != 0) {
+                    bytes[position++] = '\\';
+                    bytes[position++] = SHORT_ESCAPES[c];
+                } else {
+                    position = unicodeEscape(c, bytes, position);
+                }
+            } else if (c < 0x800) {
+                bytes[position++] = (byte) (0xC0 | (c >> 6));
+                bytes[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Jackson escapes both paired and unpaired surrogates
+                position = unicodeEscape(c, bytes, position);
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    position = unicodeEscape(value.charAt(++i), bytes, position);
+                }
+            } else {
+                bytes[position++] = (byte) (0xE0 | (c >> 12));
+                bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+            if (position > limit) {
+                System.arraycopy(MARKER, 0, bytes, fits, MARKER.length);
+                position = fits + MARKER.length;
+                break;
+            }
+            if (position <= limit - MARKER.length) {
+                fits = position;
+            }
+        }
+        bytes[position++] = '"';
+        buffer.size = position;
+    }
+
+    private static int unicodeEscape(char c, byte[] bytes, int position) {
+        bytes[position++] = '\\';
+        bytes[position++] = 'u';
+        bytes[position++] = HEX[c >> 12];
+        bytes[position++] = HEX[(c >> 8) & 0xF];
+        bytes[position++] = HEX[(c >> 4) & 0xF];
+        bytes[position++] = HEX[c & 0xF];
+        return position;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static final class PreparedMessage {
+        private static final int MAX_PREPARED_BODIES = 16;
+        private final byte[] prefix;
+        private final byte[] body;
+        private volatile PreparedBody[] bodies = new PreparedBody[0];
+
+        private PreparedMessage(String message) {
+            EncodingBuffer buffer = new EncodingBuffer();
+            buffer.append(MESSAGE_PREFIX);
+            quote(message, buffer);
+            this.prefix = Arrays.copyOf(buffer.bytes, buffer.size);
+            buffer.append('}');
+            this.body = Arrays.copyOf(buffer.bytes, buffer.size);
+        }
+
+        private byte[] bodyFor(String details, Integer code) {
+            for (PreparedBody prepared : bodies) {
+                if (prepared.details == details && Objects.equals(prepared.code, code)) {
+                    return prepared.body;
+                }
+            }
+            return null;
+        }
+
+        private synchronized void addBody(String details, Integer code) {
+            if (bodyFor(details, code) != null || bodies.length >= MAX_PREPARED_BODIES) {
+                return;
+            }
+            EncodingBuffer buffer = new EncodingBuffer();
+            buffer.append(prefix);
+            if (details != null) {
+                buffer.append(DETAILS_FIELD);
+                quote(details, buffer);
+            }
+            if (code != null) {
+                buffer.append(CODE_FIELD);
+                number(code, buffer);
+            }
+            buffer.append('}');
+            PreparedBody[] bodies = Arrays.copyOf(this.bodies, this.bodies.length + 1);
+            bodies[bodies.length - 1] = new PreparedBody(details, code, Arrays.copyOf(buffer.bytes, buffer.size));
+            this.bodies = bodies;
+        }
+    }
+
+    private record PreparedBody(String details, Integer code, byte[] body) {
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.converters;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpOutputMessage;
+import pro.nikolaev.restutils.dto.ApiError;
+
+import java.io.IOException;
+
+/**
+ * Renders {@link ApiError} to {@code Smile} with a single {@link ObjectWriter} resolved once.
+ * Unpaired surrogates, rejected by {@code SmileGenerator}, are replaced with {@code U+FFFD}
+ * as {@link ApiErrorCborWriter} does.
+ * Loaded only if {@code jackson-dataformat-smile} is on the classpath.
+ *
+ * @author Ilya Nikolaev
+ * @see ApiErrorHttpMessageConverter
+ * @since 1.2
+ */
+final class ApiErrorSmileWriter {
+    private static final ObjectWriter WRITER = new ObjectMapper(new SmileFactory()).writerFor(ApiError.class);
+
+    private ApiErrorSmileWriter() {
+    }
+
+    static void write(ApiError error, HttpOutputMessage outputMessage, int maxDetailsBytes) throws IOException {
+        byte[] body = WRITER.writeValueAsBytes(truncate(error, maxDetailsBytes));
+        outputMessage.getHeaders().setContentLength(body.length);
+        outputMessage.getBody().write(body);
+    }
+
+    static DataBuffer write(ApiError error, DataBufferFactory bufferFactory, int maxDetailsBytes) throws IOException {
+        return bufferFactory.wrap(WRITER.writeValueAsBytes(truncate(error, maxDetailsBytes)));
+    }
+
+    private static ApiError truncate(ApiError error, int maxDetailsBytes) {
+        String message = error.message() != null ? Utf8.wellFormed(error.message()) : null;
+        String details = error.details();
+        if (details != null) {
+            int end = Utf8.truncate(details, maxDetailsBytes);
+            details = end < details.length()
+                    ? Utf8.wellFormed(details.substring(0, end)) + ApiErrorJsonWriter.TRUNCATION_MARKER
+                    : Utf8.wellFormed(details);
+        }
+        return message == error.message() && details == error.details()
+                ? error : new ApiError(message, details, error.code(), error.violations());
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.converters;
+
+import pro.nikolaev.restutils.dto.ApiError;
+
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer shared by {@link ApiError} writers. Each thread reuses its own
+ * instance, which is shrunk back after rendering an unusually large body.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+final class EncodingBuffer {
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+    private static final ThreadLocal<EncodingBuffer> BUFFER = ThreadLocal.withInitial(EncodingBuffer::new);
+
+    byte[] bytes = new byte[INITIAL_BUFFER_SIZE];
+    int size;
+
+    /**
+     * Return the buffer of the current thread, {@link #release()} it once the content is consumed.
+     */
+    static EncodingBuffer get() {
+        return BUFFER.get();
+    }
+
+    byte[] ensureCapacity(int additional) {
+        int required = size + additional;
+        if (required > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(required, bytes.length * 2));
+        }
+        return bytes;
+    }
+
+    void append(byte[] value) {
+        System.arraycopy(value, 0, ensureCapacity(value.length), size, value.length);
+        size += value.length;
+    }
+
+    void append(char value) {
+        ensureCapacity(1)[size++] = (byte) value;
+    }
+
+    void release() {
+        size = 0;
+        if (bytes.length > MAX_RETAINED_BUFFER_SIZE) {
+            bytes = new byte[INITIAL_BUFFER_SIZE];
+        }
+    }
+}
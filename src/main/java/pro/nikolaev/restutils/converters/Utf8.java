@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.converters;
+
+/**
+ * {@code UTF-8} encoding of strings for binary {@link pro.nikolaev.restutils.dto.ApiError} formats,
+ * with truncation to a byte limit. Unpaired surrogates are encoded as {@code U+FFFD}.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+final class Utf8 {
+    private static final int MARKER_LENGTH = length(ApiErrorJsonWriter.TRUNCATION_MARKER, ApiErrorJsonWriter.TRUNCATION_MARKER.length());
+
+    private Utf8() {
+    }
+
+    /**
+     * Return the number of chars to keep so that the encoded value followed by
+     * {@link ApiErrorJsonWriter#TRUNCATION_MARKER} fits into the limit.
+     *
+     * @param value    the value
+     * @param maxBytes the limit or {@link ApiErrorJsonWriter#UNLIMITED}
+     * @return length of the value if it fits as is, otherwise the number of chars to keep
+     */
+    static int truncate(String value, int maxBytes) {
+        int length = value.length();
+        if (maxBytes < 0 || length * 3L <= maxBytes) {
+            return length;
+        }
+        int total = 0;
+        int fits = 0;
+        for (int i = 0; i < length; ) {
+            int chars = isPair(value, i) ? 2 : 1;
+            total += chars == 2 ? 4 : length(value.charAt(i));
+            i += chars;
+            if (total > maxBytes) {
+                return fits;
+            }
+            if (total <= maxBytes - MARKER_LENGTH) {
+                fits = i;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Return the encoded length of the first {@code end} chars of the value.
+     */
+    static int length(String value, int end) {
+        int total = 0;
+        for (int i = 0; i < end; ) {
+            if (isPair(value, i)) {
+                total += 4;
+                i += 2;
+            } else {
+                total += length(value.charAt(i++));
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Encode the first {@code end} chars of the value into the buffer.
+     */
+    static void encode(String value, int end, EncodingBuffer buffer) {
+        byte[] bytes = buffer.ensureCapacity(end * 3);
+        int position = buffer.size;
+        for (int i = 0; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes[position++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[position++] = (byte) (0xC0 | (c >> 6));
+                bytes[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (isPair(value, i)) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                bytes[position++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                if (Character.isSurrogate(c)) {
+                    c = '\uFFFD';
+                }
+                bytes[position++] = (byte) (0xE0 | (c >> 12));
+                bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        buffer.size = position;
+    }
+
+    /**
+     * Return the value with unpaired surrogates replaced by {@code U+FFFD},
+     * the same instance if there are none.
+     */
+    static String wellFormed(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (isPair(value, i)) {
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                return replaceUnpaired(value);
+            }
+        }
+        return value;
+    }
+
+    private static String replaceUnpaired(String value) {
+        StringBuilder builder = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (isPair(value, i)) {
+                builder.append(c).append(value.charAt(++i));
+            } else {
+                builder.append(Character.isSurrogate(c) ? '\uFFFD' : c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static int length(char c) {
+        return c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+    }
+
+    private static boolean isPair(String value, int index) {
+        return Character.isHighSurrogate(value.charAt(index))
+                && index + 1 < value.length() && Character.isLowSurrogate(value.charAt(index + 1));
+    }
+}
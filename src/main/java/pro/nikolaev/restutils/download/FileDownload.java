@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.download;
+
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import pro.nikolaev.restutils.annotations.swagger.success.OkWithResource;
+
+import java.nio.file.Path;
+
+/**
+ * File returned from a controller method to be downloaded.
+ *
+ * <p>Written by {@link FileDownloadReturnValueHandler} with {@link FileDownloadWriter}:
+ * <pre class="code">
+ * &#064;OkWithResource
+ * &#064;GetMapping("/reports/{id}")
+ * public FileDownload report(&#064;PathVariable long id) {
+ *     return FileDownload.attachment(storage.path(id), "Отчет " + id + ".pdf");
+ * }
+ * </pre>
+ *
+ * @param path        file to send
+ * @param filename    file name for {@code Content-Disposition} header, {@code null} to use the name of the file
+ * @param contentType content type of the file, {@code null} to determine it from the file name
+ * @param inline      whether the file should be displayed by the browser instead of being saved
+ * @author Ilya Nikolaev
+ * @see OkWithResource
+ * @since 1.2
+ */
+public record FileDownload(Path path, @Nullable String filename, @Nullable MediaType contentType, boolean inline) {
+
+    public FileDownload {
+        Assert.notNull(path, "Path must not be null");
+    }
+
+    /**
+     * File to be saved under its own name.
+     *
+     * @param path file to send
+     * @return download
+     */
+    public static FileDownload attachment(Path path) {
+        return new FileDownload(path, null, null, false);
+    }
+
+    /**
+     * File to be saved under the given name.
+     *
+     * @param path     file to send
+     * @param filename file name for {@code Content-Disposition} header
+     * @return download
+     */
+    public static FileDownload attachment(Path path, String filename) {
+        Assert.hasText(filename, "Filename must not be empty");
+        return new FileDownload(path, filename, null, false);
+    }
+
+    /**
+     * File to be displayed by the browser.
+     *
+     * @param path file to send
+     * @return download
+     */
+    public static FileDownload inline(Path path) {
+        return new FileDownload(path, null, null, true);
+    }
+
+    /**
+     * Same download with the given content type.
+     *
+     * @param contentType content type of the file
+     * @return download
+     */
+    public FileDownload withContentType(MediaType contentType) {
+        Assert.notNull(contentType, "Content type must not be null");
+        return new FileDownload(path, filename, contentType, inline);
+    }
+}
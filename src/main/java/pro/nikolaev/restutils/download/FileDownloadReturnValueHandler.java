@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.download;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.MethodParameter;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * {@link HandlerMethodReturnValueHandler} for controller methods returning {@link FileDownload}.
+ *
+ * <p>The file is written straight to the response by {@link FileDownloadWriter},
+ * message converters are not involved.
+ *
+ * @author Ilya Nikolaev
+ * @see FileDownload
+ * @since 1.2
+ */
+public class FileDownloadReturnValueHandler implements HandlerMethodReturnValueHandler {
+    private final FileDownloadWriter writer;
+
+    /**
+     * Create a new handler.
+     *
+     * @param writer writer of downloaded files
+     */
+    public FileDownloadReturnValueHandler(FileDownloadWriter writer) {
+        Assert.notNull(writer, "FileDownloadWriter must not be null");
+        this.writer = writer;
+    }
+
+    @Override
+    public boolean supportsReturnType(MethodParameter returnType) {
+        return FileDownload.class.isAssignableFrom(returnType.getParameterType());
+    }
+
+    @Override
+    public void handleReturnValue(@Nullable Object returnValue, MethodParameter returnType,
+                                  ModelAndViewContainer mavContainer, NativeWebRequest webRequest) throws Exception {
+        mavContainer.setRequestHandled(true);
+        if (returnValue == null) {
+            return;
+        }
+        HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+        HttpServletResponse response = webRequest.getNativeResponse(HttpServletResponse.class);
+        Assert.state(request != null && response != null, "No HttpServletRequest or HttpServletResponse");
+        writer.write((FileDownload) returnValue, request, response);
+    }
+}
@@ -0,0 +1,415 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.download;
+
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.ServletResponseWrapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Globals;
+import org.apache.catalina.connector.CoyoteOutputStream;
+import org.apache.catalina.connector.ResponseFacade;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import pro.nikolaev.restutils.components.ExceptionHandlingAdvice;
+import pro.nikolaev.restutils.exceptions.ApiException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes {@link FileDownload} to a servlet response without copying the file through the heap.
+ *
+ * <p>The file is sent with {@code Tomcat} sendfile support when it is available, the response is
+ * not wrapped other than by {@link StandardServletAsyncWebRequest} and the body is at least {@link #setSendfileThreshold(long) sendfile threshold} long.
+ * Otherwise hot small files are written from a {@link #setMappedCacheSize(int) cache} of memory-mapped
+ * files and the rest with {@link FileChannel#transferTo}.
+ *
+ * <p>{@code ETag}, {@code Last-Modified} and conditional request headers are handled as by
+ * {@link ServletWebRequest#checkNotModified(String, long)}. Single and multiple {@code Range} requests
+ * with {@code GET} method are answered with status {@code 206}, multiple ranges as {@code multipart/byteranges}.
+ * {@code If-Range} is compared with the strong {@code ETag} or {@code Last-Modified} of the file.
+ * A malformed or unsatisfiable {@code Range} as well as ranges longer than the file in total
+ * are rejected with {@link ApiException} with status {@code 416} and {@code Content-Range: bytes *&#47;length}
+ * header, a missing file with status {@code 404}, so {@link ExceptionHandlingAdvice} renders them as usual.
+ *
+ * @author Ilya Nikolaev
+ * @see FileDownloadReturnValueHandler
+ * @since 1.2
+ */
+public class FileDownloadWriter {
+    /**
+     * Default minimal body length sent with sendfile, same as {@code Tomcat} default servlet uses.
+     */
+    public static final long DEFAULT_SENDFILE_THRESHOLD = 48 * 1024;
+    /**
+     * Default number of files remembered by the cache of memory-mapped files.
+     */
+    public static final int DEFAULT_MAPPED_CACHE_SIZE = 64;
+    /**
+     * Default maximal size of a memory-mapped file.
+     */
+    public static final long DEFAULT_MAX_MAPPED_FILE_SIZE = 256 * 1024;
+
+    private static final String RANGE_NOT_SATISFIABLE = "Диапазон не может быть выдан";
+    private static final ApiException FILE_NOT_FOUND = ApiException.constant(HttpStatus.NOT_FOUND,
+            "Не найдено", "Файл не найден");
+    private static final ApiException INVALID_RANGE = ApiException.constant(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE,
+            RANGE_NOT_SATISFIABLE, "Некорректный заголовок Range");
+    private static final ApiException UNSATISFIABLE_RANGE = ApiException.constant(
+            HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, RANGE_NOT_SATISFIABLE,
+            "Запрошенный диапазон выходит за пределы файла");
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final String ASYNC_PACKAGE = StandardServletAsyncWebRequest.class.getPackageName() + ".";
+
+    private long sendfileThreshold = DEFAULT_SENDFILE_THRESHOLD;
+    private int mappedCacheSize = DEFAULT_MAPPED_CACHE_SIZE;
+    private long maxMappedFileSize = DEFAULT_MAX_MAPPED_FILE_SIZE;
+    private volatile MappedFileCache mappedFiles = new MappedFileCache(mappedCacheSize, maxMappedFileSize);
+
+    /**
+     * Set minimal body length sent with sendfile.
+     * Default is {@link #DEFAULT_SENDFILE_THRESHOLD}, negative value disables sendfile.
+     *
+     * @param sendfileThreshold minimal length in bytes
+     * @return this writer
+     */
+    public FileDownloadWriter setSendfileThreshold(long sendfileThreshold) {
+        this.sendfileThreshold = sendfileThreshold;
+        return this;
+    }
+
+    /**
+     * Set number of files remembered by the cache of memory-mapped files.
+     * A file is mapped on its second request. Default is {@link #DEFAULT_MAPPED_CACHE_SIZE}, {@code 0} disables the cache.
+     *
+     * <p><b>NOTE:</b> files are expected to be replaced rather than truncated in place
+     * while they are mapped, as reading a truncated mapped file crashes the thread.
+     *
+     * @param mappedCacheSize number of files
+     * @return this writer
+     */
+    public FileDownloadWriter setMappedCacheSize(int mappedCacheSize) {
+        this.mappedCacheSize = mappedCacheSize;
+        this.mappedFiles = new MappedFileCache(mappedCacheSize, maxMappedFileSize);
+        return this;
+    }
+
+    /**
+     * Set maximal size of a memory-mapped file. Default is {@link #DEFAULT_MAX_MAPPED_FILE_SIZE}.
+     *
+     * @param maxMappedFileSize size in bytes
+     * @return this writer
+     */
+    public FileDownloadWriter setMaxMappedFileSize(long maxMappedFileSize) {
+        Assert.isTrue(maxMappedFileSize <= Integer.MAX_VALUE, "Mapped file size must fit into a buffer");
+        this.maxMappedFileSize = maxMappedFileSize;
+        this.mappedFiles = new MappedFileCache(mappedCacheSize, maxMappedFileSize);
+        return this;
+    }
+
+    /**
+     * Write the file to the response.
+     *
+     * @param download file to write
+     * @param request  current request
+     * @param response current response
+     * @throws ApiException with status {@code 404} if there is no such file,
+     *                      {@code 416} if the requested range can't be satisfied
+     * @throws IOException  if the file can't be read or the response can't be written
+     */
+    public void write(FileDownload download, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Path path = download.path();
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            throw FILE_NOT_FOUND;
+        }
+        if (!attributes.isRegularFile()) {
+            throw FILE_NOT_FOUND;
+        }
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+        List<Region> ranges = ranges(request, response, length, etag, lastModified);
+        List<Region> regions = ranges != null ? ranges : List.of(new Region(0, length));
+        String filename = download.filename() != null ? download.filename() : String.valueOf(path.getFileName());
+        MediaType contentType = download.contentType() != null ? download.contentType()
+                : MediaTypeFactory.getMediaType(filename).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(filename, download.inline()));
+        boolean head = HttpMethod.HEAD.matches(request.getMethod());
+        if (regions.size() == 1) {
+            Region region = regions.get(0);
+            if (ranges != null) {
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(region, length));
+            }
+            response.setContentType(contentType.toString());
+            response.setContentLengthLong(region.count);
+            if (head) {
+                return;
+            }
+            ResponseFacade tomcatResponse = tomcatResponse(response);
+            if (tomcatResponse != null && region.count >= sendfileThreshold && sendfileThreshold >= 0
+                    && Boolean.TRUE.equals(request.getAttribute(Globals.SENDFILE_SUPPORTED_ATTR))
+                    && path.getFileSystem() == FileSystems.getDefault()) {
+                request.setAttribute(Globals.SENDFILE_FILENAME_ATTR, path.toAbsolutePath().toString());
+                request.setAttribute(Globals.SENDFILE_FILE_START_ATTR, region.start);
+                request.setAttribute(Globals.SENDFILE_FILE_END_ATTR, region.start + region.count);
+                return;
+            }
+            copy(path, length, lastModified, regions, null, output(response));
+        } else {
+            String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+            List<byte[]> parts = new ArrayList<>(regions.size());
+            long contentLength = 0;
+            for (Region region : regions) {
+                byte[] part = ("--" + boundary + "\r\n" + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                        + HttpHeaders.CONTENT_RANGE + ": " + contentRange(region, length) + "\r\n\r\n")
+                        .getBytes(StandardCharsets.US_ASCII);
+                parts.add(part);
+                contentLength += part.length + region.count + CRLF.length;
+            }
+            byte[] end = ("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setContentType("multipart/byteranges; boundary=" + boundary);
+            response.setContentLengthLong(contentLength + end.length);
+            if (head) {
+                return;
+            }
+            OutputStream out = output(response);
+            copy(path, length, lastModified, regions, parts, out);
+            out.write(end);
+        }
+    }
+
+    /**
+     * {@code Content-Disposition} header value with the file name encoded as defined by
+     * <a href="https://datatracker.ietf.org/doc/html/rfc6266">RFC 6266</a>.
+     *
+     * <p>ASCII names are sent as a quoted {@code filename} parameter. Other names are sent as
+     * {@code filename*} parameter in {@code UTF-8} as defined by
+     * <a href="https://datatracker.ietf.org/doc/html/rfc5987">RFC 5987</a>, preceded by {@code filename}
+     * parameter with non-ASCII characters replaced by {@code _} for older clients.
+     *
+     * @param filename file name
+     * @param inline   whether the file should be displayed by the browser instead of being saved
+     * @return header value
+     */
+    public static String contentDisposition(String filename, boolean inline) {
+        StringBuilder builder = new StringBuilder(filename.length() * 2 + 32)
+                .append(inline ? "inline" : "attachment").append("; filename=\"");
+        boolean ascii = true;
+        for (int i = 0; i < filename.length(); ) {
+            int c = filename.codePointAt(i);
+            i += Character.charCount(c);
+            if (c < 0x20 || c >= 0x7f) {
+                builder.append('_');
+                ascii = false;
+            } else {
+                if (c == '"' || c == '\\') {
+                    builder.append('\\');
+                }
+                builder.append((char) c);
+            }
+        }
+        builder.append('"');
+        if (!ascii) {
+            builder.append("; filename*=UTF-8''");
+            for (byte b : filename.getBytes(StandardCharsets.UTF_8)) {
+                if (isAttrChar(b)) {
+                    builder.append((char) b);
+                } else {
+                    builder.append('%').append(HEX[(b >> 4) & 0x0f]).append(HEX[b & 0x0f]);
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    private static boolean isAttrChar(byte b) {
+        return b >= 'a' && b <= 'z' || b >= 'A' && b <= 'Z' || b >= '0' && b <= '9'
+                || b == '!' || b == '#' || b == '$' || b == '&' || b == '+' || b == '-' || b == '.'
+                || b == '^' || b == '_' || b == '`' || b == '|' || b == '~';
+    }
+
+    @Nullable
+    private static List<Region> ranges(HttpServletRequest request, HttpServletResponse response,
+                                       long length, String etag, long lastModified) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (!StringUtils.hasLength(header) || !HttpMethod.GET.matches(request.getMethod())
+                || !isRangeCurrent(request, etag, lastModified)) {
+            return null;
+        }
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(header);
+        } catch (IllegalArgumentException e) {
+            throw rangeNotSatisfiable(INVALID_RANGE, response, length);
+        }
+        List<Region> regions = new ArrayList<>(ranges.size());
+        long total = 0;
+        for (HttpRange range : ranges) {
+            long start = range.getRangeStart(length);
+            if (start < length) {
+                long count = Math.min(range.getRangeEnd(length), length - 1) - start + 1;
+                regions.add(new Region(start, count));
+                total += count;
+            }
+        }
+        if (regions.isEmpty() || total > length) {
+            throw rangeNotSatisfiable(UNSATISFIABLE_RANGE, response, length);
+        }
+        return regions;
+    }
+
+    private static boolean isRangeCurrent(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) == lastModified / 1000 * 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static ApiException rangeNotSatisfiable(ApiException e, HttpServletResponse response, long length) {
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+        return e;
+    }
+
+    private static String contentRange(Region region, long length) {
+        return "bytes " + region.start + "-" + (region.start + region.count - 1) + "/" + length;
+    }
+
+    /**
+     * {@code Tomcat} response if the given one is not wrapped, except for the guard of asynchronous
+     * requests that doesn't change the body.
+     */
+    @Nullable
+    private static ResponseFacade tomcatResponse(HttpServletResponse response) {
+        ServletResponse current = response;
+        while (current instanceof ServletResponseWrapper wrapper
+                && wrapper.getClass().getName().startsWith(ASYNC_PACKAGE)) {
+            current = wrapper.getResponse();
+        }
+        return current instanceof ResponseFacade facade ? facade : null;
+    }
+
+    private static OutputStream output(HttpServletResponse response) throws IOException {
+        ResponseFacade tomcatResponse = tomcatResponse(response);
+        return tomcatResponse != null ? tomcatResponse.getOutputStream() : response.getOutputStream();
+    }
+
+    private void copy(Path path, long length, long lastModified, List<Region> regions,
+                      @Nullable List<byte[]> parts, OutputStream out) throws IOException {
+        WritableByteChannel target = channel(out);
+        ByteBuffer mapped = mappedFiles.get(path, length, lastModified);
+        try (FileChannel channel = mapped == null ? FileChannel.open(path, StandardOpenOption.READ) : null) {
+            for (int i = 0; i < regions.size(); i++) {
+                Region region = regions.get(i);
+                if (parts != null) {
+                    out.write(parts.get(i));
+                }
+                if (mapped != null) {
+                    ByteBuffer buffer = mapped.duplicate()
+                            .limit((int) (region.start + region.count)).position((int) region.start);
+                    while (buffer.hasRemaining()) {
+                        target.write(buffer);
+                    }
+                } else {
+                    long position = region.start;
+                    long end = region.start + region.count;
+                    while (position < end) {
+                        long transferred = channel.transferTo(position, end - position, target);
+                        if (transferred <= 0) {
+                            throw new EOFException("File was truncated: " + path);
+                        }
+                        position += transferred;
+                    }
+                }
+                if (parts != null) {
+                    out.write(CRLF);
+                }
+            }
+        }
+    }
+
+    /**
+     * Channel writing to the given stream, {@code Tomcat} output is written to without an intermediate array.
+     */
+    private static WritableByteChannel channel(OutputStream out) {
+        if (out instanceof CoyoteOutputStream coyote) {
+            return new WritableByteChannel() {
+                @Override
+                public int write(ByteBuffer src) throws IOException {
+                    int remaining = src.remaining();
+                    coyote.write(src);
+                    return remaining - src.remaining();
+                }
+
+                @Override
+                public boolean isOpen() {
+                    return true;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+        return Channels.newChannel(out);
+    }
+
+    private record Region(long start, long count) {
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.download;
+
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of memory-mapped small files.
+ *
+ * <p>A file is mapped on its second request, files requested once are only remembered.
+ * Entries are keyed by path and invalidated when size or modification time of the file changes.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+final class MappedFileCache {
+    private static final int HOT_HITS = 2;
+
+    private final int capacity;
+    private final long maxFileSize;
+    private final Map<Path, Entry> entries;
+
+    MappedFileCache(int capacity, long maxFileSize) {
+        this.capacity = capacity;
+        this.maxFileSize = maxFileSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, Entry> eldest) {
+                return size() > MappedFileCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Content of a hot file.
+     *
+     * @param path         file
+     * @param size         current size of the file
+     * @param lastModified current modification time of the file
+     * @return read-only buffer with the whole file, {@code null} if the file is not hot or too large
+     */
+    @Nullable
+    ByteBuffer get(Path path, long size, long lastModified) throws IOException {
+        if (capacity <= 0 || size > maxFileSize || size == 0) {
+            return null;
+        }
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(path);
+            if (entry == null || entry.size != size || entry.lastModified != lastModified) {
+                entries.put(path, new Entry(size, lastModified));
+                return null;
+            }
+            if (entry.buffer != null) {
+                return entry.buffer.duplicate();
+            }
+            if (++entry.hits < HOT_HITS) {
+                return null;
+            }
+        }
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() != size) {
+                return null;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        synchronized (entries) {
+            if (entries.get(path) == entry) {
+                entry.buffer = buffer;
+            }
+        }
+        return buffer.duplicate();
+    }
+
+    private static final class Entry {
+        private final long size;
+        private final long lastModified;
+        private int hits = 1;
+        @Nullable
+        private ByteBuffer buffer;
+
+        private Entry(long size, long lastModified) {
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -17,11 +17,14 @@
 package pro.nikolaev.restutils.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Schema;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import pro.nikolaev.restutils.components.ExceptionHandlingAdvice;
 
+import java.util.List;
+
 /**
  * DTO type that is used to populate {@link ResponseBody @ResponseBody}
  * of {@link ExceptionHandler @ExceptionHandler} methods in {@link ExceptionHandlingAdvice}.
@@ -30,6 +33,10 @@ import pro.nikolaev.restutils.components.ExceptionHandlingAdvice;
  * @param details details which may describe either reason for an error,
  *                ways of resolution to an error or any other additional info.
  *                Will be omitted in final {@code JSON} if {@code null}
+ * @param code    compact numeric error code for machine consumers.
+ *                Will be omitted in final {@code JSON} if {@code null}
+ * @param violations all validation errors when enabled by {@code ViolationReporting}.
+ *                   Will be omitted in final {@code JSON} if {@code null}
  * @author Ilya Nikolaev
  * @since 1.0
  */
@@ -40,5 +47,32 @@ public record ApiError(
         String message,
 
         @Schema(description = "Детали ошибки, если присутствуют", example = "Поле < id > не может быть пустым")
-        String details) {
+        String details,
+
+        @Schema(description = "Числовой код ошибки, если присутствует", example = "1001")
+        Integer code,
+
+        @ArraySchema(arraySchema = @Schema(description = "Список нарушений валидации, если запрошен"))
+        List<Violation> violations) {
+
+    /**
+     * Constructor of an error without numeric code.
+     *
+     * @param message a brief error description
+     * @param details details of an error
+     */
+    public ApiError(String message, String details) {
+        this(message, details, null, null);
+    }
+
+    /**
+     * Constructor of an error without validation errors.
+     *
+     * @param message a brief error description
+     * @param details details of an error
+     * @param code    numeric error code
+     */
+    public ApiError(String message, String details, Integer code) {
+        this(message, details, code, null);
+    }
 }
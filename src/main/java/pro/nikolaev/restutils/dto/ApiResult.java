@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package pro.nikolaev.restutils.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.util.Assert;
+import pro.nikolaev.restutils.components.ApiResultReturnValueHandler;
+import pro.nikolaev.restutils.exceptions.ApiException;
+
+/**
+ * Result of a controller method that is either a successful response body
+ * or an {@link ApiError}, so expected failures can be reported without throwing.
+ *
+ * <p>A failure is written exactly as {@link ApiException} would be by
+ * {@code ExceptionHandlingAdvice}:
+ * <pre class="code">
+ * &#064;GetMapping("/users/{id}")
+ * public ApiResult&lt;User&gt; getUser(&#064;PathVariable long id) {
+ *     User user = repository.find(id);
+ *     return user != null ? ApiResult.ok(user) : ApiResult.error(HttpStatus.NOT_FOUND, "Не найдено", null);
+ * }
+ * </pre>
+ *
+ * @param <T> type of the successful response body
+ * @author Ilya Nikolaev
+ * @see ApiResultReturnValueHandler
+ * @since 1.2
+ */
+public sealed interface ApiResult<T> permits ApiResult.Success, ApiResult.Failure {
+
+    /**
+     * HTTP status of the response.
+     */
+    HttpStatusCode status();
+
+    /**
+     * Successful result with HTTP status 200.
+     *
+     * @param body response body
+     * @param <T>  type of the response body
+     * @return successful result
+     */
+    static <T> ApiResult<T> ok(T body) {
+        return new Success<>(HttpStatus.OK, body);
+    }
+
+    /**
+     * Successful result with the given HTTP status.
+     *
+     * @param status the HTTP status
+     * @param body   response body
+     * @param <T>    type of the response body
+     * @return successful result
+     */
+    static <T> ApiResult<T> success(HttpStatusCode status, T body) {
+        return new Success<>(status, body);
+    }
+
+    /**
+     * Failed result.
+     *
+     * @param status  the HTTP status
+     * @param reason  the associated reason, used as {@code message} of {@link ApiError}
+     * @param message the explanation of an error, used as {@code details} of {@link ApiError}
+     * @param <T>     type of the successful response body
+     * @return failed result
+     */
+    static <T> ApiResult<T> error(HttpStatusCode status, String reason, String message) {
+        return new Failure<>(status, new ApiError(reason, message));
+    }
+
+    /**
+     * Failed result with status and body of the given exception. The exception is never thrown,
+     * so it is best combined with {@link ApiException#constant(HttpStatusCode, String, String)}.
+     *
+     * @param exception exception describing the failure
+     * @param <T>       type of the successful response body
+     * @return failed result
+     */
+    static <T> ApiResult<T> error(ApiException exception) {
+        return new Failure<>(exception.getStatus(), exception.toApiError());
+    }
+
+    /**
+     * Successful result.
+     *
+     * @param status the HTTP status
+     * @param body   response body
+     * @param <T>    type of the response body
+     */
+    record Success<T>(HttpStatusCode status, T body) implements ApiResult<T> {
+        public Success {
+            Assert.notNull(status, "HttpStatusCode must not be null");
+        }
+    }
+
+    /**
+     * Failed result.
+     *
+     * @param status the HTTP status
+     * @param error  response body
+     * @param <T>    type of the successful response body
+     */
+    record Failure<T>(HttpStatusCode status, ApiError error) implements ApiResult<T> {
+        public Failure {
+            Assert.notNull(status, "HttpStatusCode must not be null");
+            Assert.notNull(error, "ApiError must not be null");
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Single validation error reported in {@link ApiError#violations()}.
+ *
+ * @param field   path of the rejected field, e.g. {@code items[2].name}.
+ *                Will be omitted in final {@code JSON} for object-level errors
+ * @param code    constraint that failed, e.g. {@code NotNull}
+ * @param message default message of the constraint
+ * @param index   index of the collection element the field belongs to, taken from the first
+ *                index of the path. Will be omitted in final {@code JSON} if the path has no index
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema
+public record Violation(
+        @Schema(description = "Путь к полю", example = "items[2].name")
+        String field,
+
+        @Schema(description = "Нарушенное ограничение", example = "NotNull")
+        String code,
+
+        @Schema(description = "Описание нарушения", example = "must not be null")
+        String message,
+
+        @Schema(description = "Индекс элемента коллекции, если присутствует", example = "2")
+        Integer index) {
+}
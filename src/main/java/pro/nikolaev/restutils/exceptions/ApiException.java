@@ -16,20 +16,40 @@
 
 package pro.nikolaev.restutils.exceptions;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import pro.nikolaev.restutils.converters.ApiErrorJsonWriter;
+import pro.nikolaev.restutils.dto.ApiError;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * {@link RuntimeException} intended to use to expose an HTTP status and reason
  * to {@link ExceptionHandler @ExceptionHandler}.
  *
+ * <p>Constructors capture the stack trace as any other exception does. For expected
+ * business errors use static factories instead, they create exceptions without
+ * stack trace, which makes throwing them almost as cheap as returning a value:
+ * <pre class="code">
+ * throw ApiException.notFound("Пользователь не найден", "Пользователь с id " + id + " не существует");
+ * </pre>
+ * Errors with constant reason and message can be shared with {@link #constant(HttpStatusCode, String, String)},
+ * whose response body is rendered only once. Factories taking {@code code} add a numeric
+ * error code to the body for clients which dispatch on it rather than on text.
+ *
  * @author Ilya Nikolaev
  * @see ExceptionHandler
  * @since 1.0
  */
 public class ApiException extends RuntimeException {
+    private static final int MAX_CONSTANTS = 256;
+    private static final ConcurrentMap<ConstantKey, ApiException> CONSTANTS = new ConcurrentHashMap<>();
     private final HttpStatusCode status;
     private final String reason;
+    private final Integer code;
+    private final transient ApiError error;
 
     /**
      * Constructor with a response status and a reason.
@@ -41,6 +61,8 @@ public class ApiException extends RuntimeException {
     public ApiException(HttpStatusCode status, String reason) {
         this.status = status;
         this.reason = reason;
+        this.code = null;
+        this.error = null;
     }
 
     /**
@@ -55,6 +77,8 @@ public class ApiException extends RuntimeException {
         super(message);
         this.status = status;
         this.reason = reason;
+        this.code = null;
+        this.error = null;
     }
 
     /**
@@ -71,6 +95,8 @@ public class ApiException extends RuntimeException {
         super(message, cause);
         this.status = status;
         this.reason = reason;
+        this.code = null;
+        this.error = null;
     }
 
     /**
@@ -85,6 +111,8 @@ public class ApiException extends RuntimeException {
         super(cause);
         this.status = status;
         this.reason = reason;
+        this.code = null;
+        this.error = null;
     }
 
     /**
@@ -104,6 +132,190 @@ public class ApiException extends RuntimeException {
         super(message, cause, enableSuppression, writableStackTrace);
         this.status = status;
         this.reason = reason;
+        this.code = null;
+        this.error = null;
+    }
+
+    private ApiException(HttpStatusCode status, Integer code, String reason, String message, ApiError error) {
+        super(message, null, false, false);
+        this.status = status;
+        this.reason = reason;
+        this.code = code;
+        this.error = error;
+    }
+
+    /**
+     * Create an exception without stack trace.
+     *
+     * @param status the HTTP status
+     * @param reason the associated reason
+     * @return new exception
+     * @since 1.2
+     */
+    public static ApiException of(HttpStatusCode status, String reason) {
+        return of(status, reason, null);
+    }
+
+    /**
+     * Create an exception without stack trace.
+     *
+     * @param status  the HTTP status
+     * @param reason  the associated reason
+     * @param message the explanation of an error or a hint on how to avoid it
+     * @return new exception
+     * @since 1.2
+     */
+    public static ApiException of(HttpStatusCode status, String reason, String message) {
+        return new ApiException(status, reason, message, null, false, false);
+    }
+
+    /**
+     * Create an exception without stack trace carrying a numeric error code,
+     * which is written as {@code code} field of {@link ApiError}.
+     *
+     * @param status  the HTTP status
+     * @param code    the numeric error code
+     * @param reason  the associated reason
+     * @param message the explanation of an error or a hint on how to avoid it
+     * @return new exception
+     * @since 1.2
+     */
+    public static ApiException of(HttpStatusCode status, int code, String reason, String message) {
+        return new ApiException(status, code, reason, message, null);
+    }
+
+    /**
+     * Return a shared immutable exception without stack trace for the given constant
+     * status, reason and message. Its response body is rendered once and then written
+     * as is by {@code ExceptionHandlingAdvice}.
+     *
+     * <p>Meant to be stored in a {@code static final} field or called with literals only.
+     * After 256 distinct exceptions are cached new exceptions are
+     * no longer shared.
+     *
+     * @param status  the HTTP status
+     * @param reason  the associated reason
+     * @param message the explanation of an error or a hint on how to avoid it
+     * @return shared exception
+     * @since 1.2
+     */
+    public static ApiException constant(HttpStatusCode status, String reason, String message) {
+        return share(status, null, reason, message);
+    }
+
+    /**
+     * Return a shared immutable exception without stack trace carrying a numeric error code.
+     *
+     * @param status  the HTTP status
+     * @param code    the numeric error code
+     * @param reason  the associated reason
+     * @param message the explanation of an error or a hint on how to avoid it
+     * @return shared exception
+     * @see #constant(HttpStatusCode, String, String)
+     * @since 1.2
+     */
+    public static ApiException constant(HttpStatusCode status, int code, String reason, String message) {
+        return share(status, code, reason, message);
+    }
+
+    private static ApiException share(HttpStatusCode status, Integer code, String reason, String message) {
+        ConstantKey key = new ConstantKey(status.value(), code, reason, message);
+        ApiException exception = CONSTANTS.get(key);
+        if (exception != null) {
+            return exception;
+        }
+        if (CONSTANTS.size() >= MAX_CONSTANTS) {
+            return new ApiException(status, code, reason, message, null);
+        }
+        return CONSTANTS.computeIfAbsent(key, k -> {
+            ApiError error = new ApiError(reason, message, code);
+            ApiErrorJsonWriter.prepare(error);
+            return new ApiException(status, code, reason, message, error);
+        });
+    }
+
+    /**
+     * Create a {@code 400 Bad Request} exception without stack trace.
+     *
+     * @param reason  the associated reason
+     * @param message the explanation of an error or a hint on how to avoid it
+     * @return new exception
+     * @since 1.2
+     */
+    public static ApiException badRequest(String reason, String message) {
+        return of(HttpStatus.BAD_REQUEST, reason, message);
+    }
+
+    /**
+     * Create a {@code 401 Unauthorized} exception without stack trace.
+     *
+     * @param reason  the associated reason
+     * @param message the explanation of an error or a hint on how to avoid it
+     * @return new exception
+     * @since 1.2
+     */
+    public static ApiException unauthorized(String reason, String message) {
+        return of(HttpStatus.UNAUTHORIZED, reason, message);
+    }
+
+    /**
+     * Create a {@code 403 Forbidden} exception without stack trace.
+     *
+     * @param reason  the associated reason
+     * @param message the explanation of an error or a hint on how to avoid it
+     * @return new exception
+     * @since 1.2
+     */
+    public static ApiException forbidden(String reason, String message) {
+        return of(HttpStatus.FORBIDDEN, reason, message);
+    }
+
+    /**
+     * Create a {@code 404 Not Found} exception without stack trace.
+     *
+     * @param reason  the associated reason
+     * @param message the explanation of an error or a hint on how to avoid it
+     * @return new exception
+     * @since 1.2
+     */
+    public static ApiException notFound(String reason, String message) {
+        return of(HttpStatus.NOT_FOUND, reason, message);
+    }
+
+    /**
+     * Create a {@code 409 Conflict} exception without stack trace.
+     *
+     * @param reason  the associated reason
+     * @param message the explanation of an error or a hint on how to avoid it
+     * @return new exception
+     * @since 1.2
+     */
+    public static ApiException conflict(String reason, String message) {
+        return of(HttpStatus.CONFLICT, reason, message);
+    }
+
+    /**
+     * Create a {@code 410 Gone} exception without stack trace.
+     *
+     * @param reason  the associated reason
+     * @param message the explanation of an error or a hint on how to avoid it
+     * @return new exception
+     * @since 1.2
+     */
+    public static ApiException gone(String reason, String message) {
+        return of(HttpStatus.GONE, reason, message);
+    }
+
+    /**
+     * Create a {@code 422 Unprocessable Content} exception without stack trace.
+     *
+     * @param reason  the associated reason
+     * @param message the explanation of an error or a hint on how to avoid it
+     * @return new exception
+     * @since 1.2
+     */
+    public static ApiException unprocessableContent(String reason, String message) {
+        return of(HttpStatus.UNPROCESSABLE_ENTITY, reason, message);
     }
 
     /**
@@ -119,4 +331,27 @@ public class ApiException extends RuntimeException {
     public String getReason() {
         return reason;
     }
+
+    /**
+     * Return the numeric error code (potentially {@code null}).
+     *
+     * @since 1.2
+     */
+    public Integer getCode() {
+        return code;
+    }
+
+    /**
+     * Return {@link ApiError} describing this exception, with reason as {@code message}
+     * and exception message as {@code details}.
+     * Shared exceptions return the same instance on every call.
+     *
+     * @since 1.2
+     */
+    public ApiError toApiError() {
+        return error != null ? error : new ApiError(reason, getMessage(), code);
+    }
+
+    private record ConstantKey(int status, Integer code, String reason, String message) {
+    }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.export;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Bounded buffer in front of the response body, sent to the client and flushed each time it is full.
+ *
+ * <p>The response is committed with the first chunk, until then the buffered content may be discarded
+ * and an ordinary error response sent instead. If the whole content fits into the buffer it is sent with
+ * {@code Content-Length}. The first failed write is remembered and rethrown on any further write.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+final class ChunkedOutput extends OutputStream {
+    private final HttpServletResponse response;
+    private final Runnable beforeCommit;
+    private final byte[] buffer;
+    private int count;
+    @Nullable
+    private OutputStream out;
+    @Nullable
+    private IOException failure;
+
+    ChunkedOutput(HttpServletResponse response, int chunkSize, Runnable beforeCommit) {
+        this.response = response;
+        this.beforeCommit = beforeCommit;
+        this.buffer = new byte[chunkSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (count == buffer.length) {
+            drain();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        while (length > 0) {
+            if (count == buffer.length) {
+                drain();
+            }
+            int n = Math.min(length, buffer.length - count);
+            System.arraycopy(bytes, offset, buffer, count, n);
+            count += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Send buffered content to the client.
+     */
+    @Override
+    public void flush() throws IOException {
+        drain();
+    }
+
+    /**
+     * Send the rest of the content, the response may not be written to afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        if (out == null && failure == null) {
+            response.setContentLength(count);
+        }
+        drain();
+    }
+
+    /**
+     * Discard buffered content, possible until the response is committed.
+     */
+    void discard() {
+        count = 0;
+    }
+
+    boolean isCommitted() {
+        return out != null;
+    }
+
+    boolean isCancelled() {
+        return failure != null;
+    }
+
+    private void drain() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        try {
+            if (out == null) {
+                beforeCommit.run();
+                out = response.getOutputStream();
+            }
+            out.write(buffer, 0, count);
+            out.flush();
+            count = 0;
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.export;
+
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Format of {@link StreamingExport}.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+public enum ExportFormat {
+
+    /**
+     * Comma separated values as defined by <a href="https://datatracker.ietf.org/doc/html/rfc4180">RFC 4180</a>,
+     * a row is an array or {@link Iterable} of cells.
+     */
+    CSV(new MediaType("text", "csv", StandardCharsets.UTF_8)),
+
+    /**
+     * Newline delimited {@code JSON}, a row is any object serialized by {@code Jackson}.
+     */
+    NDJSON(MediaType.APPLICATION_NDJSON);
+
+    private final MediaType contentType;
+
+    ExportFormat(MediaType contentType) {
+        this.contentType = contentType;
+    }
+
+    /**
+     * Content type of the response.
+     *
+     * @return content type
+     */
+    public MediaType getContentType() {
+        return contentType;
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.export;
+
+/**
+ * Produces rows of {@link StreamingExport}.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+@FunctionalInterface
+public interface ExportProducer {
+
+    /**
+     * Write all rows of the export. Called on the request thread once the controller method has returned,
+     * so resources like database cursors should be opened here rather than in the controller method.
+     *
+     * @param writer writer to write rows to
+     * @throws Exception if rows can't be produced, reported to the client as described in {@link StreamingExportWriter}
+     */
+    void produce(ExportWriter writer) throws Exception;
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.export;
+
+import java.io.IOException;
+
+/**
+ * Writer of rows passed to {@link ExportProducer}.
+ *
+ * <p>Rows are encoded into a bounded buffer that is sent to the client as soon as it is full. Writing blocks
+ * while the client is not reading, so the producer never runs ahead of the client by more than the buffer.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+public interface ExportWriter {
+
+    /**
+     * Write a row.
+     *
+     * @param row row in the format of the export, see {@link ExportFormat}
+     * @throws IOException if the client has disconnected, the producer should stop then
+     */
+    void write(Object row) throws IOException;
+
+    /**
+     * Send buffered rows to the client without waiting for the buffer to fill up.
+     *
+     * @throws IOException if the client has disconnected, the producer should stop then
+     */
+    void flush() throws IOException;
+
+    /**
+     * Whether the client has disconnected. Only failed writes are noticed.
+     *
+     * @return {@code true} if nothing more can be written
+     */
+    boolean isCancelled();
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.export;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import pro.nikolaev.restutils.annotations.swagger.success.OkWithResource;
+
+import java.util.List;
+
+/**
+ * File generated while it is being downloaded, returned from a controller method.
+ *
+ * <p>Written by {@link StreamingExportReturnValueHandler} with {@link StreamingExportWriter}, rows are
+ * sent to the client as they are produced, so the whole file is never held in memory:
+ * <pre class="code">
+ * &#064;OkWithResource
+ * &#064;GetMapping("/orders/export")
+ * public StreamingExport export() {
+ *     return StreamingExport.csv("Заказы.csv", List.of("Номер", "Сумма"), writer -&gt; {
+ *         try (Stream&lt;Order&gt; orders = repository.streamAll()) {
+ *             for (Order order : (Iterable&lt;Order&gt;) orders::iterator) {
+ *                 writer.write(new Object[]{order.getNumber(), order.getTotal()});
+ *             }
+ *         }
+ *     });
+ * }
+ * </pre>
+ *
+ * @param filename file name for {@code Content-Disposition} header
+ * @param format   format of the file
+ * @param header   names of {@code CSV} columns written as the first row, {@code null} for no header row
+ * @param producer producer of rows
+ * @author Ilya Nikolaev
+ * @see OkWithResource
+ * @since 1.2
+ */
+public record StreamingExport(String filename, ExportFormat format, @Nullable List<String> header,
+                              ExportProducer producer) {
+
+    public StreamingExport {
+        Assert.hasText(filename, "Filename must not be empty");
+        Assert.notNull(format, "Format must not be null");
+        Assert.isTrue(header == null || format == ExportFormat.CSV, "Header row is supported by CSV only");
+        Assert.notNull(producer, "Producer must not be null");
+    }
+
+    /**
+     * {@code CSV} export with a header row.
+     *
+     * @param filename file name for {@code Content-Disposition} header
+     * @param header   names of columns
+     * @param producer producer of rows, each an array or {@link Iterable} of cells
+     * @return export
+     */
+    public static StreamingExport csv(String filename, List<String> header, ExportProducer producer) {
+        Assert.notNull(header, "Header must not be null");
+        return new StreamingExport(filename, ExportFormat.CSV, header, producer);
+    }
+
+    /**
+     * {@code CSV} export without a header row.
+     *
+     * @param filename file name for {@code Content-Disposition} header
+     * @param producer producer of rows, each an array or {@link Iterable} of cells
+     * @return export
+     */
+    public static StreamingExport csv(String filename, ExportProducer producer) {
+        return new StreamingExport(filename, ExportFormat.CSV, null, producer);
+    }
+
+    /**
+     * Newline delimited {@code JSON} export.
+     *
+     * @param filename file name for {@code Content-Disposition} header
+     * @param producer producer of rows, each serialized by {@code Jackson}
+     * @return export
+     */
+    public static StreamingExport ndjson(String filename, ExportProducer producer) {
+        return new StreamingExport(filename, ExportFormat.NDJSON, null, producer);
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import pro.nikolaev.restutils.components.ExceptionHandlingAdvice;
+import pro.nikolaev.restutils.components.RestUtilsWebMvcConfigurer;
+import pro.nikolaev.restutils.download.FileDownloadWriter;
+import pro.nikolaev.restutils.dto.ApiError;
+import pro.nikolaev.restutils.exceptions.ApiException;
+import pro.nikolaev.restutils.logging.ErrorContext;
+import pro.nikolaev.restutils.logging.ExceptionLogger;
+import pro.nikolaev.restutils.metrics.ErrorMetrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes {@link StreamingExport} to a servlet response while its rows are being produced.
+ *
+ * <p>The producer runs on the request thread and its rows are encoded into a buffer of
+ * {@link #setChunkSize(int) chunk size} bytes, which is written to the response and flushed each time it is full.
+ * As writes block while the client is not reading, memory used by an export doesn't depend on its size.
+ * When the client disconnects the failed write is rethrown to the producer, so it can stop,
+ * and the export ends quietly.
+ *
+ * <p>Status and headers are sent with the first chunk. An exception thrown by the producer before that
+ * discards buffered rows and is rethrown, so {@link ExceptionHandlingAdvice} renders it as usual.
+ * Afterwards the status can't be changed any more, so the rows written so far are followed by an error
+ * frame and the response ends. The frame holds {@link ApiError} the advice would render for
+ * {@link ApiException}, or {@literal "Внутренняя ошибка приложения"} message with exception message in
+ * {@code details} for any other exception, which is also logged with {@link #setExceptionLogger ExceptionLogger}.
+ * The error is counted in {@link #setErrorMetrics ErrorMetrics} with the status the advice would respond with.
+ * <ul>
+ * <li>{@link ExportFormat#NDJSON NDJSON} frame is a line {@code {"error":{"message":"...","details":"..."}}},</li>
+ * <li>{@link ExportFormat#CSV CSV} frame is a row {@code #error,<message>,<details>[,<code>]}. Data cells
+ * starting with {@code #} are quoted, so only the frame starts with {@code #} unquoted.</li>
+ * </ul>
+ *
+ * @author Ilya Nikolaev
+ * @see StreamingExportReturnValueHandler
+ * @since 1.2
+ */
+public class StreamingExportWriter {
+    /**
+     * Default size of the buffer sent to the client at once.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 32 * 1024;
+
+    private static final String INTERNAL_SERVER_ERROR = "Внутренняя ошибка приложения";
+    private static final String ERROR_MARKER = "#error";
+
+    private final Logger logger = LoggerFactory.getLogger(StreamingExportWriter.class);
+    private final ObjectMapper objectMapper;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    @Nullable
+    private ExceptionLogger exceptionLogger;
+    @Nullable
+    private ErrorMetrics errorMetrics;
+
+    /**
+     * Create a writer serializing {@code NDJSON} rows with default {@link ObjectMapper}
+     * configured by {@link Jackson2ObjectMapperBuilder}.
+     */
+    public StreamingExportWriter() {
+        this(Jackson2ObjectMapperBuilder.json().build());
+    }
+
+    /**
+     * Create a writer serializing {@code NDJSON} rows with the given {@link ObjectMapper}.
+     *
+     * @param objectMapper mapper to serialize rows with
+     */
+    public StreamingExportWriter(ObjectMapper objectMapper) {
+        Assert.notNull(objectMapper, "ObjectMapper must not be null");
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Set size of the buffer sent to the client at once. Default is {@link #DEFAULT_CHUNK_SIZE}.
+     *
+     * @param chunkSize size in bytes
+     * @return this writer
+     */
+    public StreamingExportWriter setChunkSize(int chunkSize) {
+        Assert.isTrue(chunkSize > 0, "Chunk size must be positive");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Set {@link ExceptionLogger} to log exceptions thrown after the response was committed. Unless set explicitly,
+     * {@link RestUtilsWebMvcConfigurer} sets the one {@link ExceptionHandlingAdvice} uses,
+     * without either exceptions are logged at {@code ERROR} level.
+     *
+     * @param exceptionLogger the logger to use
+     * @return this writer
+     */
+    public StreamingExportWriter setExceptionLogger(ExceptionLogger exceptionLogger) {
+        this.exceptionLogger = exceptionLogger;
+        return this;
+    }
+
+    /**
+     * Return {@link ExceptionLogger} exceptions thrown after the response was committed are logged with.
+     *
+     * @return the logger, {@code null} if not set
+     */
+    @Nullable
+    public ExceptionLogger getExceptionLogger() {
+        return exceptionLogger;
+    }
+
+    /**
+     * Set {@link ErrorMetrics} to count exceptions thrown after the response was committed in. Unless set
+     * explicitly, {@link RestUtilsWebMvcConfigurer} sets the one {@link ExceptionHandlingAdvice} uses.
+     *
+     * @param errorMetrics the metrics to record to
+     * @return this writer
+     */
+    public StreamingExportWriter setErrorMetrics(ErrorMetrics errorMetrics) {
+        this.errorMetrics = errorMetrics;
+        return this;
+    }
+
+    /**
+     * Return {@link ErrorMetrics} exceptions thrown after the response was committed are counted in.
+     *
+     * @return the metrics, {@code null} if not set
+     */
+    @Nullable
+    public ErrorMetrics getErrorMetrics() {
+        return errorMetrics;
+    }
+
+    /**
+     * Produce the export and write it to the response.
+     *
+     * @param export   export to write
+     * @param request  current request
+     * @param response current response
+     * @throws Exception thrown by the producer before the response was committed
+     */
+    public void write(StreamingExport export, HttpServletRequest request, HttpServletResponse response)
+            throws Exception {
+        if (HttpMethod.HEAD.matches(request.getMethod())) {
+            // the length is unknown without producing the export, committing prevents Content-Length: 0
+            writeHeaders(export, response);
+            response.flushBuffer();
+            return;
+        }
+        ChunkedOutput output = new ChunkedOutput(response, chunkSize, () -> writeHeaders(export, response));
+        FormatWriter writer = export.format() == ExportFormat.CSV
+                ? new CsvWriter(output) : new NdjsonWriter(output, objectMapper);
+        try {
+            if (export.header() != null) {
+                writer.write(export.header());
+            }
+            export.producer().produce(writer);
+            output.close();
+        } catch (Exception e) {
+            if (output.isCancelled()) {
+                logger.debug("Export {} cancelled by the client: {}", request.getRequestURI(), e.toString());
+                return;
+            }
+            if (!output.isCommitted()) {
+                output.discard();
+                throw e;
+            }
+            ApiError error;
+            HttpStatusCode status;
+            if (e instanceof ApiException apiException) {
+                error = apiException.toApiError();
+                status = apiException.getStatus();
+            } else {
+                if (exceptionLogger != null) {
+                    exceptionLogger.log(e, ErrorContext.of(request));
+                } else {
+                    logger.error("Export {} failed after the response was committed", request.getRequestURI(), e);
+                }
+                error = new ApiError(INTERNAL_SERVER_ERROR, e.getMessage());
+                status = HttpStatus.INTERNAL_SERVER_ERROR;
+            }
+            if (errorMetrics != null) {
+                errorMetrics.record(request, status, e);
+            }
+            try {
+                writer.writeError(error);
+                output.close();
+            } catch (IOException ex) {
+                logger.debug("Export {} cancelled by the client: {}", request.getRequestURI(), ex.toString());
+            }
+        }
+    }
+
+    private static void writeHeaders(StreamingExport export, HttpServletResponse response) {
+        response.setContentType(export.format().getContentType().toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                FileDownloadWriter.contentDisposition(export.filename(), false));
+    }
+
+    private abstract static class FormatWriter implements ExportWriter {
+        protected final ChunkedOutput output;
+
+        private FormatWriter(ChunkedOutput output) {
+            this.output = output;
+        }
+
+        abstract void writeError(ApiError error) throws IOException;
+
+        @Override
+        public void flush() throws IOException {
+            output.flush();
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return output.isCancelled();
+        }
+    }
+
+    private static final class CsvWriter extends FormatWriter {
+        private final StringBuilder line = new StringBuilder(256);
+
+        private CsvWriter(ChunkedOutput output) {
+            super(output);
+        }
+
+        @Override
+        public void write(Object row) throws IOException {
+            write(null, row);
+        }
+
+        private void write(@Nullable String marker, Object row) throws IOException {
+            Iterable<?> cells;
+            if (row instanceof Object[] array) {
+                cells = Arrays.asList(array);
+            } else if (row instanceof Iterable<?> iterable) {
+                cells = iterable;
+            } else {
+                throw new IllegalArgumentException("CSV row must be an array or Iterable, got "
+                        + (row == null ? null : row.getClass().getName()));
+            }
+            line.setLength(0);
+            boolean first = true;
+            if (marker != null) {
+                line.append(marker);
+                first = false;
+            }
+            for (Object cell : cells) {
+                if (!first) {
+                    line.append(',');
+                }
+                first = false;
+                appendCell(cell);
+            }
+            line.append("\r\n");
+            output.write(line.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void appendCell(Object cell) {
+            if (cell == null) {
+                return;
+            }
+            String value = cell.toString();
+            boolean quote = value.startsWith("#");
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+            }
+            if (!quote) {
+                line.append(value);
+                return;
+            }
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    line.append('"');
+                }
+                line.append(c);
+            }
+            line.append('"');
+        }
+
+        @Override
+        void writeError(ApiError error) throws IOException {
+            List<Object> cells = new ArrayList<>(3);
+            cells.add(error.message());
+            cells.add(error.details());
+            if (error.code() != null) {
+                cells.add(error.code());
+            }
+            write(ERROR_MARKER, cells);
+        }
+    }
+
+    private static final class NdjsonWriter extends FormatWriter {
+        private final ObjectMapper objectMapper;
+
+        private NdjsonWriter(ChunkedOutput output, ObjectMapper objectMapper) {
+            super(output);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public void write(Object row) throws IOException {
+            byte[] json = objectMapper.writeValueAsBytes(row);
+            output.write(json);
+            output.write('\n');
+        }
+
+        @Override
+        void writeError(ApiError error) throws IOException {
+            write(Collections.singletonMap("error", error));
+        }
+    }
+}
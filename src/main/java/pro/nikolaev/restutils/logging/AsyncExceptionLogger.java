@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import pro.nikolaev.restutils.components.ExceptionHandlingAdvice;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link ExceptionLogger} that hands exceptions off to a background thread,
+ * so stack trace rendering and appender I/O don't run on request threads.
+ *
+ * <p>Exceptions are put into a bounded lock-free queue together with {@link ErrorContext}
+ * and passed to the delegate logger by a single daemon worker thread, started on first use.
+ * When the queue is full the {@link DropPolicy} decides which exception is discarded.
+ * Discarded exceptions are counted, see {@link #getDroppedCount()}, and the count is logged
+ * by the worker once it catches up.
+ *
+ * <p>The worker calls {@link ExceptionLogger#flush()} of the delegate whenever it wakes up, at least
+ * once a second, so deferred output like summaries is logged even when no more exceptions come.
+ * The worker thread is stopped by {@link #close()}, which logs the remaining exceptions on the calling
+ * thread and closes the delegate if it is {@link AutoCloseable}. When declared as a bean the method is
+ * called on context shutdown.
+ *
+ * @author Ilya Nikolaev
+ * @see DeduplicatingExceptionLogger
+ * @since 1.2
+ */
+public class AsyncExceptionLogger implements ExceptionLogger, AutoCloseable {
+    private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Logger logger = LoggerFactory.getLogger(ExceptionHandlingAdvice.class);
+    private final ExceptionLogger delegate;
+    private final Queue<Event> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final LongAdder logged = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile Thread worker;
+    private volatile boolean parked;
+    private volatile boolean closed;
+    private int capacity = 1024;
+    private DropPolicy dropPolicy = DropPolicy.DROP_NEWEST;
+    private long shutdownTimeoutMillis = 1000;
+
+    /**
+     * Create logger passing exceptions to {@link DeduplicatingExceptionLogger}.
+     */
+    public AsyncExceptionLogger() {
+        this(new DeduplicatingExceptionLogger());
+    }
+
+    /**
+     * Create logger passing exceptions to the given logger.
+     *
+     * @param delegate logger to call on the worker thread
+     */
+    public AsyncExceptionLogger(ExceptionLogger delegate) {
+        Assert.notNull(delegate, "Delegate ExceptionLogger must not be null");
+        this.delegate = delegate;
+    }
+
+    /**
+     * Set max number of queued exceptions, 1024 by default.
+     *
+     * @param capacity queue capacity
+     * @return this logger
+     */
+    public AsyncExceptionLogger setCapacity(int capacity) {
+        Assert.isTrue(capacity > 0, "Capacity must be positive");
+        this.capacity = capacity;
+        return this;
+    }
+
+    /**
+     * Set what to do when the queue is full, {@link DropPolicy#DROP_NEWEST} by default.
+     *
+     * @param dropPolicy drop policy
+     * @return this logger
+     */
+    public AsyncExceptionLogger setDropPolicy(DropPolicy dropPolicy) {
+        Assert.notNull(dropPolicy, "DropPolicy must not be null");
+        this.dropPolicy = dropPolicy;
+        return this;
+    }
+
+    /**
+     * Set how long {@link #close()} waits for the worker thread, one second by default.
+     *
+     * @param shutdownTimeout shutdown timeout
+     * @return this logger
+     */
+    public AsyncExceptionLogger setShutdownTimeout(Duration shutdownTimeout) {
+        Assert.isTrue(shutdownTimeout != null && !shutdownTimeout.isNegative(),
+                "Shutdown timeout must not be negative");
+        this.shutdownTimeoutMillis = shutdownTimeout.toMillis();
+        return this;
+    }
+
+    @Override
+    public void log(Exception exception, ErrorContext context) {
+        if (closed) {
+            delegate.log(exception, context);
+            return;
+        }
+        if (!started.get() && started.compareAndSet(false, true)) {
+            start();
+        }
+        if (!enqueue(new Event(exception, context))) {
+            dropped.increment();
+            return;
+        }
+        if (parked) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    /**
+     * @return number of exceptions passed to the delegate logger
+     */
+    public long getLoggedCount() {
+        return logged.sum();
+    }
+
+    /**
+     * @return number of exceptions discarded because the queue was full
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return number of exceptions waiting in the queue
+     */
+    public int getQueueSize() {
+        return size.get();
+    }
+
+    /**
+     * Stop the worker thread, log remaining exceptions on the calling thread and close the delegate
+     * if it is {@link AutoCloseable}.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Thread thread = worker;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(shutdownTimeoutMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        drain();
+        if (delegate instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                logger.warn("Failed to close exception logger", e);
+            }
+        }
+    }
+
+    private boolean enqueue(Event event) {
+        if (size.incrementAndGet() > capacity) {
+            if (dropPolicy == DropPolicy.DROP_NEWEST || queue.poll() == null) {
+                size.decrementAndGet();
+                return false;
+            }
+            size.decrementAndGet();
+            dropped.increment();
+        }
+        queue.offer(event);
+        return true;
+    }
+
+    private void start() {
+        Thread thread = new Thread(this::run, "rest-utils-exception-logger");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+
+    private void run() {
+        long reportedDrops = 0;
+        while (!closed) {
+            if (!drain()) {
+                parked = true;
+                if (queue.isEmpty() && !closed) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                parked = false;
+            }
+            try {
+                delegate.flush();
+            } catch (RuntimeException e) {
+                logger.warn("Failed to flush exception logger", e);
+            }
+            long drops = dropped.sum();
+            if (drops != reportedDrops) {
+                logger.warn("{} unexpected errors were not logged as the logging queue was full", drops - reportedDrops);
+                reportedDrops = drops;
+            }
+        }
+    }
+
+    private boolean drain() {
+        boolean drained = false;
+        for (Event event = queue.poll(); event != null; event = queue.poll()) {
+            size.decrementAndGet();
+            drained = true;
+            try {
+                delegate.log(event.exception, event.context);
+                logged.increment();
+            } catch (RuntimeException e) {
+                logger.warn("Failed to log unexpected error", e);
+            }
+        }
+        return drained;
+    }
+
+    private record Event(Exception exception, ErrorContext context) {
+    }
+}
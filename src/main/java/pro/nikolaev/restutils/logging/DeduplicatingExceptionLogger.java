@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import pro.nikolaev.restutils.components.ExceptionHandlingAdvice;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link ExceptionLogger} that suppresses repeated stack traces.
+ *
+ * <p>Exceptions are fingerprinted by their type and top stack frames. The first occurrence
+ * of a fingerprint is logged at {@code ERROR} level with full stack trace, later ones are only
+ * counted. Once per summary interval the counts are logged as one line per fingerprint, and
+ * fingerprints that didn't occur during the whole interval are forgotten, so the next occurrence
+ * is logged in full again. Summaries are emitted when due by {@link #log} and {@link #flush()} calls,
+ * so a burst that is over still gets its summary when the logger is wrapped in {@link AsyncExceptionLogger},
+ * which is the default. {@link #close()} emits the final summary, e.g. on context shutdown.
+ *
+ * <p>The fingerprint table is bounded: when it is full, exceptions with new fingerprints are
+ * logged as a single line without stack trace and counted in the summary.
+ *
+ * <p>To customize the logger declare a bean:
+ * <pre class="code">
+ * &#064;Bean
+ * public ExceptionLogger exceptionLogger() {
+ *     return new DeduplicatingExceptionLogger()
+ *             .setSummaryInterval(Duration.ofSeconds(30))
+ *             .setMaxFingerprints(256);
+ * }
+ * </pre>
+ * Setters are not thread-safe and must be called before the logger is used.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+public class DeduplicatingExceptionLogger implements ExceptionLogger, AutoCloseable {
+    private final Logger logger;
+    private final Map<Fingerprint, Occurrences> fingerprints = new ConcurrentHashMap<>();
+    private final LongAdder untracked = new LongAdder();
+    private final AtomicLong nextSummary = new AtomicLong();
+    private long summaryIntervalNanos = Duration.ofMinutes(1).toNanos();
+    private int maxFingerprints = 1024;
+    private int frameDepth = 5;
+
+    /**
+     * Create logger writing to the {@link ExceptionHandlingAdvice} logger.
+     */
+    public DeduplicatingExceptionLogger() {
+        this(LoggerFactory.getLogger(ExceptionHandlingAdvice.class));
+    }
+
+    /**
+     * Create logger writing to the given logger.
+     *
+     * @param logger target logger
+     */
+    public DeduplicatingExceptionLogger(Logger logger) {
+        Assert.notNull(logger, "Logger must not be null");
+        this.logger = logger;
+        this.nextSummary.set(System.nanoTime() + summaryIntervalNanos);
+    }
+
+    /**
+     * Set interval between summaries of suppressed exceptions, one minute by default.
+     *
+     * @param summaryInterval summary interval
+     * @return this logger
+     */
+    public DeduplicatingExceptionLogger setSummaryInterval(Duration summaryInterval) {
+        Assert.isTrue(summaryInterval != null && !summaryInterval.isNegative() && !summaryInterval.isZero(),
+                "Summary interval must be positive");
+        this.summaryIntervalNanos = summaryInterval.toNanos();
+        this.nextSummary.set(System.nanoTime() + summaryIntervalNanos);
+        return this;
+    }
+
+    /**
+     * Set max number of tracked fingerprints, 1024 by default.
+     *
+     * @param maxFingerprints max number of fingerprints
+     * @return this logger
+     */
+    public DeduplicatingExceptionLogger setMaxFingerprints(int maxFingerprints) {
+        Assert.isTrue(maxFingerprints > 0, "Max fingerprints must be positive");
+        this.maxFingerprints = maxFingerprints;
+        return this;
+    }
+
+    /**
+     * Set number of top stack frames included in fingerprint, 5 by default.
+     *
+     * @param frameDepth number of stack frames
+     * @return this logger
+     */
+    public DeduplicatingExceptionLogger setFrameDepth(int frameDepth) {
+        Assert.isTrue(frameDepth >= 0, "Frame depth must not be negative");
+        this.frameDepth = frameDepth;
+        return this;
+    }
+
+    @Override
+    public void log(Exception exception, ErrorContext context) {
+        long now = flush(System.nanoTime());
+        Fingerprint fingerprint = Fingerprint.of(exception, frameDepth);
+        Occurrences occurrences = fingerprints.get(fingerprint);
+        if (occurrences == null) {
+            if (fingerprints.size() >= maxFingerprints) {
+                untracked.increment();
+                logger.error("Unexpected error processing {}: {}", context, exception.toString());
+                return;
+            }
+            occurrences = fingerprints.putIfAbsent(fingerprint, new Occurrences(now));
+            if (occurrences == null) {
+                logger.error("Unexpected error processing {}:", context, exception);
+                return;
+            }
+        }
+        occurrences.suppressed.increment();
+        occurrences.lastSeen = now;
+    }
+
+    /**
+     * Log the summary if the summary interval is over.
+     */
+    @Override
+    public void flush() {
+        flush(System.nanoTime());
+    }
+
+    private long flush(long now) {
+        if (now - nextSummary.get() >= 0) {
+            summarize(now);
+        }
+        return now;
+    }
+
+    /**
+     * Log counts of exceptions suppressed since the previous summary, even if the summary interval is not over.
+     */
+    @Override
+    public void close() {
+        summarize();
+    }
+
+    /**
+     * Log counts of exceptions suppressed since the previous summary and forget
+     * fingerprints that didn't occur during the last summary interval.
+     */
+    public void summarize() {
+        summarize(System.nanoTime());
+    }
+
+    private void summarize(long now) {
+        long due = nextSummary.get();
+        if (!nextSummary.compareAndSet(due, now + summaryIntervalNanos)) {
+            return;
+        }
+        fingerprints.forEach((fingerprint, occurrences) -> {
+            long count = occurrences.suppressed.sumThenReset();
+            if (count > 0) {
+                logger.error("Unexpected error {} repeated {} times since last summary", fingerprint, count);
+            } else if (now - occurrences.lastSeen >= summaryIntervalNanos) {
+                fingerprints.remove(fingerprint, occurrences);
+            }
+        });
+        long count = untracked.sumThenReset();
+        if (count > 0) {
+            logger.warn("{} unexpected errors were logged without stack trace since last summary, "
+                    + "fingerprint table is full ({} entries)", count, maxFingerprints);
+        }
+    }
+
+    private static final class Occurrences {
+        private final LongAdder suppressed = new LongAdder();
+        private volatile long lastSeen;
+
+        private Occurrences(long lastSeen) {
+            this.lastSeen = lastSeen;
+        }
+    }
+
+    private static final class Fingerprint {
+        private final Class<?> type;
+        private final StackTraceElement[] frames;
+        private final int hash;
+
+        private Fingerprint(Class<?> type, StackTraceElement[] frames) {
+            this.type = type;
+            this.frames = frames;
+            this.hash = 31 * type.hashCode() + Arrays.hashCode(frames);
+        }
+
+        static Fingerprint of(Throwable exception, int depth) {
+            StackTraceElement[] trace = exception.getStackTrace();
+            return new Fingerprint(exception.getClass(),
+                    trace.length > depth ? Arrays.copyOf(trace, depth) : trace);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof Fingerprint other
+                    && type == other.type && hash == other.hash && Arrays.equals(frames, other.frames);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return frames.length > 0 ? type.getName() + " at " + frames[0] : type.getName();
+        }
+    }
+}
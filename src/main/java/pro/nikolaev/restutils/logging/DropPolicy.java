@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.logging;
+
+/**
+ * What {@link AsyncExceptionLogger} does with an exception when its queue is full.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+public enum DropPolicy {
+    /**
+     * Discard the exception being logged.
+     */
+    DROP_NEWEST,
+    /**
+     * Discard the oldest queued exception to make room for the new one.
+     */
+    DROP_OLDEST
+}
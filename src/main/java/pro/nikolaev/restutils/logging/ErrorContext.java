@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.logging;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.lang.Nullable;
+
+/**
+ * Request details logged together with an unexpected exception.
+ * Holds plain values only, so it stays valid after the request is completed.
+ *
+ * @param method     HTTP method of the request
+ * @param requestUri request URI without query string
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+public record ErrorContext(@Nullable String method, @Nullable String requestUri) {
+
+    /**
+     * Capture context of the given request.
+     *
+     * @param request current request
+     * @return request context
+     */
+    public static ErrorContext of(HttpServletRequest request) {
+        return new ErrorContext(request.getMethod(), request.getRequestURI());
+    }
+
+    /**
+     * Capture context of the given reactive request.
+     *
+     * @param request current request
+     * @return request context
+     */
+    public static ErrorContext of(ServerHttpRequest request) {
+        return new ErrorContext(request.getMethod().name(), request.getPath().value());
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + requestUri;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.logging;
+
+import pro.nikolaev.restutils.components.ExceptionHandlingAdvice;
+
+/**
+ * Strategy to log exceptions handled by
+ * {@link ExceptionHandlingAdvice#handleUnexpectedException ExceptionHandlingAdvice.handleUnexpectedException}.
+ * Declare a bean of this type to replace {@link AsyncExceptionLogger} backed by
+ * {@link DeduplicatingExceptionLogger} used by default.
+ *
+ * @author Ilya Nikolaev
+ * @see AsyncExceptionLogger
+ * @see DeduplicatingExceptionLogger
+ * @since 1.2
+ */
+@FunctionalInterface
+public interface ExceptionLogger {
+
+    /**
+     * Log unexpected exception.
+     *
+     * @param exception exception to log
+     * @param context   request the exception was raised for
+     */
+    void log(Exception exception, ErrorContext context);
+
+    /**
+     * Log output that is due but deferred until the next exception, e.g. summaries of suppressed
+     * exceptions. {@link AsyncExceptionLogger} calls it on its worker thread at least once a second.
+     * Does nothing by default.
+     */
+    default void flush() {
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.metrics;
+
+import pro.nikolaev.restutils.components.ExceptionHandlingAdvice;
+import pro.nikolaev.restutils.components.ExceptionHandlingAdviceResolver;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * {@link LatencyHistogram}s of the error path per {@link ExceptionHandlingAdvice} handler,
+ * measured by {@link ExceptionHandlingAdviceResolver} from exception resolution to response commit.
+ *
+ * <p>Optionally the resolver adds {@code Server-Timing} header with the time spent
+ * before the response body is written:
+ * <pre class="code">
+ * Server-Timing: error;desc="handle400";dur=0.153
+ * </pre>
+ * The header is disabled by default, to enable it declare a bean:
+ * <pre class="code">
+ * &#064;Bean
+ * public ErrorLatency errorLatency() {
+ *     ErrorLatency errorLatency = new ErrorLatency();
+ *     errorLatency.setServerTimingEnabled(true);
+ *     return errorLatency;
+ * }
+ * </pre>
+ * or switch {@code ServerTimingEnabled} attribute through JMX.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+public class ErrorLatency implements ErrorLatencyMXBean {
+    private static final double NANOS_PER_MICRO = 1000;
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private volatile boolean serverTimingEnabled;
+
+    /**
+     * Get or create histogram of the handler.
+     *
+     * @param handler handler name
+     * @return histogram of the handler
+     */
+    public LatencyHistogram histogram(String handler) {
+        return histograms.computeIfAbsent(handler, name -> new LatencyHistogram());
+    }
+
+    @Override
+    public void setServerTimingEnabled(boolean serverTimingEnabled) {
+        this.serverTimingEnabled = serverTimingEnabled;
+    }
+
+    @Override
+    public boolean isServerTimingEnabled() {
+        return serverTimingEnabled;
+    }
+
+    @Override
+    public Map<String, Long> getCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        histograms.forEach((handler, histogram) -> counts.put(handler, histogram.getCount()));
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getMeanMicros() {
+        return micros(LatencyHistogram::getMean);
+    }
+
+    @Override
+    public Map<String, Double> getP50Micros() {
+        return micros(histogram -> histogram.getPercentile(50));
+    }
+
+    @Override
+    public Map<String, Double> getP99Micros() {
+        return micros(histogram -> histogram.getPercentile(99));
+    }
+
+    @Override
+    public Map<String, Double> getP999Micros() {
+        return micros(histogram -> histogram.getPercentile(99.9));
+    }
+
+    @Override
+    public Map<String, Double> getMaxMicros() {
+        return micros(LatencyHistogram::getMax);
+    }
+
+    @Override
+    public void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+    }
+
+    private Map<String, Double> micros(ToDoubleFunction<LatencyHistogram> statistic) {
+        Map<String, Double> values = new TreeMap<>();
+        histograms.forEach((handler, histogram) ->
+                values.put(handler, statistic.applyAsDouble(histogram) / NANOS_PER_MICRO));
+        return values;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link ErrorLatency}. Durations are in microseconds.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+public interface ErrorLatencyMXBean {
+
+    /**
+     * @return number of handled exceptions by handler
+     */
+    Map<String, Long> getCounts();
+
+    /**
+     * @return mean duration by handler
+     */
+    Map<String, Double> getMeanMicros();
+
+    /**
+     * @return median duration by handler
+     */
+    Map<String, Double> getP50Micros();
+
+    /**
+     * @return 99th percentile of duration by handler
+     */
+    Map<String, Double> getP99Micros();
+
+    /**
+     * @return 99.9th percentile of duration by handler
+     */
+    Map<String, Double> getP999Micros();
+
+    /**
+     * @return max duration by handler
+     */
+    Map<String, Double> getMaxMicros();
+
+    /**
+     * @return whether {@code Server-Timing} header is added to error responses
+     */
+    boolean isServerTimingEnabled();
+
+    /**
+     * @param serverTimingEnabled whether to add {@code Server-Timing} header to error responses
+     */
+    void setServerTimingEnabled(boolean serverTimingEnabled);
+
+    /**
+     * Reset all histograms.
+     */
+    void reset();
+}
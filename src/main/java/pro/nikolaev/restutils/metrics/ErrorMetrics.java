@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import pro.nikolaev.restutils.components.ExceptionHandlingAdvice;
+import pro.nikolaev.restutils.dto.ApiResult;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of error responses produced by {@link ExceptionHandlingAdvice} and failed {@link ApiResult}s,
+ * keyed by status code, exception class and controller class.
+ *
+ * <p>Counters are {@link LongAdder}s resolved through an array indexed by status code and
+ * {@link ClassValue}s, so recording doesn't allocate once a counter exists. Counters are
+ * available through JMX as {@link ErrorMetricsMXBean}, and in Micrometer with
+ * {@link pro.nikolaev.restutils.metrics.micrometer.ErrorMetricsBinder ErrorMetricsBinder}
+ * if the application declares an instance as a bean, otherwise a default instance is used.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+public class ErrorMetrics implements ErrorMetricsMXBean {
+    /**
+     * Controller key used for errors raised outside of controller methods.
+     */
+    public static final String NO_CONTROLLER = "none";
+
+    private static final int MAX_STATUS = 1000;
+
+    private final LongAdder total = new LongAdder();
+    private final AtomicReferenceArray<LongAdder> statuses = new AtomicReferenceArray<>(MAX_STATUS);
+    private final Map<Dimension, Map<String, LongAdder>> counters = Map.of(
+            Dimension.STATUS, new ConcurrentHashMap<>(),
+            Dimension.EXCEPTION, new ConcurrentHashMap<>(),
+            Dimension.CONTROLLER, new ConcurrentHashMap<>());
+    private final ClassValue<LongAdder> exceptions = new ClassValue<>() {
+        @Override
+        protected LongAdder computeValue(Class<?> type) {
+            return counter(Dimension.EXCEPTION, type.getName());
+        }
+    };
+    private final ClassValue<LongAdder> controllers = new ClassValue<>() {
+        @Override
+        protected LongAdder computeValue(Class<?> type) {
+            return counter(Dimension.CONTROLLER, type.getName());
+        }
+    };
+    private final List<CounterListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile LongAdder noController;
+
+    /**
+     * Record an error response.
+     *
+     * @param request   current request
+     * @param status    response status
+     * @param exception handled exception, {@code null} for {@link ApiResult.Failure}
+     */
+    public void record(HttpServletRequest request, HttpStatusCode status, @Nullable Throwable exception) {
+        total.increment();
+        statusCounter(status.value()).increment();
+        if (exception != null) {
+            exceptions.get(exception.getClass()).increment();
+        }
+        if (request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler) {
+            controllers.get(handler.getBeanType()).increment();
+        } else {
+            noControllerCounter().increment();
+        }
+    }
+
+    /**
+     * Add listener notified of every counter, existing ones included, when it is created.
+     *
+     * @param listener the listener
+     */
+    public void addListener(CounterListener listener) {
+        Assert.notNull(listener, "CounterListener must not be null");
+        synchronized (counters) {
+            counters.forEach((dimension, map) -> map.forEach((key, counter) ->
+                    listener.counterAdded(dimension, key, counter)));
+            listeners.add(listener);
+        }
+    }
+
+    @Override
+    public long getTotalCount() {
+        return total.sum();
+    }
+
+    @Override
+    public Map<String, Long> getStatusCounts() {
+        return snapshot(Dimension.STATUS);
+    }
+
+    @Override
+    public Map<String, Long> getExceptionCounts() {
+        return snapshot(Dimension.EXCEPTION);
+    }
+
+    @Override
+    public Map<String, Long> getControllerCounts() {
+        return snapshot(Dimension.CONTROLLER);
+    }
+
+    @Override
+    public void reset() {
+        total.reset();
+        counters.values().forEach(map -> map.values().forEach(LongAdder::reset));
+    }
+
+    private LongAdder statusCounter(int status) {
+        int index = status >= 0 && status < MAX_STATUS ? status : 0;
+        LongAdder counter = statuses.get(index);
+        if (counter == null) {
+            counter = counter(Dimension.STATUS, String.valueOf(status));
+            statuses.compareAndSet(index, null, counter);
+        }
+        return counter;
+    }
+
+    private LongAdder noControllerCounter() {
+        LongAdder counter = noController;
+        if (counter == null) {
+            counter = counter(Dimension.CONTROLLER, NO_CONTROLLER);
+            noController = counter;
+        }
+        return counter;
+    }
+
+    private LongAdder counter(Dimension dimension, String key) {
+        Map<String, LongAdder> map = counters.get(dimension);
+        LongAdder counter = map.get(key);
+        if (counter != null) {
+            return counter;
+        }
+        synchronized (counters) {
+            counter = map.get(key);
+            if (counter == null) {
+                counter = new LongAdder();
+                map.put(key, counter);
+                for (CounterListener listener : listeners) {
+                    listener.counterAdded(dimension, key, counter);
+                }
+            }
+            return counter;
+        }
+    }
+
+    private Map<String, Long> snapshot(Dimension dimension) {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counters.get(dimension).forEach((key, counter) -> snapshot.put(key, counter.sum()));
+        return snapshot;
+    }
+
+    /**
+     * Key dimension of a counter.
+     */
+    public enum Dimension {
+        /**
+         * HTTP status code.
+         */
+        STATUS,
+        /**
+         * Exception class name.
+         */
+        EXCEPTION,
+        /**
+         * Controller class name or {@link #NO_CONTROLLER}.
+         */
+        CONTROLLER
+    }
+
+    /**
+     * Listener of counter creation.
+     */
+    @FunctionalInterface
+    public interface CounterListener {
+
+        /**
+         * Called once for every counter.
+         *
+         * @param dimension counter dimension
+         * @param key       counter key within the dimension
+         * @param counter   the counter
+         */
+        void counterAdded(Dimension dimension, String key, LongAdder counter);
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link ErrorMetrics}.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+public interface ErrorMetricsMXBean {
+
+    /**
+     * @return total number of error responses
+     */
+    long getTotalCount();
+
+    /**
+     * @return number of error responses by HTTP status code
+     */
+    Map<String, Long> getStatusCounts();
+
+    /**
+     * @return number of error responses by exception class name
+     */
+    Map<String, Long> getExceptionCounts();
+
+    /**
+     * @return number of error responses by controller class name
+     */
+    Map<String, Long> getControllerCounts();
+
+    /**
+     * Reset all counters to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.metrics.micrometer;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.util.Assert;
+import pro.nikolaev.restutils.metrics.ErrorMetrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link MeterBinder} exposing {@link ErrorMetrics} counters as Micrometer function counters:
+ * {@code rest.errors} with the total count and {@code rest.errors.status},
+ * {@code rest.errors.exception} and {@code rest.errors.controller} tagged with
+ * {@code status}, {@code exception} and {@code controller} respectively.
+ *
+ * <p>Requires {@code io.micrometer:micrometer-core} on the classpath, which is an optional
+ * dependency of the library. To bind the counters declare a bean:
+ * <pre class="code">
+ * &#064;Bean
+ * public ErrorMetricsBinder errorMetricsBinder(ErrorMetrics errorMetrics) {
+ *     return new ErrorMetricsBinder(errorMetrics);
+ * }
+ * </pre>
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+public class ErrorMetricsBinder implements MeterBinder {
+    private static final String METER_NAME = "rest.errors";
+
+    private final ErrorMetrics errorMetrics;
+
+    /**
+     * Create a new binder.
+     *
+     * @param errorMetrics counters to bind
+     */
+    public ErrorMetricsBinder(ErrorMetrics errorMetrics) {
+        Assert.notNull(errorMetrics, "ErrorMetrics must not be null");
+        this.errorMetrics = errorMetrics;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(METER_NAME, errorMetrics, ErrorMetrics::getTotalCount)
+                .description("Error responses")
+                .register(registry);
+        errorMetrics.addListener((dimension, key, counter) -> {
+            String tag = dimension.name().toLowerCase(Locale.ROOT);
+            FunctionCounter.builder(METER_NAME + "." + tag, counter, LongAdder::sum)
+                    .description("Error responses by " + tag)
+                    .tag(tag, key)
+                    .register(registry);
+        });
+    }
+}
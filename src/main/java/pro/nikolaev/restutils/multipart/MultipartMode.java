@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.multipart;
+
+import pro.nikolaev.restutils.annotations.EnableRestExceptionHandler;
+
+/**
+ * Enumeration of the ways multipart requests are read, selected with
+ * {@link EnableRestExceptionHandler#multipart()}.
+ *
+ * @author Ilya Nikolaev
+ * @see StreamingMultipartConfiguration
+ * @since 1.2
+ */
+public enum MultipartMode {
+
+    /**
+     * Leave multipart resolution as configured by the application, parts are parsed
+     * and spooled by the servlet container before the handler is invoked.
+     */
+    STANDARD,
+
+    /**
+     * Parse multipart requests lazily and let handlers read parts one by one from the request
+     * through {@link StreamingMultipart} arguments, without spooling them to disk.
+     */
+    STREAMING
+}
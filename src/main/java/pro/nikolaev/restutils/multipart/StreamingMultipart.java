@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.multipart;
+
+import jakarta.servlet.MultipartConfigElement;
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.tomcat.util.http.fileupload.FileItemHeaders;
+import org.apache.tomcat.util.http.fileupload.FileItemIterator;
+import org.apache.tomcat.util.http.fileupload.FileItemStream;
+import org.apache.tomcat.util.http.fileupload.FileUpload;
+import org.apache.tomcat.util.http.fileupload.FileUploadException;
+import org.apache.tomcat.util.http.fileupload.impl.FileSizeLimitExceededException;
+import org.apache.tomcat.util.http.fileupload.impl.FileUploadIOException;
+import org.apache.tomcat.util.http.fileupload.impl.SizeException;
+import org.apache.tomcat.util.http.fileupload.impl.SizeLimitExceededException;
+import org.apache.tomcat.util.http.fileupload.servlet.ServletRequestContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartException;
+import pro.nikolaev.restutils.components.ExceptionHandlingAdvice;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * Multipart request read part by part straight from the request body, available as a handler method
+ * argument with {@link MultipartMode#STREAMING}.
+ *
+ * <p>Limits of {@link MultipartConfigElement} are enforced while reading: exceeding the maximum file size
+ * or the maximum request size aborts reading with {@link MaxUploadSizeExceededException} caused by
+ * {@link FileSizeLimitExceededException} or {@link SizeLimitExceededException}, the same way the servlet
+ * container reports them, so {@link ExceptionHandlingAdvice#handle413} produces the same details.
+ * A request whose {@code Content-Length} exceeds the maximum request size is rejected before any part is read.
+ *
+ * <pre class="code">
+ * &#064;PostMapping("/files")
+ * public void upload(StreamingMultipart multipart) throws IOException {
+ *     for (StreamingPart part = multipart.next(); part != null; part = multipart.next()) {
+ *         try (InputStream content = part.getInputStream()) {
+ *             storage.save(part.getFilename(), content);
+ *         }
+ *     }
+ * }
+ * </pre>
+ *
+ * @author Ilya Nikolaev
+ * @see StreamingPart
+ * @since 1.2
+ */
+public final class StreamingMultipart {
+    private final FileItemIterator iterator;
+
+    StreamingMultipart(HttpServletRequest request, @Nullable MultipartConfigElement multipartConfigElement)
+            throws IOException {
+        FileUpload upload = new FileUpload();
+        if (multipartConfigElement != null) {
+            upload.setFileSizeMax(multipartConfigElement.getMaxFileSize());
+            upload.setSizeMax(multipartConfigElement.getMaxRequestSize());
+        }
+        String encoding = request.getCharacterEncoding();
+        upload.setHeaderEncoding(encoding != null ? encoding : StandardCharsets.UTF_8.name());
+        try {
+            this.iterator = upload.getItemIterator(new ServletRequestContext(request));
+        } catch (FileUploadException e) {
+            throw translate(e);
+        } catch (FileUploadIOException e) {
+            throw translate((FileUploadException) e.getCause());
+        }
+    }
+
+    /**
+     * Advance to the next part. Content of the previous part that hasn't been read is skipped.
+     *
+     * @return next part, {@code null} if there are no more parts
+     * @throws IOException                     if the request can't be read
+     * @throws MaxUploadSizeExceededException if a size limit is exceeded
+     * @throws MultipartException              if the request is malformed
+     */
+    @Nullable
+    public StreamingPart next() throws IOException {
+        try {
+            return iterator.hasNext() ? new Part(iterator.next()) : null;
+        } catch (FileUploadException e) {
+            throw translate(e);
+        } catch (FileUploadIOException e) {
+            throw translate((FileUploadException) e.getCause());
+        }
+    }
+
+    private static RuntimeException translate(FileUploadException e) {
+        if (e instanceof SizeException sizeException) {
+            return new MaxUploadSizeExceededException(sizeException.getPermittedSize(),
+                    new IllegalStateException(e.getMessage(), e));
+        }
+        return new MultipartException("Failed to parse multipart servlet request", e);
+    }
+
+    /**
+     * {@link StreamingPart} backed by a {@link FileItemStream}.
+     */
+    private static final class Part implements StreamingPart {
+        private final FileItemStream item;
+        private HttpHeaders headers;
+
+        Part(FileItemStream item) {
+            this.item = item;
+        }
+
+        @Override
+        public String getName() {
+            return item.getFieldName();
+        }
+
+        @Override
+        @Nullable
+        public String getFilename() {
+            return item.getName();
+        }
+
+        @Override
+        @Nullable
+        public String getContentType() {
+            return item.getContentType();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            if (headers == null) {
+                HttpHeaders headers = new HttpHeaders();
+                FileItemHeaders itemHeaders = item.getHeaders();
+                if (itemHeaders != null) {
+                    for (Iterator<String> names = itemHeaders.getHeaderNames(); names.hasNext(); ) {
+                        String name = names.next();
+                        itemHeaders.getHeaders(name).forEachRemaining(value -> headers.add(name, value));
+                    }
+                }
+                this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+            }
+            return headers;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new PartInputStream(item.openStream());
+        }
+    }
+
+    /**
+     * Part content stream translating size limit violations.
+     */
+    private static final class PartInputStream extends FilterInputStream {
+
+        PartInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (FileUploadIOException e) {
+                throw translate((FileUploadException) e.getCause());
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                return super.read(b, off, len);
+            } catch (FileUploadIOException e) {
+                throw translate((FileUploadException) e.getCause());
+            }
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            try {
+                return super.skip(n);
+            } catch (FileUploadIOException e) {
+                throw translate((FileUploadException) e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.multipart;
+
+import jakarta.servlet.MultipartConfigElement;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.MethodParameter;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.multipart.MultipartException;
+import org.springframework.web.multipart.support.MultipartResolutionDelegate;
+
+/**
+ * {@link HandlerMethodArgumentResolver} of {@link StreamingMultipart} arguments.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+final class StreamingMultipartArgumentResolver implements HandlerMethodArgumentResolver {
+    private final MultipartConfigElement multipartConfigElement;
+
+    StreamingMultipartArgumentResolver(@Nullable MultipartConfigElement multipartConfigElement) {
+        this.multipartConfigElement = multipartConfigElement;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.getParameterType() == StreamingMultipart.class;
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, @Nullable ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, @Nullable WebDataBinderFactory binderFactory)
+            throws Exception {
+        HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+        if (request == null || !MultipartResolutionDelegate.isMultipartRequest(request)) {
+            throw new MultipartException("Current request is not a multipart request");
+        }
+        return new StreamingMultipart(request, multipartConfigElement);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.multipart;
+
+import jakarta.servlet.MultipartConfigElement;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import pro.nikolaev.restutils.annotations.EnableRestExceptionHandler;
+
+import java.util.List;
+
+/**
+ * Configuration imported by {@link EnableRestExceptionHandler @EnableRestExceptionHandler}
+ * with {@link MultipartMode#STREAMING}.
+ *
+ * <p>Every {@link StandardServletMultipartResolver} in the context is switched to lazy resolution,
+ * so the servlet container parses and spools parts only when a handler asks for them, e.g. with a
+ * {@code MultipartFile} argument. Handlers with a {@link StreamingMultipart} argument read parts straight
+ * from the request body instead, limited by the {@link MultipartConfigElement} bean.
+ *
+ * <p>Parts must not be accessed before the handler is invoked: a call to
+ * {@code HttpServletRequest#getParameter} on a multipart request by a filter makes the container
+ * parse the whole body.
+ *
+ * @author Ilya Nikolaev
+ * @see MultipartMode
+ * @since 1.2
+ */
+@Configuration(proxyBeanMethods = false)
+public class StreamingMultipartConfiguration implements WebMvcConfigurer {
+    private final ObjectProvider<MultipartConfigElement> multipartConfigElement;
+
+    public StreamingMultipartConfiguration(ObjectProvider<MultipartConfigElement> multipartConfigElement) {
+        this.multipartConfigElement = multipartConfigElement;
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new StreamingMultipartArgumentResolver(multipartConfigElement.getIfAvailable()));
+    }
+
+    @Bean
+    static BeanPostProcessor lazyMultipartResolverPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof StandardServletMultipartResolver multipartResolver) {
+                    multipartResolver.setResolveLazily(true);
+                }
+                return bean;
+            }
+        };
+    }
+}
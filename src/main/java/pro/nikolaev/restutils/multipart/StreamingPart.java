@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.multipart;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Part of a multipart request read by {@link StreamingMultipart}.
+ *
+ * <p>Content is read straight from the request and can only be read once, before the next part is requested.
+ * Size limits are enforced while reading, see {@link StreamingMultipart}.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+public interface StreamingPart {
+
+    /**
+     * Name of the part from {@code Content-Disposition} header.
+     *
+     * @return form field name
+     */
+    String getName();
+
+    /**
+     * Original file name from {@code Content-Disposition} header.
+     *
+     * @return file name, {@code null} for a form field
+     */
+    @Nullable
+    String getFilename();
+
+    /**
+     * {@code Content-Type} header of the part.
+     *
+     * @return content type, {@code null} if not specified
+     */
+    @Nullable
+    String getContentType();
+
+    /**
+     * Headers of the part.
+     *
+     * @return part headers
+     */
+    HttpHeaders getHeaders();
+
+    /**
+     * Check whether the part is a file.
+     *
+     * @return {@code true} if the part has a file name
+     */
+    default boolean isFile() {
+        return getFilename() != null;
+    }
+
+    /**
+     * Open part content.
+     *
+     * @return content stream of the part
+     * @throws IOException if the part has already been read or skipped
+     */
+    InputStream getInputStream() throws IOException;
+
+    /**
+     * Read part content as a string in charset of its content type, {@code UTF-8} by default.
+     * Meant for form fields, size limits apply the same way.
+     *
+     * @return part content
+     * @throws IOException if content can't be read
+     */
+    default String getValue() throws IOException {
+        Charset charset = StandardCharsets.UTF_8;
+        if (getContentType() != null) {
+            Charset declared = MediaType.parseMediaType(getContentType()).getCharset();
+            charset = declared != null ? declared : charset;
+        }
+        try (InputStream inputStream = getInputStream()) {
+            return StreamUtils.copyToString(inputStream, charset);
+        }
+    }
+}
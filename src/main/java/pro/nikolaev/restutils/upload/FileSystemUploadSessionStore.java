@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.upload;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * {@link UploadSessionStore} keeping sessions as files in a local directory.
+ *
+ * <p>Every session has three files named after its identifier: {@code .session} with the session parameters,
+ * replaced atomically, {@code .data} with the uploaded content, written in place at chunk positions through
+ * {@link FileChannel#write(ByteBuffer, long)}, and {@code .chunks}, an append-only journal of received chunks
+ * with their hashes. The journal is read once per session and then kept in memory, so recording a chunk costs
+ * a single small append regardless of the number of chunks. A record torn by a crash is cut off on load.
+ * Data is forced to disk before its chunk is recorded, unless disabled with {@link #setForce(boolean)}.
+ *
+ * <p>As the journal is cached, the directory must not be shared with other stores or processes.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+public class FileSystemUploadSessionStore implements UploadSessionStore {
+    private static final Pattern ID = Pattern.compile("[0-9A-Za-z_-]{1,64}");
+    private static final int VERSION = 1;
+    private static final int HASH_LENGTH = 32;
+    private static final int RECORD_LENGTH = Integer.BYTES + HASH_LENGTH;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String SESSION = ".session";
+    private static final String DATA = ".data";
+    private static final String CHUNKS = ".chunks";
+
+    private final Path directory;
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+    private final Map<String, byte[][]> chunks = new ConcurrentHashMap<>();
+    private boolean force = true;
+
+    /**
+     * Create a store in the given directory, which is created if missing.
+     *
+     * @param directory directory to keep sessions in
+     * @throws IOException if the directory can't be created
+     */
+    public FileSystemUploadSessionStore(Path directory) throws IOException {
+        Assert.notNull(directory, "directory must not be null");
+        this.directory = Files.createDirectories(directory);
+    }
+
+    /**
+     * Set whether written data and chunk records are forced to disk, {@code true} by default.
+     *
+     * @param force {@code false} to rely on the operating system to flush data
+     * @return this store
+     */
+    public FileSystemUploadSessionStore setForce(boolean force) {
+        this.force = force;
+        return this;
+    }
+
+    @Override
+    public void create(UploadSession session) throws IOException {
+        String id = session.getId();
+        Files.newByteChannel(path(id, DATA), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE).close();
+        Files.newByteChannel(path(id, CHUNKS), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE).close();
+        writeSession(session.getId(), session.getSize(), session.getChunkSize(), session.getSha256(),
+                session.getExpiresAt(), false);
+    }
+
+    @Override
+    @Nullable
+    public UploadSession find(String id) throws IOException {
+        SessionFile session = readSession(id);
+        if (session == null) {
+            return null;
+        }
+        byte[][] received;
+        synchronized (lock(id)) {
+            received = chunks(id, UploadSession.chunkCount(session.size, session.chunkSize)).clone();
+        }
+        return new UploadSession(id, session.size, session.chunkSize, session.sha256, session.expiresAt,
+                session.completed, received);
+    }
+
+    @Nullable
+    private SessionFile readSession(String id) throws IOException {
+        if (!ID.matcher(id).matches()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path(id, SESSION)))) {
+            Assert.state(in.readInt() == VERSION, "Unsupported upload session format");
+            long size = in.readLong();
+            int chunkSize = in.readInt();
+            String sha256 = in.readBoolean() ? in.readUTF() : null;
+            Instant expiresAt = Instant.ofEpochMilli(in.readLong());
+            boolean completed = in.readBoolean();
+            return new SessionFile(size, chunkSize, sha256, expiresAt, completed);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Received chunks of the session, read from the journal on first access. Must be called under the session lock.
+     */
+    private byte[][] chunks(String id, int chunkCount) throws IOException {
+        byte[][] received = chunks.get(id);
+        if (received != null) {
+            return received;
+        }
+        received = new byte[chunkCount][];
+        try (FileChannel channel = FileChannel.open(path(id, CHUNKS), StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long length = channel.size() - channel.size() % RECORD_LENGTH;
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(length));
+            while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+                // read the whole journal
+            }
+            buffer.flip();
+            while (buffer.remaining() >= RECORD_LENGTH) {
+                int index = buffer.getInt();
+                byte[] hash = new byte[HASH_LENGTH];
+                buffer.get(hash);
+                if (index >= 0 && index < chunkCount) {
+                    received[index] = hash;
+                }
+            }
+            if (length < channel.size()) {
+                channel.truncate(length);
+            }
+        }
+        chunks.put(id, received);
+        return received;
+    }
+
+    @Override
+    public long write(String id, long position, InputStream content) throws IOException {
+        try (FileChannel channel = FileChannel.open(path(id, DATA), StandardOpenOption.WRITE)) {
+            byte[] bytes = new byte[BUFFER_SIZE];
+            long written = 0;
+            for (int n = content.read(bytes); n >= 0; n = content.read(bytes)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, n);
+                while (buffer.hasRemaining()) {
+                    written += channel.write(buffer, position + written);
+                }
+            }
+            if (force) {
+                channel.force(false);
+            }
+            return written;
+        }
+    }
+
+    @Override
+    @Nullable
+    public byte[] recordChunk(String id, int index, byte[] sha256) throws IOException {
+        Assert.isTrue(sha256.length == HASH_LENGTH, "SHA-256 hash expected");
+        SessionFile session = readSession(id);
+        if (session == null) {
+            throw new NoSuchFileException(path(id, SESSION).toString());
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_LENGTH).putInt(index).put(sha256).flip();
+        synchronized (lock(id)) {
+            byte[][] received = chunks(id, UploadSession.chunkCount(session.size, session.chunkSize));
+            Assert.isTrue(index >= 0 && index < received.length, "Chunk index out of range");
+            if (received[index] != null) {
+                return received[index].clone();
+            }
+            try (FileChannel channel = FileChannel.open(path(id, CHUNKS), StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND)) {
+                while (record.hasRemaining()) {
+                    channel.write(record);
+                }
+                if (force) {
+                    channel.force(false);
+                }
+            }
+            received[index] = sha256.clone();
+            return null;
+        }
+    }
+
+    @Override
+    public void complete(String id) throws IOException {
+        synchronized (lock(id)) {
+            SessionFile session = readSession(id);
+            if (session == null) {
+                throw new NoSuchFileException(path(id, SESSION).toString());
+            }
+            writeSession(id, session.size, session.chunkSize, session.sha256, session.expiresAt, true);
+        }
+    }
+
+    @Override
+    public InputStream open(String id) throws IOException {
+        return Files.newInputStream(path(id, DATA));
+    }
+
+    @Override
+    public void delete(String id) throws IOException {
+        synchronized (lock(id)) {
+            Files.deleteIfExists(path(id, SESSION));
+            Files.deleteIfExists(path(id, CHUNKS));
+            Files.deleteIfExists(path(id, DATA));
+            chunks.remove(id);
+        }
+        locks.remove(id);
+    }
+
+    @Override
+    public int deleteExpired(Instant now) throws IOException {
+        int deleted = 0;
+        try (DirectoryStream<Path> sessions = Files.newDirectoryStream(directory, "*" + SESSION)) {
+            for (Path path : sessions) {
+                String name = path.getFileName().toString();
+                String id = name.substring(0, name.length() - SESSION.length());
+                SessionFile session = readSession(id);
+                if (session != null && !now.isBefore(session.expiresAt)) {
+                    delete(id);
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private void writeSession(String id, long size, int chunkSize, @Nullable String sha256, Instant expiresAt,
+                              boolean completed) throws IOException {
+        Path temp = Files.createTempFile(directory, id, ".tmp");
+        try {
+            try (OutputStream file = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(file)) {
+                out.writeInt(VERSION);
+                out.writeLong(size);
+                out.writeInt(chunkSize);
+                out.writeBoolean(sha256 != null);
+                if (sha256 != null) {
+                    out.writeUTF(sha256);
+                }
+                out.writeLong(expiresAt.toEpochMilli());
+                out.writeBoolean(completed);
+            }
+            Files.move(temp, path(id, SESSION), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Object lock(String id) {
+        return locks.computeIfAbsent(id, key -> new Object());
+    }
+
+    private Path path(String id, String suffix) {
+        Assert.isTrue(ID.matcher(id).matches(), "Invalid upload session id");
+        return directory.resolve(id + suffix);
+    }
+
+    private record SessionFile(long size, int chunkSize, @Nullable String sha256, Instant expiresAt,
+                               boolean completed) {
+    }
+}
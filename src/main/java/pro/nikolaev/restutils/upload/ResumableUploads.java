@@ -0,0 +1,444 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.upload;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.unit.DataSize;
+import pro.nikolaev.restutils.components.ExceptionHandlingAdvice;
+import pro.nikolaev.restutils.dto.ApiError;
+import pro.nikolaev.restutils.exceptions.ApiException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resumable upload of large files in fixed-size chunks.
+ *
+ * <p>A client {@link #start(long, String) starts} a session for a file of known size, uploads chunks
+ * in any order and possibly in parallel with {@link #writeChunk}, asks for {@link #find(String) session state}
+ * to resume after a failure and {@link #complete(String) completes} the session once all chunks are received.
+ * Each chunk is written at its position straight from the request, so the file is never held in memory
+ * or spooled twice. A chunk retried with the same content is accepted without writing it again, a chunk
+ * sent again while it is still being written is rejected, so concurrent writes never mix its data.
+ *
+ * <p>Errors are thrown as {@link ApiException}, so {@link ExceptionHandlingAdvice} renders them as
+ * {@link ApiError}: {@code 413} for a file or chunk exceeding the limits, {@code 409} for a chunk conflicting
+ * with the one already received, a completed session or a hash mismatch of the file, {@code 410} for
+ * an unknown or expired session and {@code 400} for malformed chunks.
+ *
+ * <pre class="code">
+ * &#064;PutMapping("/uploads/{id}/chunks/{index}")
+ * public UploadSession chunk(&#064;PathVariable String id, &#064;PathVariable int index,
+ *                            &#064;RequestHeader(name = "X-Content-SHA256", required = false) String sha256,
+ *                            HttpServletRequest request) throws IOException {
+ *     return uploads.writeChunk(id, index, request.getInputStream(), sha256);
+ * }
+ * </pre>
+ *
+ * @author Ilya Nikolaev
+ * @see UploadSessionStore
+ * @since 1.2
+ */
+public class ResumableUploads {
+    /**
+     * Default chunk size.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    /**
+     * Default maximum number of chunks in a session.
+     */
+    public static final int DEFAULT_MAX_CHUNK_COUNT = 10_000;
+    /**
+     * Default time to live of a session.
+     */
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofHours(24);
+
+    private static final String BAD_REQUEST = "Некорректный запрос";
+    private static final String PAYLOAD_TOO_LARGE = "Превышен максимальный размер запроса";
+    private static final String CONFLICT = "Конфликт";
+    private static final ApiException SESSION_GONE = ApiException.constant(HttpStatus.GONE,
+            "Сессия загрузки не найдена", "Сессия загрузки истекла или была удалена");
+    private static final ApiException SESSION_COMPLETED = ApiException.constant(HttpStatus.CONFLICT,
+            CONFLICT, "Загрузка уже завершена");
+    private static final ApiException SESSION_NOT_COMPLETED = ApiException.constant(HttpStatus.CONFLICT,
+            CONFLICT, "Загрузка еще не завершена");
+    private static final ApiException FILE_HASH_MISMATCH = ApiException.constant(HttpStatus.CONFLICT,
+            CONFLICT, "Контрольная сумма файла не совпадает");
+    private static final ApiException INVALID_HASH = ApiException.constant(HttpStatus.BAD_REQUEST,
+            BAD_REQUEST, "Контрольная сумма должна быть SHA-256 в шестнадцатеричном виде");
+    private static final ApiException INVALID_SIZE = ApiException.constant(HttpStatus.BAD_REQUEST,
+            BAD_REQUEST, "Размер файла должен быть положительным");
+
+    private final UploadSessionStore store;
+    private final Set<String> writing = ConcurrentHashMap.newKeySet();
+    private long maxSize = -1;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int maxChunkCount = DEFAULT_MAX_CHUNK_COUNT;
+    private Duration timeToLive = DEFAULT_TIME_TO_LIVE;
+    private Clock clock = Clock.systemUTC();
+
+    public ResumableUploads(UploadSessionStore store) {
+        Assert.notNull(store, "store must not be null");
+        this.store = store;
+    }
+
+    /**
+     * Set the maximum file size, unlimited by default.
+     *
+     * @param maxSize the limit in bytes, {@code -1} for no limit
+     * @return this instance
+     */
+    public ResumableUploads setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    /**
+     * Set chunk size of new sessions, {@value #DEFAULT_CHUNK_SIZE} bytes by default.
+     *
+     * @param chunkSize chunk size in bytes
+     * @return this instance
+     */
+    public ResumableUploads setChunkSize(int chunkSize) {
+        Assert.isTrue(chunkSize > 0, "chunkSize must be positive");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of chunks, {@value #DEFAULT_MAX_CHUNK_COUNT} by default. Together with the chunk size
+     * it limits the file size even if {@link #setMaxSize(long) maxSize} is unlimited, so a client can't make
+     * a session with state too large to keep.
+     *
+     * @param maxChunkCount the limit
+     * @return this instance
+     */
+    public ResumableUploads setMaxChunkCount(int maxChunkCount) {
+        Assert.isTrue(maxChunkCount > 0, "maxChunkCount must be positive");
+        this.maxChunkCount = maxChunkCount;
+        return this;
+    }
+
+    /**
+     * Set time to live of new sessions, {@code 24} hours by default.
+     *
+     * @param timeToLive time to live
+     * @return this instance
+     */
+    public ResumableUploads setTimeToLive(Duration timeToLive) {
+        Assert.isTrue(timeToLive != null && !timeToLive.isNegative() && !timeToLive.isZero(),
+                "timeToLive must be positive");
+        this.timeToLive = timeToLive;
+        return this;
+    }
+
+    /**
+     * Set the clock to check expiration with.
+     *
+     * @param clock the clock
+     * @return this instance
+     */
+    public ResumableUploads setClock(Clock clock) {
+        Assert.notNull(clock, "clock must not be null");
+        this.clock = clock;
+        return this;
+    }
+
+    /**
+     * Start a session.
+     *
+     * @param size   file size in bytes
+     * @param sha256 expected hex encoded {@code SHA-256} hash of the file, checked on completion if given
+     * @return new session
+     * @throws IOException  if the session can't be saved
+     * @throws ApiException with status {@code 413} if the file exceeds {@link #setMaxSize(long) maxSize}
+     *                      or takes more than {@link #setMaxChunkCount(int) maxChunkCount} chunks
+     */
+    public UploadSession start(long size, @Nullable String sha256) throws IOException {
+        if (size <= 0) {
+            throw INVALID_SIZE;
+        }
+        long limit = (long) maxChunkCount * chunkSize;
+        if (maxSize >= 0 && maxSize < limit) {
+            limit = maxSize;
+        }
+        if (size > limit) {
+            throw ApiException.of(HttpStatus.PAYLOAD_TOO_LARGE, PAYLOAD_TOO_LARGE,
+                    "Максимальный размер загружаемого файла: " + megabytesOrKilobytes(limit));
+        }
+        if (sha256 != null) {
+            hash(sha256);
+        }
+        UploadSession session = new UploadSession(UUID.randomUUID().toString(), size, chunkSize,
+                sha256 != null ? sha256.toLowerCase() : null, clock.instant().plus(timeToLive));
+        store.create(session);
+        return session;
+    }
+
+    /**
+     * Return current state of a session, e.g. to find missing chunks.
+     *
+     * @param id session identifier
+     * @return the session
+     * @throws IOException  if the session can't be loaded
+     * @throws ApiException with status {@code 410} if there is no such session or it is expired
+     */
+    public UploadSession find(String id) throws IOException {
+        UploadSession session = store.find(id);
+        if (session == null) {
+            throw SESSION_GONE;
+        }
+        if (session.isExpired(clock.instant())) {
+            store.delete(id);
+            throw SESSION_GONE;
+        }
+        return session;
+    }
+
+    /**
+     * Write a chunk. The content must be exactly {@link UploadSession#getChunkLength(int)} bytes long.
+     * A chunk that is already received is not written again if its content is the same.
+     *
+     * @param id      session identifier
+     * @param index   chunk index
+     * @param content chunk content, read until the end
+     * @param sha256  hex encoded {@code SHA-256} hash of the chunk, checked if given
+     * @return session state loaded before the chunk is written with this chunk recorded, chunks written
+     *         concurrently may be missing from it
+     * @throws IOException  if the chunk can't be read or written
+     * @throws ApiException with status {@code 413} if the chunk is too long, {@code 400} if it is too short,
+     *                      out of range or doesn't match the hash, {@code 409} if it differs from the one already
+     *                      received, is being written or the session is completed, {@code 410} if the session
+     *                      is gone
+     */
+    public UploadSession writeChunk(String id, int index, InputStream content, @Nullable String sha256)
+            throws IOException {
+        byte[] expected = sha256 != null ? hash(sha256) : null;
+        String key = id + '/' + index;
+        if (!writing.add(key)) {
+            throw ApiException.of(HttpStatus.CONFLICT, CONFLICT, "Часть " + index + " уже загружается");
+        }
+        try {
+            return writeChunk(id, index, content, expected);
+        } finally {
+            writing.remove(key);
+        }
+    }
+
+    private UploadSession writeChunk(String id, int index, InputStream content, @Nullable byte[] expected)
+            throws IOException {
+        UploadSession session = find(id);
+        if (session.isCompleted()) {
+            throw SESSION_COMPLETED;
+        }
+        if (index < 0 || index >= session.getChunkCount()) {
+            throw ApiException.of(HttpStatus.BAD_REQUEST, BAD_REQUEST,
+                    "Номер части должен быть от 0 до " + (session.getChunkCount() - 1));
+        }
+        int length = session.getChunkLength(index);
+        byte[] received = session.getChunkSha256(index);
+        if (received != null) {
+            if (expected == null) {
+                MessageDigest digest = sha256();
+                try (InputStream data = chunk(content, index, length, digest)) {
+                    checkLength(index, length, data.transferTo(OutputStream.nullOutputStream()));
+                }
+                expected = digest.digest();
+            }
+            return checkRetry(session, index, received, expected);
+        }
+        MessageDigest digest = sha256();
+        checkLength(index, length, store.write(id, (long) index * session.getChunkSize(),
+                chunk(content, index, length, digest)));
+        byte[] actual = digest.digest();
+        if (expected != null && !MessageDigest.isEqual(expected, actual)) {
+            throw ApiException.of(HttpStatus.BAD_REQUEST, BAD_REQUEST,
+                    "Контрольная сумма части " + index + " не совпадает");
+        }
+        byte[] recorded = store.recordChunk(id, index, actual);
+        if (recorded != null) {
+            return checkRetry(session.withChunk(index, recorded), index, recorded, actual);
+        }
+        return session.withChunk(index, actual);
+    }
+
+    private static InputStream chunk(InputStream content, int index, int length, MessageDigest digest) {
+        return new DigestInputStream(new LimitedInputStream(content, index, length), digest);
+    }
+
+    private static void checkLength(int index, int length, long actual) {
+        if (actual != length) {
+            throw ApiException.of(HttpStatus.BAD_REQUEST, BAD_REQUEST,
+                    "Размер части " + index + " должен быть " + length + " байт");
+        }
+    }
+
+    private static UploadSession checkRetry(UploadSession session, int index, byte[] received, byte[] actual) {
+        if (!Arrays.equals(received, actual)) {
+            throw ApiException.of(HttpStatus.CONFLICT, CONFLICT,
+                    "Часть " + index + " уже загружена с другим содержимым");
+        }
+        return session;
+    }
+
+    /**
+     * Complete a session once all chunks are received, checking the file hash if it was given on start.
+     * Completing a completed session has no effect.
+     *
+     * @param id session identifier
+     * @return completed session
+     * @throws IOException  if the file can't be read or the session can't be saved
+     * @throws ApiException with status {@code 409} if chunks are missing or the file doesn't match the hash,
+     *                      {@code 410} if the session is gone
+     */
+    public UploadSession complete(String id) throws IOException {
+        UploadSession session = find(id);
+        if (session.isCompleted()) {
+            return session;
+        }
+        List<Integer> missing = session.getMissingChunks();
+        if (!missing.isEmpty()) {
+            throw ApiException.of(HttpStatus.CONFLICT, CONFLICT, "Не загружено частей: " + missing.size()
+                    + ", первая из них: " + missing.get(0));
+        }
+        if (session.getSha256() != null) {
+            MessageDigest digest = sha256();
+            try (InputStream data = new DigestInputStream(store.open(id), digest)) {
+                data.transferTo(OutputStream.nullOutputStream());
+            }
+            if (!MessageDigest.isEqual(hash(session.getSha256()), digest.digest())) {
+                throw FILE_HASH_MISMATCH;
+            }
+        }
+        store.complete(id);
+        return find(id);
+    }
+
+    /**
+     * Open uploaded file of a completed session.
+     *
+     * @param id session identifier
+     * @return file content
+     * @throws IOException  if the file can't be read
+     * @throws ApiException with status {@code 409} if the session is not completed, {@code 410} if it is gone
+     */
+    public InputStream open(String id) throws IOException {
+        if (!find(id).isCompleted()) {
+            throw SESSION_NOT_COMPLETED;
+        }
+        return store.open(id);
+    }
+
+    /**
+     * Delete a session with its data, e.g. once the uploaded file is processed or the upload is cancelled.
+     *
+     * @param id session identifier
+     * @throws IOException if the session can't be deleted
+     */
+    public void delete(String id) throws IOException {
+        store.delete(id);
+    }
+
+    /**
+     * Delete expired sessions, meant to be called periodically.
+     *
+     * @return number of deleted sessions
+     * @throws IOException if sessions can't be deleted
+     */
+    public int deleteExpired() throws IOException {
+        return store.deleteExpired(clock.instant());
+    }
+
+    private static String megabytesOrKilobytes(long bytes) {
+        DataSize size = DataSize.ofBytes(bytes);
+        return size.toMegabytes() > 0 ? size.toMegabytes() + " Mb" : Math.max(size.toKilobytes(), 1) + " Kb";
+    }
+
+    private static byte[] hash(String sha256) {
+        if (sha256.length() != 64) {
+            throw INVALID_HASH;
+        }
+        try {
+            return HexFormat.of().parseHex(sha256);
+        } catch (IllegalArgumentException e) {
+            throw INVALID_HASH;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Stream failing with {@code 413} once more than the chunk length is read.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final int index;
+        private final int limit;
+        private long count;
+
+        LimitedInputStream(InputStream in, int index, int limit) {
+            super(in);
+            this.index = index;
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) {
+            count += n;
+            if (count > limit) {
+                throw ApiException.of(HttpStatus.PAYLOAD_TOO_LARGE, PAYLOAD_TOO_LARGE,
+                        "Размер части " + index + " не должен превышать " + limit + " байт");
+            }
+        }
+    }
+}
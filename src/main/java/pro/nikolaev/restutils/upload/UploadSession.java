@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.upload;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * State of a resumable upload managed by {@link ResumableUploads}.
+ *
+ * <p>A file of {@link #getSize() size} bytes is uploaded in {@link #getChunkCount() chunks} of
+ * {@link #getChunkSize() chunkSize} bytes, the last one may be shorter. Each received chunk is recorded
+ * with its {@code SHA-256} hash, so a retried chunk is recognized. Instances are snapshots returned by
+ * {@link UploadSessionStore}, they don't change when chunks are written.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+public final class UploadSession {
+    private final String id;
+    private final long size;
+    private final int chunkSize;
+    private final String sha256;
+    private final Instant expiresAt;
+    private final boolean completed;
+    private final byte[][] chunks;
+
+    /**
+     * Create a new session without received chunks.
+     *
+     * @param id        session identifier
+     * @param size      file size in bytes
+     * @param chunkSize chunk size in bytes
+     * @param sha256    expected hex encoded {@code SHA-256} hash of the file, if known
+     * @param expiresAt time after which the session is discarded
+     */
+    public UploadSession(String id, long size, int chunkSize, @Nullable String sha256, Instant expiresAt) {
+        this(id, size, chunkSize, sha256, expiresAt, false, new byte[chunkCount(size, chunkSize)][]);
+    }
+
+    /**
+     * Restore a session, meant for {@link UploadSessionStore} implementations.
+     *
+     * @param id        session identifier
+     * @param size      file size in bytes
+     * @param chunkSize chunk size in bytes
+     * @param sha256    expected hex encoded {@code SHA-256} hash of the file, if known
+     * @param expiresAt time after which the session is discarded
+     * @param completed whether the upload is completed
+     * @param chunks    {@code SHA-256} hashes of chunks by index, {@code null} for chunks not received yet;
+     *                  the array is not copied
+     */
+    public UploadSession(String id, long size, int chunkSize, @Nullable String sha256, Instant expiresAt,
+                         boolean completed, byte[][] chunks) {
+        Assert.hasText(id, "id must not be empty");
+        Assert.isTrue(size > 0, "size must be positive");
+        Assert.isTrue(chunkSize > 0, "chunkSize must be positive");
+        Assert.notNull(expiresAt, "expiresAt must not be null");
+        Assert.isTrue(chunks.length == chunkCount(size, chunkSize), "chunks don't match size");
+        this.id = id;
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.sha256 = sha256;
+        this.expiresAt = expiresAt;
+        this.completed = completed;
+        this.chunks = chunks;
+    }
+
+    static int chunkCount(long size, int chunkSize) {
+        return Math.toIntExact((size + chunkSize - 1) / chunkSize);
+    }
+
+    UploadSession withChunk(int index, byte[] sha256) {
+        byte[][] copy = chunks.clone();
+        copy[index] = sha256;
+        return new UploadSession(id, size, chunkSize, this.sha256, expiresAt, completed, copy);
+    }
+
+    /**
+     * Return session identifier.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Return file size in bytes.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Return chunk size in bytes.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Return expected hex encoded {@code SHA-256} hash of the file, checked on completion.
+     */
+    @Nullable
+    public String getSha256() {
+        return sha256;
+    }
+
+    /**
+     * Return time after which the session is discarded.
+     */
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Return whether all chunks are received and the upload is completed.
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * Return number of chunks.
+     */
+    public int getChunkCount() {
+        return chunks.length;
+    }
+
+    /**
+     * Return length of the chunk, all chunks except the last one are {@link #getChunkSize() chunkSize} long.
+     *
+     * @param index chunk index
+     * @return chunk length in bytes
+     */
+    public int getChunkLength(int index) {
+        Assert.isTrue(index >= 0 && index < chunks.length, "Chunk index out of range");
+        return index < chunks.length - 1 ? chunkSize : (int) (size - (long) index * chunkSize);
+    }
+
+    /**
+     * Return {@code SHA-256} hash of a received chunk.
+     *
+     * @param index chunk index
+     * @return copy of the hash, {@code null} if the chunk is not received yet
+     */
+    @Nullable
+    public byte[] getChunkSha256(int index) {
+        byte[] hash = chunks[index];
+        return hash != null ? hash.clone() : null;
+    }
+
+    /**
+     * Check whether the chunk is received.
+     *
+     * @param index chunk index
+     * @return {@code true} if received
+     */
+    public boolean isReceived(int index) {
+        return chunks[index] != null;
+    }
+
+    /**
+     * Return indexes of chunks not received yet, in ascending order, for a client to resume the upload.
+     */
+    public List<Integer> getMissingChunks() {
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < chunks.length; i++) {
+            if (chunks[i] == null) {
+                missing.add(i);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Check whether the session is expired.
+     *
+     * @param now current time
+     * @return {@code true} if expired
+     */
+    public boolean isExpired(Instant now) {
+        return !now.isBefore(expiresAt);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.upload;
+
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+
+/**
+ * Storage of {@link UploadSession} state and uploaded data used by {@link ResumableUploads}.
+ *
+ * <p>Chunks of a session may be written concurrently, {@link #recordChunk} is called only after
+ * data of the chunk is written. Implementations must make {@link #recordChunk} and {@link #complete}
+ * atomic per session.
+ *
+ * @author Ilya Nikolaev
+ * @see FileSystemUploadSessionStore
+ * @since 1.2
+ */
+public interface UploadSessionStore {
+
+    /**
+     * Save a new session and allocate storage for its data.
+     *
+     * @param session new session
+     * @throws IOException if the session can't be saved
+     */
+    void create(UploadSession session) throws IOException;
+
+    /**
+     * Load a session.
+     *
+     * @param id session identifier as given by a client
+     * @return session, {@code null} if there is no such session
+     * @throws IOException if the session can't be loaded
+     */
+    @Nullable
+    UploadSession find(String id) throws IOException;
+
+    /**
+     * Write content to the session data at the given position.
+     *
+     * @param id       session identifier
+     * @param position offset in the file
+     * @param content  content to write, read until the end
+     * @return number of bytes written
+     * @throws IOException if data can't be written
+     */
+    long write(String id, long position, InputStream content) throws IOException;
+
+    /**
+     * Record a chunk as received unless it is already recorded. The check and the record must be atomic.
+     *
+     * @param id     session identifier
+     * @param index  chunk index
+     * @param sha256 {@code SHA-256} hash of the chunk
+     * @return hash of the chunk recorded before, {@code null} if the chunk is recorded by this call
+     * @throws IOException if the record can't be saved
+     */
+    @Nullable
+    byte[] recordChunk(String id, int index, byte[] sha256) throws IOException;
+
+    /**
+     * Mark the session as completed.
+     *
+     * @param id session identifier
+     * @throws IOException if the session can't be saved
+     */
+    void complete(String id) throws IOException;
+
+    /**
+     * Open uploaded data of the session.
+     *
+     * @param id session identifier
+     * @return data stream
+     * @throws IOException if data can't be read
+     */
+    InputStream open(String id) throws IOException;
+
+    /**
+     * Delete the session with its data, if exists.
+     *
+     * @param id session identifier
+     * @throws IOException if the session can't be deleted
+     */
+    void delete(String id) throws IOException;
+
+    /**
+     * Delete sessions expired by the given time.
+     *
+     * @param now current time
+     * @return number of deleted sessions
+     * @throws IOException if sessions can't be listed or deleted
+     */
+    int deleteExpired(Instant now) throws IOException;
+}
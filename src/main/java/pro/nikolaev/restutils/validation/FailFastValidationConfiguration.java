@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.validation;
+
+import jakarta.validation.Validator;
+import jakarta.validation.metadata.BeanDescriptor;
+import jakarta.validation.metadata.ContainerElementTypeDescriptor;
+import jakarta.validation.metadata.PropertyDescriptor;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.validation.annotation.ValidationAnnotationUtils;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.web.bind.annotation.RequestMapping;
+import pro.nikolaev.restutils.annotations.EnableRestExceptionHandler;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Configuration imported by {@link EnableRestExceptionHandler @EnableRestExceptionHandler}
+ * with {@link ValidationProfile#FAIL_FAST}.
+ *
+ * <p>Every {@link LocalValidatorFactoryBean} in the context, including the one used by
+ * {@code Spring MVC} or {@code WebFlux} to validate request bodies, is switched to fail-fast mode
+ * with {@value #FAIL_FAST_PROPERTY} property, so validation of a large object graph stops at the
+ * first violation. By default only one violation is reported anyway, so the response has the same
+ * status and message. The property is specific to {@code Hibernate Validator}, other providers ignore it.
+ *
+ * <p>Once singletons are created, constraint metadata of types validated by request mapping
+ * methods, and of the types they cascade to, is resolved by each validator, so the first
+ * requests don't pay for metadata introspection.
+ *
+ * <p>The reported violation may differ for a body that violates several constraints. Without fail-fast
+ * mode it is the first one in the order the provider returns violations, which is not specified, while
+ * in fail-fast mode it is the first one checked. Clients should not rely on which of several violations
+ * is reported in either mode.
+ *
+ * @author Ilya Nikolaev
+ * @see ValidationProfile
+ * @since 1.2
+ */
+@Configuration(proxyBeanMethods = false)
+public class FailFastValidationConfiguration {
+    /**
+     * {@code Hibernate Validator} property enabling fail-fast mode.
+     */
+    public static final String FAIL_FAST_PROPERTY = "hibernate.validator.fail_fast";
+
+    @Bean
+    static BeanPostProcessor failFastValidatorPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof LocalValidatorFactoryBean validator) {
+                    validator.getValidationPropertyMap().put(FAIL_FAST_PROPERTY, "true");
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    static SmartInitializingSingleton constraintMetadataInitializer(ListableBeanFactory beanFactory,
+                                                                    ObjectProvider<ViolationReporting> violationReporting) {
+        return () -> {
+            ViolationReporting reporting = violationReporting.getIfAvailable();
+            Assert.state(reporting == null || !reporting.isReportAll(),
+                    "ValidationProfile.FAIL_FAST can not be combined with ViolationReporting.setReportAll(true)");
+            Set<Class<?>> types = validatedTypes(beanFactory);
+            for (LocalValidatorFactoryBean validator : beanFactory.getBeansOfType(LocalValidatorFactoryBean.class).values()) {
+                Set<Class<?>> visited = new HashSet<>();
+                for (Class<?> type : types) {
+                    initialize(validator, type, visited);
+                }
+            }
+        };
+    }
+
+    /**
+     * Collect types of {@code @Valid} or {@code @Validated} parameters of request mapping methods,
+     * element types for collections and arrays.
+     */
+    private static Set<Class<?>> validatedTypes(ListableBeanFactory beanFactory) {
+        Set<Class<?>> types = new HashSet<>();
+        for (String beanName : beanFactory.getBeanNamesForAnnotation(Controller.class)) {
+            Class<?> controllerType = beanFactory.getType(beanName);
+            if (controllerType == null) {
+                continue;
+            }
+            for (Method method : ReflectionUtils.getUniqueDeclaredMethods(ClassUtils.getUserClass(controllerType))) {
+                if (!AnnotatedElementUtils.hasAnnotation(method, RequestMapping.class)) {
+                    continue;
+                }
+                for (int i = 0; i < method.getParameterCount(); i++) {
+                    MethodParameter parameter = new MethodParameter(method, i);
+                    if (isValidated(parameter)) {
+                        types.add(validatedType(parameter));
+                    }
+                }
+            }
+        }
+        return types;
+    }
+
+    private static boolean isValidated(MethodParameter parameter) {
+        for (Annotation annotation : parameter.getParameterAnnotations()) {
+            if (ValidationAnnotationUtils.determineValidationHints(annotation) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Class<?> validatedType(MethodParameter parameter) {
+        ResolvableType type = ResolvableType.forMethodParameter(parameter);
+        if (type.isArray()) {
+            return type.getComponentType().toClass();
+        }
+        if (Collection.class.isAssignableFrom(type.toClass())) {
+            return type.asCollection().getGeneric().toClass();
+        }
+        return type.toClass();
+    }
+
+    private static void initialize(Validator validator, Class<?> type, Set<Class<?>> visited) {
+        if (type.isPrimitive() || type.isArray() || type.getName().startsWith("java.") || !visited.add(type)) {
+            return;
+        }
+        BeanDescriptor descriptor = validator.getConstraintsForClass(type);
+        for (PropertyDescriptor property : descriptor.getConstrainedProperties()) {
+            if (property.isCascaded()) {
+                initialize(validator, property.getElementClass(), visited);
+            }
+            for (ContainerElementTypeDescriptor element : property.getConstrainedContainerElementTypes()) {
+                initialize(validator, element, visited);
+            }
+        }
+    }
+
+    private static void initialize(Validator validator, ContainerElementTypeDescriptor element, Set<Class<?>> visited) {
+        if (element.isCascaded()) {
+            initialize(validator, element.getElementClass(), visited);
+        }
+        for (ContainerElementTypeDescriptor nested : element.getConstrainedContainerElementTypes()) {
+            initialize(validator, nested, visited);
+        }
+    }
+}
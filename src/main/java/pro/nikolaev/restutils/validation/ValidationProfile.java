@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.validation;
+
+import pro.nikolaev.restutils.annotations.EnableRestExceptionHandler;
+
+/**
+ * Enumeration of the ways request bodies are validated, selected with
+ * {@link EnableRestExceptionHandler#validation()}.
+ *
+ * @author Ilya Nikolaev
+ * @see FailFastValidationConfiguration
+ * @since 1.2
+ */
+public enum ValidationProfile {
+
+    /**
+     * Leave validation as configured by the application, every constraint is checked.
+     */
+    FULL,
+
+    /**
+     * Stop validation at the first violation, as only one is reported by default anyway,
+     * and cache constraint metadata of request bodies at startup. If several constraints are violated,
+     * the reported one may differ from {@link #FULL}.
+     * Not compatible with {@link ViolationReporting#isReportAll()}.
+     */
+    FAIL_FAST
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.validation;
+
+import org.springframework.util.Assert;
+import org.springframework.validation.BindingResult;
+import pro.nikolaev.restutils.components.ExceptionHandlingAdvice;
+import pro.nikolaev.restutils.dto.ApiError;
+import pro.nikolaev.restutils.dto.Violation;
+
+/**
+ * Settings of validation error reporting by {@link ExceptionHandlingAdvice}.
+ *
+ * <p>By default only the first error of {@link BindingResult} is reported in {@code details}.
+ * With {@link #setReportAll(boolean) reportAll} enabled every field and object error is also
+ * listed in {@link ApiError#violations()} as {@link Violation}, so a client can fix all of them
+ * in one go. The list is limited to {@link #getMaxViolations()} entries, {@code details} then
+ * mention the total number of errors.
+ *
+ * <p>To enable declare a bean:
+ * <pre class="code">
+ * &#064;Bean
+ * public ViolationReporting violationReporting() {
+ *     return new ViolationReporting().setReportAll(true).setMaxViolations(50);
+ * }
+ * </pre>
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+public class ViolationReporting {
+    /**
+     * Default limit of reported violations.
+     */
+    public static final int DEFAULT_MAX_VIOLATIONS = 20;
+
+    private boolean reportAll;
+    private int maxViolations = DEFAULT_MAX_VIOLATIONS;
+
+    /**
+     * Set whether every validation error is listed in {@link ApiError#violations()}.
+     *
+     * @param reportAll {@code true} to list all errors, {@code false} to report the first one only
+     * @return these settings
+     */
+    public ViolationReporting setReportAll(boolean reportAll) {
+        this.reportAll = reportAll;
+        return this;
+    }
+
+    /**
+     * Return whether every validation error is listed in {@link ApiError#violations()}.
+     */
+    public boolean isReportAll() {
+        return reportAll;
+    }
+
+    /**
+     * Set the limit of listed violations, further errors are only counted.
+     *
+     * @param maxViolations the limit, at least {@code 1}
+     * @return these settings
+     */
+    public ViolationReporting setMaxViolations(int maxViolations) {
+        Assert.isTrue(maxViolations > 0, "maxViolations must be positive");
+        this.maxViolations = maxViolations;
+        return this;
+    }
+
+    /**
+     * Return the limit of listed violations.
+     */
+    public int getMaxViolations() {
+        return maxViolations;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.components;
+
+import jakarta.servlet.MultipartConfigElement;
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.tomcat.util.http.fileupload.impl.FileSizeLimitExceededException;
+import org.apache.tomcat.util.http.fileupload.impl.SizeLimitExceededException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.resource.NoResourceFoundException;
+import pro.nikolaev.restutils.exceptions.ApiException;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Allocation budgets of the error path.
+ *
+ * <p>Measures bytes allocated by the current thread per invocation of every
+ * {@link ExceptionHandlingAdvice} handler and of {@link ApiException} constructors.
+ * Budgets are about 25% above the allocation measured on JDK 17, so noise doesn't fail
+ * the build while a new allocation on the path does. Raise them only together
+ * with the change that justifies it.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+class AllocationBudgetTest {
+    private static final String REASON = "Конфликт";
+    private static final String DETAILS = "Заказ уже оплачен";
+    private static final int WARMUP_ITERATIONS = 50_000;
+    private static final int MEASURED_ITERATIONS = 20_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static Object sink;
+
+    @BeforeAll
+    static void enableMeasurement() {
+        assumeTrue(THREADS.isThreadAllocatedMemorySupported(), "Thread allocated memory measurement is not supported");
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @TestFactory
+    Stream<DynamicTest> errorPathStaysWithinBudget() {
+        ExceptionHandlingAdvice advice = new ExceptionHandlingAdvice(
+                new MultipartConfigElement("", 1 << 20, 10 << 20, 0));
+        advice.setExceptionLogger((exception, context) -> {
+        });
+        HttpServletRequest request = new MockHttpServletRequest("GET", "/orders/42");
+
+        ApiException apiException = new ApiException(HttpStatus.CONFLICT, REASON, DETAILS);
+        HttpRequestMethodNotSupportedException methodNotSupported =
+                new HttpRequestMethodNotSupportedException("DELETE", List.of("GET", "POST"));
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(new Order(null), "order");
+        bindingResult.addError(new FieldError("order", "name", "must not be null"));
+        MethodArgumentNotValidException notValid =
+                new MethodArgumentNotValidException(parameter("create", Order.class), bindingResult);
+        HttpMessageNotReadableException notReadable = new HttpMessageNotReadableException(
+                "JSON parse error: Unexpected end-of-input", new MockHttpInputMessage(new byte[0]));
+        MethodArgumentTypeMismatchException typeMismatch = new MethodArgumentTypeMismatchException("abc", int.class,
+                "id", parameter("get", int.class), new NumberFormatException("For input string: \"abc\""));
+        HttpMediaTypeNotAcceptableException notAcceptable =
+                new HttpMediaTypeNotAcceptableException(List.of(MediaType.APPLICATION_JSON));
+        HttpMediaTypeNotSupportedException notSupported =
+                new HttpMediaTypeNotSupportedException(MediaType.TEXT_PLAIN, List.of(MediaType.APPLICATION_JSON));
+        MaxUploadSizeExceededException requestTooLarge = new MaxUploadSizeExceededException(10 << 20,
+                new IllegalStateException(new SizeLimitExceededException("Request too large", 20 << 20, 10 << 20)));
+        MaxUploadSizeExceededException fileTooLarge = new MaxUploadSizeExceededException(1 << 20,
+                new IllegalStateException(new FileSizeLimitExceededException("File too large", 2 << 20, 1 << 20)));
+        ResponseStatusException statusException = new ResponseStatusException(HttpStatus.CONFLICT, REASON);
+        NoResourceFoundException noResource = new NoResourceFoundException(HttpMethod.GET, "static/missing.js");
+        AccessDeniedException accessDenied = new AccessDeniedException("Access is denied");
+        IllegalStateException unexpected = new IllegalStateException("Connection refused");
+
+        return Stream.of(
+                // stack trace of depth of the measuring thread, deeper stacks allocate proportionally more
+                budget("new ApiException", 920, () -> new ApiException(HttpStatus.CONFLICT, REASON, DETAILS)),
+                budget("ApiException.conflict", 72, () -> ApiException.conflict(REASON, DETAILS)),
+                // handlers include Accept header lookup, MockHttpServletRequest lower-cases the header name on each call
+                budget("handleApiException", 184, () -> advice.handleApiException(apiException, request)),
+                budget("handle405", 144, () -> advice.handle405(methodNotSupported, request)),
+                budget("handle400(MethodArgumentNotValidException)", 344, () -> advice.handle400(notValid, request)),
+                budget("handle400(HttpMessageNotReadableException)", 184, () -> advice.handle400(notReadable, request)),
+                budget("handle400(MethodArgumentTypeMismatchException)", 1_080,
+                        () -> advice.handle400(typeMismatch, request)),
+                budget("handle406", 184, () -> advice.handle406(notAcceptable, request)),
+                budget("handle415", 184, () -> advice.handle415(notSupported, request)),
+                budget("handle413(request)", 144, () -> advice.handle413(requestTooLarge, request)),
+                budget("handle413(file)", 144, () -> advice.handle413(fileTooLarge, request)),
+                budget("handleStatusException", 184, () -> advice.handleStatusException(statusException, request)),
+                budget("handle404", 184, () -> advice.handle404(noResource, request)),
+                budget("handle403", 184, () -> advice.handle403(accessDenied, request)),
+                budget("handleUnexpectedException", 216, () -> advice.handleUnexpectedException(unexpected, request)));
+    }
+
+    private static DynamicTest budget(String name, long bytes, Supplier<?> operation) {
+        return DynamicTest.dynamicTest(name, () -> {
+            long[] allocated = new long[1];
+            // a fresh thread keeps the depth of stacks captured by exceptions independent of the test runner
+            Thread thread = new Thread(() -> {
+                run(operation, WARMUP_ITERATIONS);
+                long before = THREADS.getCurrentThreadAllocatedBytes();
+                run(operation, MEASURED_ITERATIONS);
+                allocated[0] = (THREADS.getCurrentThreadAllocatedBytes() - before) / MEASURED_ITERATIONS;
+            }, name);
+            thread.start();
+            thread.join();
+            assertTrue(allocated[0] <= bytes, () -> name + " allocates " + allocated[0] + " B/op, budget is " + bytes);
+        });
+    }
+
+    private static void run(Supplier<?> operation, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            sink = operation.get();
+        }
+    }
+
+    private static MethodParameter parameter(String method, Class<?> type) {
+        try {
+            return new MethodParameter(Controller.class.getMethod(method, type), 0);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    record Order(String name) {
+    }
+
+    interface Controller {
+
+        Order create(Order order);
+
+        Order get(int id);
+    }
+}
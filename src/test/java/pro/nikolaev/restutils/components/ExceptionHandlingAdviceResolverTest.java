@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.components;
+
+import jakarta.servlet.MultipartConfigElement;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.HttpRequestMethodNotSupportedException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.method.HandlerMethod;
+import pro.nikolaev.restutils.converters.ApiErrorHttpMessageConverter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * {@link ExceptionHandlingAdviceResolver} before and after initialization.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+class ExceptionHandlingAdviceResolverTest {
+
+    @RestController
+    static class OrderController {
+
+        @GetMapping("/orders")
+        String orders() {
+            return "[]";
+        }
+    }
+
+    @Configuration
+    static class AdviceConfiguration {
+
+        @Bean
+        ExceptionHandlingAdvice exceptionHandlingAdvice() {
+            ExceptionHandlingAdvice advice = new ExceptionHandlingAdvice(new MultipartConfigElement(""));
+            advice.setExceptionLogger((exception, context) -> {
+            });
+            return advice;
+        }
+
+        @Bean
+        OrderController orderController() {
+            return new OrderController();
+        }
+    }
+
+    @Test
+    void resolvesOnlyAfterInitialization() throws Exception {
+        ExceptionHandlingAdviceResolver resolver =
+                new ExceptionHandlingAdviceResolver(new ApiErrorHttpMessageConverter());
+        HandlerMethod handler = new HandlerMethod(new OrderController(),
+                OrderController.class.getDeclaredMethod("orders"));
+
+        assertNull(resolve(resolver, handler, new MockHttpServletResponse()));
+        assertNull(resolve(resolver, null, new MockHttpServletResponse()));
+
+        try (AnnotationConfigApplicationContext context =
+                     new AnnotationConfigApplicationContext(AdviceConfiguration.class)) {
+            resolver.initialize(context);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertNotNull(resolve(resolver, handler, response));
+        assertEquals(405, response.getStatus());
+        response = new MockHttpServletResponse();
+        assertNotNull(resolve(resolver, null, response));
+        assertEquals(405, response.getStatus());
+    }
+
+    private static Object resolve(ExceptionHandlingAdviceResolver resolver, Object handler,
+                                  MockHttpServletResponse response) {
+        return resolver.resolveException(new MockHttpServletRequest("DELETE", "/orders"), response, handler,
+                new HttpRequestMethodNotSupportedException("DELETE"));
+    }
+}
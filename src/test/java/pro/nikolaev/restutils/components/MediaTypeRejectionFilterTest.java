@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.components;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.MultipartConfigElement;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import pro.nikolaev.restutils.annotations.EnableRestExceptionHandler;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Decisions of {@link MediaTypeRejectionFilter} compared with the ones {@code DispatcherServlet} makes
+ * for the same requests without the filter: the response must be the same, and {@code 415} and {@code 406}
+ * must be returned by the filter before the request reaches the rest of the chain.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+class MediaTypeRejectionFilterTest {
+    private static final String DISPATCHED = MediaTypeRejectionFilterTest.class.getName() + ".DISPATCHED";
+    private static final String JSON = MediaType.APPLICATION_JSON_VALUE;
+    private static final String XML = MediaType.APPLICATION_XML_VALUE;
+    private static final String TEXT = MediaType.TEXT_PLAIN_VALUE;
+
+    private static AnnotationConfigWebApplicationContext context;
+    private static MockMvc filtered;
+    private static MockMvc unfiltered;
+
+    @RestController
+    static class MediaTypeController {
+
+        @GetMapping(value = "/items", produces = JSON)
+        String items() {
+            return "[]";
+        }
+
+        @PostMapping(value = "/items", consumes = JSON)
+        String createItem(@RequestBody String body) {
+            return body;
+        }
+
+        @PutMapping(value = "/items/{id}", consumes = XML, produces = JSON)
+        String updateItem(@PathVariable("id") String id, @RequestBody String body) {
+            return "{\"id\":\"" + id + "\"}";
+        }
+
+        @PostMapping(value = "/documents", consumes = JSON, produces = XML)
+        String jsonToXml(@RequestBody String body) {
+            return "<document/>";
+        }
+
+        @PostMapping(value = "/documents", consumes = XML, produces = JSON)
+        String xmlToJson(@RequestBody String body) {
+            return "{}";
+        }
+
+        @PostMapping(value = "/things/special", consumes = JSON)
+        String special(@RequestBody String body) {
+            return "special";
+        }
+
+        @PostMapping(value = "/things/{id}", consumes = XML)
+        String thing(@PathVariable("id") String id, @RequestBody String body) {
+            return id;
+        }
+
+        @GetMapping(value = "/things/special", produces = JSON)
+        String specialJson() {
+            return "{}";
+        }
+
+        @GetMapping(value = "/things/**", produces = TEXT)
+        String things() {
+            return "things";
+        }
+    }
+
+    @Configuration
+    @EnableWebMvc
+    @EnableRestExceptionHandler
+    static class WebConfiguration {
+
+        @Bean
+        MediaTypeController mediaTypeController() {
+            return new MediaTypeController();
+        }
+
+        @Bean
+        MediaTypeRejectionFilter mediaTypeRejectionFilter() {
+            return new MediaTypeRejectionFilter();
+        }
+
+        @Bean
+        MultipartConfigElement multipartConfigElement() {
+            return new MultipartConfigElement("");
+        }
+    }
+
+    @BeforeAll
+    static void start() {
+        context = new AnnotationConfigWebApplicationContext();
+        context.register(WebConfiguration.class);
+        context.setServletContext(new MockServletContext());
+        context.refresh();
+        Filter dispatched = (request, response, chain) -> {
+            request.setAttribute(DISPATCHED, Boolean.TRUE);
+            chain.doFilter(request, response);
+        };
+        filtered = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(context.getBean(MediaTypeRejectionFilter.class), dispatched)
+                .build();
+        unfiltered = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(dispatched)
+                .build();
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    void partialMatches() throws Exception {
+        assertSameDecision(406, request(HttpMethod.GET, "/items", null, XML));
+        assertSameDecision(406, request(HttpMethod.HEAD, "/items", null, XML));
+        assertSameDecision(200, request(HttpMethod.GET, "/items", null, "application/*"));
+        assertSameDecision(415, request(HttpMethod.POST, "/items", TEXT, null));
+        assertSameDecision(200, request(HttpMethod.POST, "/items", JSON, XML));
+        assertSameDecision(200, request(HttpMethod.POST, "/items", "application/json;charset=UTF-8", null));
+        assertSameDecision(415, request(HttpMethod.PUT, "/items/1", JSON, null));
+        assertSameDecision(406, request(HttpMethod.PUT, "/items/1", XML, XML));
+        assertSameDecision(200, request(HttpMethod.PUT, "/items/1", XML, JSON));
+        assertSameDecision(405, request(HttpMethod.DELETE, "/items", null, XML));
+        assertSameDecision(405, request(HttpMethod.PATCH, "/items", TEXT, null));
+        assertPassedDown(415, request(HttpMethod.POST, "/items", "not a media type", null));
+    }
+
+    @Test
+    void producesConsumesOverlap() throws Exception {
+        assertSameDecision(200, request(HttpMethod.POST, "/documents", JSON, XML));
+        assertSameDecision(200, request(HttpMethod.POST, "/documents", XML, JSON));
+        assertSameDecision(406, request(HttpMethod.POST, "/documents", JSON, JSON));
+        assertSameDecision(406, request(HttpMethod.POST, "/documents", XML, XML));
+        assertSameDecision(200, request(HttpMethod.POST, "/documents", JSON, JSON + ", " + XML + ";q=0.5"));
+        assertSameDecision(415, request(HttpMethod.POST, "/documents", TEXT, JSON));
+        assertSameDecision(415, request(HttpMethod.POST, "/documents", TEXT, null));
+    }
+
+    @Test
+    void patternPriority() throws Exception {
+        assertSameDecision(200, request(HttpMethod.POST, "/things/special", JSON, null));
+        assertSameDecision(200, request(HttpMethod.POST, "/things/special", XML, null));
+        assertSameDecision(415, request(HttpMethod.POST, "/things/special", TEXT, null));
+        assertSameDecision(200, request(HttpMethod.POST, "/things/other", XML, null));
+        assertSameDecision(415, request(HttpMethod.POST, "/things/other", JSON, null));
+        assertSameDecision(200, request(HttpMethod.GET, "/things/special", null, JSON));
+        assertSameDecision(200, request(HttpMethod.GET, "/things/special", null, TEXT));
+        assertSameDecision(406, request(HttpMethod.GET, "/things/special", null, XML));
+        assertSameDecision(406, request(HttpMethod.GET, "/things/a/b", null, JSON));
+        assertSameDecision(405, request(HttpMethod.POST, "/things/a/b", JSON, null));
+    }
+
+    private static MockHttpServletRequestBuilder request(HttpMethod method, String path,
+                                                         String contentType, String accept) {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.request(method, path);
+        if (contentType != null) {
+            byte[] body = "<body/>".getBytes(StandardCharsets.UTF_8);
+            request.header(HttpHeaders.CONTENT_TYPE, contentType)
+                    .header(HttpHeaders.CONTENT_LENGTH, body.length)
+                    .content(body);
+        }
+        if (accept != null) {
+            request.header(HttpHeaders.ACCEPT, accept);
+        }
+        return request;
+    }
+
+    private static void assertSameDecision(int status, MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult result = assertSameResponse(status, request);
+        boolean rejected = status == 406 || status == 415;
+        assertEquals(!rejected, result.getRequest().getAttribute(DISPATCHED) != null, describe(result));
+    }
+
+    private static void assertPassedDown(int status, MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult result = assertSameResponse(status, request);
+        assertEquals(Boolean.TRUE, result.getRequest().getAttribute(DISPATCHED), describe(result));
+    }
+
+    private static MvcResult assertSameResponse(int status, MockHttpServletRequestBuilder request)
+            throws Exception {
+        MvcResult expected = unfiltered.perform(request).andReturn();
+        MvcResult actual = filtered.perform(request).andReturn();
+        String description = describe(actual);
+        MockHttpServletResponse expectedResponse = expected.getResponse();
+        MockHttpServletResponse actualResponse = actual.getResponse();
+        assertEquals(status, expectedResponse.getStatus(), description);
+        assertEquals(status, actualResponse.getStatus(), description);
+        assertEquals(expectedResponse.getContentAsString(StandardCharsets.UTF_8),
+                actualResponse.getContentAsString(StandardCharsets.UTF_8), description);
+        assertEquals(expectedResponse.getContentType(), actualResponse.getContentType(), description);
+        assertEquals(expectedResponse.getHeader(HttpHeaders.ACCEPT), actualResponse.getHeader(HttpHeaders.ACCEPT),
+                description);
+        return actual;
+    }
+
+    private static String describe(MvcResult result) {
+        return result.getRequest().getMethod() + " " + result.getRequest().getRequestURI()
+                + " Content-Type: " + result.getRequest().getHeader(HttpHeaders.CONTENT_TYPE)
+                + " Accept: " + result.getRequest().getHeader(HttpHeaders.ACCEPT);
+    }
+}
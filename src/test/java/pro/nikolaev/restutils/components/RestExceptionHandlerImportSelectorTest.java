@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.components;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+import org.springframework.web.reactive.config.EnableWebFlux;
+import pro.nikolaev.restutils.annotations.EnableRestExceptionHandler;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Choice between {@code Spring MVC} and {@code WebFlux} components of {@link RestExceptionHandlerImportSelector}
+ * with both {@code spring-webmvc} and {@code spring-webflux} on the classpath.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+class RestExceptionHandlerImportSelectorTest {
+
+    @EnableRestExceptionHandler
+    static class MvcConfiguration {
+    }
+
+    @EnableWebFlux
+    @EnableRestExceptionHandler
+    static class WebFluxConfiguration {
+    }
+
+    @Test
+    void webApplicationContextGetsMvcAdvice() {
+        List<String> imports = select(new GenericWebApplicationContext(), MvcConfiguration.class);
+        assertTrue(imports.contains(ExceptionHandlingAdvice.class.getName()));
+        assertTrue(imports.contains(RestUtilsWebMvcConfigurer.class.getName()));
+    }
+
+    @Test
+    void nonWebContextGetsMvcAdvice() {
+        List<String> imports = select(new GenericApplicationContext(), MvcConfiguration.class);
+        assertTrue(imports.contains(ExceptionHandlingAdvice.class.getName()));
+        assertFalse(imports.contains(ReactiveExceptionHandler.class.getName()));
+    }
+
+    @Test
+    void enableWebFluxGetsReactiveHandler() {
+        List<String> imports = select(new GenericApplicationContext(), WebFluxConfiguration.class);
+        assertTrue(imports.contains(ReactiveExceptionHandler.class.getName()));
+        assertFalse(imports.contains(ExceptionHandlingAdvice.class.getName()));
+        assertFalse(imports.contains(RestUtilsWebMvcConfigurer.class.getName()));
+    }
+
+    private static List<String> select(ResourceLoader resourceLoader, Class<?> configuration) {
+        RestExceptionHandlerImportSelector selector = new RestExceptionHandlerImportSelector();
+        selector.setResourceLoader(resourceLoader);
+        return List.of(selector.selectImports(AnnotationMetadata.introspect(configuration)));
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.converters;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import pro.nikolaev.restutils.dto.ApiError;
+import pro.nikolaev.restutils.dto.Violation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link ApiErrorJsonWriter} output is the same as {@code Jackson} serialization of {@link ApiError},
+ * {@link ApiErrorCborWriter} output is decoded by {@code Jackson CBORFactory} back into the same {@link ApiError}.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+class ApiErrorWritersTest {
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final ObjectMapper CBOR = new ObjectMapper(new CBORFactory());
+    private static final String MARKER = ApiErrorJsonWriter.TRUNCATION_MARKER;
+
+    @Test
+    void jsonMatchesObjectMapper() throws IOException {
+        for (ApiError error : errors()) {
+            String expected = new String(JSON.writeValueAsBytes(error), StandardCharsets.UTF_8);
+            assertEquals(expected, json(error, ApiErrorJsonWriter.UNLIMITED));
+            assertEquals(expected, new String(ApiErrorJsonWriter.toBytes(error), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void preparedJsonMatchesObjectMapper() throws IOException {
+        ApiError error = new ApiError("Конфликт \"заказа\"", "Заказ уже оплачен\n", -7);
+        ApiErrorJsonWriter.prepare(error);
+        assertEquals(new String(JSON.writeValueAsBytes(error), StandardCharsets.UTF_8),
+                json(error, ApiErrorJsonWriter.UNLIMITED));
+    }
+
+    @Test
+    void cborRoundTrip() throws IOException {
+        for (ApiError error : errors()) {
+            assertEquals(error, CBOR.readValue(cbor(error, ApiErrorJsonWriter.UNLIMITED), ApiError.class));
+        }
+    }
+
+    @Test
+    void detailsAreTruncatedAlike() throws IOException {
+        assertTruncated("x".repeat(100), 10, "xxxxxxx" + MARKER);
+        assertTruncated("Заказ уже оплачен", 10, "Зак" + MARKER);
+        assertTruncated("ab😀cd", 7, "ab" + MARKER);
+        assertTruncated("short", 5, "short");
+        assertTruncated("", 0, "");
+        // the limit applies to the encoded value, JSON escapes a surrogate pair into 12 bytes
+        assertTruncated("ab😀cdef", 9, "ab😀" + MARKER, "ab" + MARKER);
+        assertTruncated("ab😀cd", 8, "ab😀cd", "ab" + MARKER);
+        assertTruncated("\"\"\"\"", 7, "\"\"\"\"", "\"\"" + MARKER);
+    }
+
+    private static void assertTruncated(String details, int maxDetailsBytes, String expected) throws IOException {
+        assertTruncated(details, maxDetailsBytes, expected, expected);
+    }
+
+    private static void assertTruncated(String details, int maxDetailsBytes, String expectedCbor,
+                                        String expectedJson) throws IOException {
+        ApiError error = new ApiError("Ошибка", details, 1, List.of(new Violation("name", "NotNull", null, 0)));
+        assertEquals(new ApiError("Ошибка", expectedCbor, 1, error.violations()),
+                CBOR.readValue(cbor(error, maxDetailsBytes), ApiError.class), details);
+        assertEquals(new String(JSON.writeValueAsBytes(new ApiError("Ошибка", expectedJson, 1, error.violations())),
+                StandardCharsets.UTF_8), json(error, maxDetailsBytes), details);
+    }
+
+    private static List<ApiError> errors() {
+        List<ApiError> errors = new ArrayList<>(List.of(
+                new ApiError(null, null, null, null),
+                new ApiError("Некорректный запрос", null),
+                new ApiError(null, "Только детали"),
+                new ApiError(null, null, 0),
+                new ApiError("Конфликт", "Заказ уже оплачен", 1001),
+                new ApiError("escapes", "\"quoted\" \\ / \t\r\n\u0000\u001f\u007f   ✓ 😀", null),
+                new ApiError("empty", "", null),
+                new ApiError("Ошибка валидации", "Поле < id > не может быть пустым", 400, List.of(
+                        new Violation("items[2].name", "NotNull", "must not be null", 2),
+                        new Violation(null, "ValidOrder", "заказ \"некорректен\"", null),
+                        new Violation("name", null, null, null),
+                        new Violation(null, null, null, -1))),
+                new ApiError("Без нарушений", null, null, List.of())));
+        for (int code : new int[]{-1, -24, -25, -256, -257, -65536, -65537, Integer.MIN_VALUE,
+                23, 24, 255, 256, 65535, 65536, Integer.MAX_VALUE}) {
+            errors.add(new ApiError("code", null, code));
+        }
+        for (int length : new int[]{23, 24, 255, 256, 65535, 65536}) {
+            char[] details = new char[length];
+            Arrays.fill(details, 'd');
+            errors.add(new ApiError("length", new String(details), length));
+        }
+        return errors;
+    }
+
+    private static String json(ApiError error, int maxDetailsBytes) {
+        return new String(bytes(ApiErrorJsonWriter.write(error, DefaultDataBufferFactory.sharedInstance,
+                maxDetailsBytes)), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] cbor(ApiError error, int maxDetailsBytes) {
+        return bytes(ApiErrorCborWriter.write(error, DefaultDataBufferFactory.sharedInstance, maxDetailsBytes));
+    }
+
+    private static byte[] bytes(DataBuffer buffer) {
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        DataBufferUtils.release(buffer);
+        return bytes;
+    }
+}
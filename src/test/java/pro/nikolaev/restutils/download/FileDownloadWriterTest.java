@@ -0,0 +1,353 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.download;
+
+import jakarta.servlet.MultipartConfigElement;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.Globals;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.startup.Tomcat;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import pro.nikolaev.restutils.annotations.EnableRestExceptionHandler;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link FileDownloadWriter} behind {@code DispatcherServlet} in embedded {@code Tomcat}: ranges, conditional
+ * requests, {@code Content-Disposition} and the sendfile, memory-mapped and channel transfer paths.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+class FileDownloadWriterTest {
+    private static final Instant LAST_MODIFIED = Instant.parse("2024-01-02T03:04:05Z");
+    private static final DateTimeFormatter HTTP_DATE_FORMAT = DateTimeFormatter
+            .ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+    private static final String HTTP_DATE = HTTP_DATE_FORMAT.format(LAST_MODIFIED);
+    private static final String FILE = "abcdefghijklmnopqrstuvwxyz".repeat(40).substring(0, 1000);
+    private static final String ETAG = "\"3e8-" + Long.toHexString(LAST_MODIFIED.toEpochMilli()) + "\"";
+    private static final String UNSATISFIABLE = "{\"message\":\"Диапазон не может быть выдан\","
+            + "\"details\":\"Запрошенный диапазон выходит за пределы файла\"}";
+    private static final Map<String, FileDownloadWriter> WRITERS = Map.of(
+            "sendfile", new FileDownloadWriter().setSendfileThreshold(0).setMappedCacheSize(0),
+            "mapped", new FileDownloadWriter().setSendfileThreshold(-1).setMappedCacheSize(4),
+            "channel", new FileDownloadWriter().setSendfileThreshold(-1).setMappedCacheSize(0));
+
+    @TempDir
+    static Path directory;
+
+    private static Tomcat tomcat;
+    private static HttpClient client;
+    private static String base;
+
+    @RestController
+    static class DownloadController {
+
+        @GetMapping("/files/{name}")
+        FileDownload file(@PathVariable("name") String name) {
+            return FileDownload.attachment(directory.resolve(name));
+        }
+
+        @GetMapping("/report")
+        FileDownload report() {
+            return FileDownload.attachment(directory.resolve("file.txt"), "Отчёт \"2024\" №1.pdf");
+        }
+
+        @GetMapping("/writers/{writer}")
+        void write(@PathVariable("writer") String writer, HttpServletRequest request,
+                   HttpServletResponse response) throws IOException {
+            WRITERS.get(writer).write(FileDownload.inline(directory.resolve("file.txt")), request, response);
+            if (request.getAttribute(Globals.SENDFILE_FILENAME_ATTR) != null) {
+                response.setHeader("X-Sendfile", request.getAttribute(Globals.SENDFILE_FILE_START_ATTR) + "-"
+                        + request.getAttribute(Globals.SENDFILE_FILE_END_ATTR));
+            }
+        }
+    }
+
+    @Configuration
+    @EnableWebMvc
+    @EnableRestExceptionHandler
+    static class WebConfiguration {
+
+        @Bean
+        DownloadController downloadController() {
+            return new DownloadController();
+        }
+
+        @Bean
+        FileDownloadWriter fileDownloadWriter() {
+            return WRITERS.get("channel");
+        }
+
+        @Bean
+        MultipartConfigElement multipartConfigElement() {
+            return new MultipartConfigElement("");
+        }
+    }
+
+    @BeforeAll
+    static void start() throws IOException, LifecycleException {
+        Path file = Files.writeString(directory.resolve("file.txt"), FILE, StandardCharsets.US_ASCII);
+        Files.setLastModifiedTime(file, FileTime.from(LAST_MODIFIED));
+        AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
+        context.register(WebConfiguration.class);
+        tomcat = new Tomcat();
+        tomcat.setPort(0);
+        tomcat.setBaseDir(Files.createDirectories(directory.resolve("tomcat")).toString());
+        Context servletContext = tomcat.addContext("", null);
+        servletContext.addServletContainerInitializer((classes, container) -> {
+            context.setServletContext(container);
+            context.refresh();
+            container.addServlet("dispatcher", new DispatcherServlet(context)).addMapping("/");
+        }, null);
+        tomcat.getConnector();
+        tomcat.start();
+        base = "http://localhost:" + tomcat.getConnector().getLocalPort();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterAll
+    static void stop() throws LifecycleException {
+        tomcat.stop();
+        tomcat.destroy();
+    }
+
+    @Test
+    void wholeFile() throws Exception {
+        HttpResponse<String> response = get("/files/file.txt");
+        assertEquals(200, response.statusCode());
+        assertEquals(FILE, response.body());
+        assertHeader("1000", response, "Content-Length");
+        assertHeader("text/plain", response, "Content-Type");
+        assertHeader("bytes", response, "Accept-Ranges");
+        assertHeader("attachment; filename=\"file.txt\"", response, "Content-Disposition");
+        assertHeader(ETAG, response, "ETag");
+        assertHeader(HTTP_DATE, response, "Last-Modified");
+        assertHeader(null, response, "Content-Range");
+    }
+
+    @Test
+    void singleRange() throws Exception {
+        assertPartial(get("/files/file.txt", "Range", "bytes=100-199"), 100, 199);
+        assertPartial(get("/files/file.txt", "Range", "bytes=990-"), 990, 999);
+        assertPartial(get("/files/file.txt", "Range", "bytes=-5"), 995, 999);
+        assertPartial(get("/files/file.txt", "Range", "bytes=995-5000"), 995, 999);
+    }
+
+    @Test
+    void multipleRanges() throws Exception {
+        HttpResponse<String> response = get("/files/file.txt", "Range", "bytes=0-9,500-509,-5");
+        assertEquals(206, response.statusCode());
+        String contentType = response.headers().firstValue("Content-Type").orElseThrow();
+        assertTrue(contentType.startsWith("multipart/byteranges; boundary="), contentType);
+        String boundary = contentType.substring(contentType.indexOf('=') + 1);
+        String expected = part(boundary, 0, 9) + part(boundary, 500, 509) + part(boundary, 995, 999)
+                + "--" + boundary + "--\r\n";
+        assertEquals(expected, response.body());
+        assertHeader(String.valueOf(expected.length()), response, "Content-Length");
+        assertHeader(null, response, "Content-Range");
+    }
+
+    @Test
+    void unsatisfiableRange() throws Exception {
+        for (String range : new String[]{"bytes=1000-", "bytes=0-999,0-999", "bytes=-0"}) {
+            HttpResponse<String> response = get("/files/file.txt", "Range", range);
+            assertEquals(416, response.statusCode(), range);
+            assertHeader("bytes */1000", response, "Content-Range");
+            assertEquals(UNSATISFIABLE, response.body(), range);
+        }
+        HttpResponse<String> response = get("/files/file.txt", "Range", "bytes=abc");
+        assertEquals(416, response.statusCode());
+        assertHeader("bytes */1000", response, "Content-Range");
+        assertEquals("{\"message\":\"Диапазон не может быть выдан\",\"details\":\"Некорректный заголовок Range\"}",
+                response.body());
+    }
+
+    @Test
+    void missingFile() throws Exception {
+        HttpResponse<String> response = get("/files/missing.txt");
+        assertEquals(404, response.statusCode());
+        assertEquals("{\"message\":\"Не найдено\",\"details\":\"Файл не найден\"}", response.body());
+    }
+
+    @Test
+    void ifRangeWithEtag() throws Exception {
+        assertPartial(get("/files/file.txt", "Range", "bytes=0-9", "If-Range", ETAG), 0, 9);
+        HttpResponse<String> stale = get("/files/file.txt", "Range", "bytes=0-9", "If-Range", "\"3e8-0\"");
+        assertEquals(200, stale.statusCode());
+        assertEquals(FILE, stale.body());
+        HttpResponse<String> weak = get("/files/file.txt", "Range", "bytes=0-9", "If-Range", "W/" + ETAG);
+        assertEquals(200, weak.statusCode());
+        assertEquals(FILE, weak.body());
+    }
+
+    @Test
+    void ifRangeWithDate() throws Exception {
+        assertPartial(get("/files/file.txt", "Range", "bytes=0-9", "If-Range", HTTP_DATE), 0, 9);
+        String earlier = HTTP_DATE_FORMAT.format(LAST_MODIFIED.minusSeconds(1));
+        HttpResponse<String> stale = get("/files/file.txt", "Range", "bytes=0-9", "If-Range", earlier);
+        assertEquals(200, stale.statusCode());
+        assertEquals(FILE, stale.body());
+        HttpResponse<String> malformed = get("/files/file.txt", "Range", "bytes=0-9", "If-Range", "yesterday");
+        assertEquals(200, malformed.statusCode());
+        assertEquals(FILE, malformed.body());
+    }
+
+    @Test
+    void notModified() throws Exception {
+        HttpResponse<String> response = get("/files/file.txt", "If-None-Match", ETAG);
+        assertEquals(304, response.statusCode());
+        assertEquals("", response.body());
+        assertEquals(304, get("/files/file.txt", "If-Modified-Since", HTTP_DATE).statusCode());
+    }
+
+    @Test
+    void headHasNoBody() throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(base + "/files/file.txt"))
+                .method("HEAD", HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertEquals("", response.body());
+        assertHeader("1000", response, "Content-Length");
+    }
+
+    @Test
+    void nonAsciiFilename() throws Exception {
+        HttpResponse<String> response = get("/report");
+        assertHeader("attachment; filename=\"_____ \\\"2024\\\" _1.pdf\"; "
+                + "filename*=UTF-8''%D0%9E%D1%82%D1%87%D1%91%D1%82%20%222024%22%20%E2%84%961.pdf",
+                response, "Content-Disposition");
+        assertHeader("application/pdf", response, "Content-Type");
+    }
+
+    @Test
+    void contentDisposition() {
+        assertEquals("inline; filename=\"a\\\\b.txt\"", FileDownloadWriter.contentDisposition("a\\b.txt", true));
+        assertEquals("attachment; filename=\"__.txt\"; filename*=UTF-8''%F0%9F%93%84%0A.txt",
+                FileDownloadWriter.contentDisposition("📄\n.txt", false));
+        assertEquals("attachment; filename=\"_'_\"; filename*=UTF-8''%C3%A9%27%C3%A9",
+                FileDownloadWriter.contentDisposition("é'é", false));
+    }
+
+    @Test
+    void sendfile() throws Exception {
+        HttpResponse<String> whole = get("/writers/sendfile");
+        assertEquals(FILE, whole.body());
+        assertHeader("0-1000", whole, "X-Sendfile");
+        HttpResponse<String> range = get("/writers/sendfile", "Range", "bytes=100-199");
+        assertPartial(range, 100, 199);
+        assertHeader("100-200", range, "X-Sendfile");
+        HttpResponse<String> ranges = get("/writers/sendfile", "Range", "bytes=0-0,-1");
+        assertEquals(206, ranges.statusCode());
+        assertHeader(null, ranges, "X-Sendfile");
+    }
+
+    @Test
+    void fallbacksWriteSameBody() throws Exception {
+        for (String writer : new String[]{"mapped", "channel"}) {
+            for (int i = 0; i < 3; i++) {
+                HttpResponse<String> whole = get("/writers/" + writer);
+                assertEquals(FILE, whole.body(), writer);
+                assertHeader(null, whole, "X-Sendfile");
+                assertPartial(get("/writers/" + writer, "Range", "bytes=100-199"), 100, 199);
+                HttpResponse<String> ranges = get("/writers/" + writer, "Range", "bytes=0-9,-5");
+                String contentType = ranges.headers().firstValue("Content-Type").orElseThrow();
+                String boundary = contentType.substring(contentType.indexOf('=') + 1);
+                assertEquals(part(boundary, 0, 9, "text/plain") + part(boundary, 995, 999, "text/plain")
+                        + "--" + boundary + "--\r\n", ranges.body(), writer);
+            }
+        }
+    }
+
+    @Test
+    void mappedOnSecondRequest() throws IOException {
+        Path file = directory.resolve("file.txt");
+        long lastModified = LAST_MODIFIED.toEpochMilli();
+        MappedFileCache cache = new MappedFileCache(1, 1000);
+        assertNull(cache.get(file, 1000, lastModified));
+        ByteBuffer mapped = cache.get(file, 1000, lastModified);
+        assertNotNull(mapped);
+        assertEquals(FILE, StandardCharsets.US_ASCII.decode(mapped).toString());
+        assertNotNull(cache.get(file, 1000, lastModified));
+        assertNull(cache.get(file, 1000, lastModified + 1000));
+        assertTrue(mapped.isReadOnly());
+        MappedFileCache tooSmall = new MappedFileCache(1, 999);
+        assertNull(tooSmall.get(file, 1000, lastModified));
+        assertNull(tooSmall.get(file, 1000, lastModified));
+        MappedFileCache disabled = new MappedFileCache(0, 1000);
+        assertNull(disabled.get(file, 1000, lastModified));
+        assertNull(disabled.get(file, 1000, lastModified));
+    }
+
+    private static String part(String boundary, int first, int last) {
+        return part(boundary, first, last, "text/plain");
+    }
+
+    private static String part(String boundary, int first, int last, String contentType) {
+        return "--" + boundary + "\r\nContent-Type: " + contentType + "\r\nContent-Range: bytes " + first + "-"
+                + last + "/1000\r\n\r\n" + FILE.substring(first, last + 1) + "\r\n";
+    }
+
+    private static void assertPartial(HttpResponse<String> response, int first, int last) {
+        assertEquals(206, response.statusCode());
+        assertEquals(FILE.substring(first, last + 1), response.body());
+        assertHeader("bytes " + first + "-" + last + "/1000", response, "Content-Range");
+        assertHeader(String.valueOf(last - first + 1), response, "Content-Length");
+    }
+
+    private static void assertHeader(String expected, HttpResponse<?> response, String name) {
+        assertEquals(expected, response.headers().firstValue(name).orElse(null), name);
+    }
+
+    private static HttpResponse<String> get(String path, String... headers) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(base + path));
+        for (int i = 0; i < headers.length; i += 2) {
+            request.header(headers[i], headers[i + 1]);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.export;
+
+import jakarta.servlet.ServletOutputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import pro.nikolaev.restutils.components.ExceptionHandlingAdvice;
+import pro.nikolaev.restutils.dto.ApiError;
+import pro.nikolaev.restutils.exceptions.ApiException;
+import pro.nikolaev.restutils.logging.ErrorContext;
+import pro.nikolaev.restutils.metrics.ErrorMetrics;
+
+import jakarta.servlet.MultipartConfigElement;
+import jakarta.servlet.WriteListener;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Outcomes of {@link StreamingExportWriter}: an error before the response is committed is left to
+ * {@link ExceptionHandlingAdvice}, an error afterwards ends the body with an error frame and a client
+ * disconnect cancels the export quietly.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+class StreamingExportWriterTest {
+    private static final String ROW = "0123456789";
+
+    private final List<Exception> logged = new ArrayList<>();
+    private final List<ErrorContext> contexts = new ArrayList<>();
+    private final ErrorMetrics errorMetrics = new ErrorMetrics();
+    private final StreamingExportWriter writer = new StreamingExportWriter()
+            .setChunkSize(64)
+            .setExceptionLogger((exception, context) -> {
+                logged.add(exception);
+                contexts.add(context);
+            })
+            .setErrorMetrics(errorMetrics);
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders/export");
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Test
+    void wholeExportIsSentWithContentLength() throws Exception {
+        writer.write(StreamingExport.csv("Заказы.csv", List.of("id", "note"), rows -> {
+            rows.write(new Object[]{1, "a,b"});
+            rows.write(List.of(2, "#1"));
+            rows.write(new Object[]{null, "\"x\""});
+        }), request, response);
+
+        String body = "id,note\r\n1,\"a,b\"\r\n2,\"#1\"\r\n,\"\"\"x\"\"\"\r\n";
+        assertEquals(body, response.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals(body.length(), response.getContentLength());
+        assertEquals("attachment; filename=\"______.csv\"; filename*=UTF-8''%D0%97%D0%B0%D0%BA%D0%B0%D0%B7%D1%8B.csv",
+                response.getHeader("Content-Disposition"));
+    }
+
+    @Test
+    void errorBeforeCommitIsLeftToAdvice() {
+        ApiException conflict = ApiException.conflict("Конфликт", "Данные изменились");
+        Exception thrown = assertThrows(Exception.class, () -> writer.write(StreamingExport.csv("orders.csv",
+                rows -> {
+                    rows.write(List.of(ROW));
+                    throw conflict;
+                }), request, response));
+
+        assertSame(conflict, thrown);
+        assertFalse(response.isCommitted());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertNull(response.getContentType());
+        assertNull(response.getHeader("Content-Disposition"));
+        assertTrue(logged.isEmpty());
+        assertEquals(0, errorMetrics.getTotalCount());
+
+        ExceptionHandlingAdvice advice = new ExceptionHandlingAdvice(new MultipartConfigElement(""));
+        ResponseEntity<ApiError> error = advice.handleApiException(conflict, request);
+        assertEquals(HttpStatus.CONFLICT, error.getStatusCode());
+        assertEquals(new ApiError("Конфликт", "Данные изменились"), error.getBody());
+    }
+
+    @Test
+    void csvErrorAfterCommitEndsWithFrame() throws Exception {
+        IllegalStateException failure = new IllegalStateException("База, \"недоступна\"");
+        writer.write(StreamingExport.csv("orders.csv", rows -> {
+            for (int i = 0; i < 10; i++) {
+                rows.write(List.of(ROW));
+            }
+            rows.write(List.of("#error", "не кадр"));
+            throw failure;
+        }), request, response);
+
+        assertTrue(response.isCommitted());
+        assertEquals(200, response.getStatus());
+        assertEquals((ROW + "\r\n").repeat(10) + "\"#error\",не кадр\r\n"
+                        + "#error,Внутренняя ошибка приложения,\"База, \"\"недоступна\"\"\"\r\n",
+                response.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals(List.of(failure), logged);
+        assertEquals(List.of(new ErrorContext("GET", "/orders/export")), contexts);
+        assertEquals(Map.of("500", 1L), errorMetrics.getStatusCounts());
+    }
+
+    @Test
+    void ndjsonErrorAfterCommitEndsWithFrame() throws Exception {
+        writer.write(StreamingExport.ndjson("orders.ndjson", rows -> {
+            for (int i = 0; i < 10; i++) {
+                rows.write(Map.of("id", i));
+            }
+            throw ApiException.of(HttpStatus.CONFLICT, 42, "Конфликт", "Данные изменились");
+        }), request, response);
+
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            body.append("{\"id\":").append(i).append("}\n");
+        }
+        body.append("{\"error\":{\"message\":\"Конфликт\",\"details\":\"Данные изменились\",\"code\":42}}\n");
+        assertEquals(body.toString(), response.getContentAsString(StandardCharsets.UTF_8));
+        assertTrue(logged.isEmpty());
+        assertEquals(Map.of("409", 1L), errorMetrics.getStatusCounts());
+    }
+
+    @Test
+    void clientDisconnectCancelsExport() throws Exception {
+        MockHttpServletResponse disconnected = new MockHttpServletResponse() {
+            @Override
+            public ServletOutputStream getOutputStream() {
+                return new ServletOutputStream() {
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                    }
+
+                    @Override
+                    public void write(int b) throws IOException {
+                        throw new IOException("Broken pipe");
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        throw new IOException("Broken pipe");
+                    }
+                };
+            }
+        };
+        List<Object> outcome = new ArrayList<>();
+        writer.write(StreamingExport.ndjson("orders.ndjson", rows -> {
+            try {
+                for (int i = 0; i < 1_000; i++) {
+                    rows.write(Map.of("id", i));
+                }
+                outcome.add("finished");
+            } catch (IOException e) {
+                outcome.add(e.getMessage());
+                outcome.add(rows.isCancelled());
+                throw e;
+            }
+        }), request, disconnected);
+
+        assertEquals(List.of("Broken pipe", true), outcome);
+        assertTrue(logged.isEmpty());
+        assertEquals(0, errorMetrics.getTotalCount());
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.multipart;
+
+import jakarta.servlet.MultipartConfigElement;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.Part;
+import org.apache.tomcat.util.http.fileupload.impl.FileSizeLimitExceededException;
+import org.apache.tomcat.util.http.fileupload.impl.SizeException;
+import org.apache.tomcat.util.http.fileupload.impl.SizeLimitExceededException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.DelegatingServletInputStream;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+import pro.nikolaev.restutils.components.ExceptionHandlingAdvice;
+import pro.nikolaev.restutils.dto.ApiError;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Reading of {@link StreamingMultipart} and translation of size limit violations, compared with the errors
+ * {@link StandardServletMultipartResolver} reports for the same violations found by the servlet container.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+class StreamingMultipartTest {
+    private static final String BOUNDARY = "part-boundary";
+    private static final int MAX_FILE_SIZE = 1 << 20;
+    private static final int MAX_REQUEST_SIZE = 2 << 20;
+    private static final MultipartConfigElement LIMITS = new MultipartConfigElement("", MAX_FILE_SIZE,
+            MAX_REQUEST_SIZE, 0);
+
+    private final ExceptionHandlingAdvice advice = new ExceptionHandlingAdvice(LIMITS);
+
+    StreamingMultipartTest() {
+        advice.setExceptionLogger((exception, context) -> {
+        });
+    }
+
+    @Test
+    void readsParts() throws IOException {
+        byte[] body = body(
+                part("title", null, "Отчет"),
+                part("file", "отчет.txt", "content of the file"));
+        StreamingMultipart multipart = new StreamingMultipart(request(body, true), LIMITS);
+
+        StreamingPart title = multipart.next();
+        assertNotNull(title);
+        assertEquals("title", title.getName());
+        assertNull(title.getFilename());
+        assertEquals("Отчет", read(title));
+
+        StreamingPart file = multipart.next();
+        assertNotNull(file);
+        assertEquals("file", file.getName());
+        assertEquals("отчет.txt", file.getFilename());
+        assertEquals("text/plain", file.getContentType());
+        assertEquals("text/plain", file.getHeaders().getFirst("Content-Type"));
+        assertEquals("content of the file", read(file));
+
+        assertNull(multipart.next());
+    }
+
+    @Test
+    void unreadPartIsSkippedOnNext() throws IOException {
+        byte[] body = body(
+                part("first", "first.bin", "x".repeat(100_000)),
+                part("second", "second.bin", "y".repeat(100_000)),
+                part("third", "third.txt", "last"));
+        StreamingMultipart multipart = new StreamingMultipart(request(body, true), LIMITS);
+
+        StreamingPart first = multipart.next();
+        assertNotNull(first);
+        try (InputStream content = first.getInputStream()) {
+            assertArrayEquals("xxxxx".getBytes(StandardCharsets.US_ASCII), content.readNBytes(5));
+        }
+        assertNotNull(multipart.next());
+        StreamingPart third = multipart.next();
+        assertNotNull(third);
+        assertEquals("third", third.getName());
+        assertEquals("last", read(third));
+        assertNull(multipart.next());
+    }
+
+    @Test
+    void fileSizeViolationMatchesServletPath() throws IOException {
+        byte[] body = body(part("file", "large.bin", "x".repeat(MAX_FILE_SIZE + 1)));
+        StreamingMultipart multipart = new StreamingMultipart(request(body, true), LIMITS);
+        StreamingPart part = multipart.next();
+        assertNotNull(part);
+        MaxUploadSizeExceededException e = assertThrows(MaxUploadSizeExceededException.class, () -> read(part));
+
+        assertInstanceOf(FileSizeLimitExceededException.class, e.getCause().getCause());
+        assertEquals(MAX_FILE_SIZE, e.getMaxUploadSize());
+        ResponseEntity<ApiError> response = handle413(e);
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, response.getStatusCode());
+        assertEquals("Максимальный размер загружаемого файла: 1 Mb", response.getBody().details());
+        assertEquals(handle413(servletFailure(new FileSizeLimitExceededException("The field file exceeds "
+                + "its maximum permitted size of " + MAX_FILE_SIZE + " bytes.", MAX_FILE_SIZE + 1, MAX_FILE_SIZE))),
+                response);
+    }
+
+    @Test
+    void requestSizeViolationMatchesServletPath() throws IOException {
+        byte[] body = body(
+                part("first", "first.bin", "x".repeat(MAX_FILE_SIZE - 1000)),
+                part("second", "second.bin", "y".repeat(MAX_FILE_SIZE - 1000)),
+                part("third", "third.bin", "z".repeat(MAX_FILE_SIZE - 1000)));
+        StreamingMultipart multipart = new StreamingMultipart(request(body, false), LIMITS);
+        MaxUploadSizeExceededException e = assertThrows(MaxUploadSizeExceededException.class, () -> {
+            for (StreamingPart part = multipart.next(); part != null; part = multipart.next()) {
+                read(part);
+            }
+        });
+
+        assertInstanceOf(SizeLimitExceededException.class, e.getCause().getCause());
+        assertEquals(MAX_REQUEST_SIZE, e.getMaxUploadSize());
+        ResponseEntity<ApiError> response = handle413(e);
+        assertEquals("Максимальный размер тела запроса: 2 Mb", response.getBody().details());
+        assertEquals(handle413(servletFailure(new SizeLimitExceededException("the request was rejected because "
+                + "its size exceeds the configured maximum", -1, MAX_REQUEST_SIZE))), response);
+    }
+
+    @Test
+    void contentLengthIsRejectedBeforeParsing() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/files") {
+            @Override
+            public ServletInputStream getInputStream() {
+                return new DelegatingServletInputStream(InputStream.nullInputStream()) {
+                    @Override
+                    public int read() {
+                        throw new AssertionError("Body must not be read");
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) {
+                        throw new AssertionError("Body must not be read");
+                    }
+                };
+            }
+        };
+        request.setContentType("multipart/form-data; boundary=" + BOUNDARY);
+        request.addHeader("Content-Length", MAX_REQUEST_SIZE + 1);
+        MaxUploadSizeExceededException e = assertThrows(MaxUploadSizeExceededException.class,
+                () -> new StreamingMultipart(request, LIMITS));
+
+        assertInstanceOf(SizeLimitExceededException.class, e.getCause().getCause());
+        ResponseEntity<ApiError> response = handle413(e);
+        assertEquals("Максимальный размер тела запроса: 2 Mb", response.getBody().details());
+        assertEquals(handle413(servletFailure(new SizeLimitExceededException("the request was rejected because "
+                + "its size exceeds the configured maximum", MAX_REQUEST_SIZE + 1, MAX_REQUEST_SIZE))), response);
+    }
+
+    private ResponseEntity<ApiError> handle413(MaxUploadSizeExceededException e) {
+        return advice.handle413(e, new MockHttpServletRequest("POST", "/files"));
+    }
+
+    /**
+     * Failure reported by {@link StandardServletMultipartResolver} for a size violation found by {@code Tomcat},
+     * which throws it from {@code getParts()} wrapped in {@link IllegalStateException}.
+     */
+    private static MaxUploadSizeExceededException servletFailure(SizeException violation) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/files") {
+            @Override
+            public Collection<Part> getParts() {
+                throw new IllegalStateException(violation);
+            }
+        };
+        request.setContentType("multipart/form-data; boundary=" + BOUNDARY);
+        return assertThrows(MaxUploadSizeExceededException.class,
+                () -> new StandardServletMultipartResolver().resolveMultipart(request));
+    }
+
+    private static MockHttpServletRequest request(byte[] body, boolean contentLength) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/files") {
+            @Override
+            public int getContentLength() {
+                return contentLength ? super.getContentLength() : -1;
+            }
+
+            @Override
+            public long getContentLengthLong() {
+                return contentLength ? super.getContentLengthLong() : -1;
+            }
+        };
+        request.setContentType("multipart/form-data; boundary=" + BOUNDARY);
+        request.setContent(body);
+        return request;
+    }
+
+    private static String part(String name, String filename, String content) {
+        return "--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"" + name + "\""
+                + (filename != null ? "; filename=\"" + filename + "\"\r\nContent-Type: text/plain" : "")
+                + "\r\n\r\n" + content + "\r\n";
+    }
+
+    private static byte[] body(String... parts) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (String part : parts) {
+            body.writeBytes(part.getBytes(StandardCharsets.UTF_8));
+        }
+        body.writeBytes(("--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        return body.toByteArray();
+    }
+
+    private static String read(StreamingPart part) throws IOException {
+        try (InputStream content = part.getInputStream()) {
+            return new String(content.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pro.nikolaev.restutils.upload;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+import pro.nikolaev.restutils.exceptions.ApiException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link ResumableUploads} over {@link FileSystemUploadSessionStore}: chunk retries and conflicts, limits,
+ * expiration, completion and recovery of the chunk journal.
+ *
+ * @author Ilya Nikolaev
+ * @since 1.2
+ */
+class ResumableUploadsTest {
+    private static final String FILE = "0123456789";
+
+    @TempDir
+    Path directory;
+
+    private ResumableUploads uploads;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        uploads = uploads(new FileSystemUploadSessionStore(directory).setForce(false));
+    }
+
+    @Test
+    void uploadsChunksInAnyOrder() throws IOException {
+        String id = uploads.start(FILE.length(), sha256(FILE)).getId();
+        assertEquals(List.of(0, 1), write(id, 2, "89").getMissingChunks());
+        assertEquals(List.of(1), write(id, 0, "0123").getMissingChunks());
+        assertEquals(List.of(), write(id, 1, "4567").getMissingChunks());
+        assertTrue(uploads.complete(id).isCompleted());
+        try (InputStream file = uploads.open(id)) {
+            assertEquals(FILE, new String(file.readAllBytes(), StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    void retryWithSameContentIsAccepted() throws IOException {
+        String id = uploads.start(FILE.length(), null).getId();
+        write(id, 0, "0123");
+        UploadSession session = uploads.writeChunk(id, 0, content("0123"), sha256("0123"));
+        assertEquals(List.of(1, 2), session.getMissingChunks());
+        assertEquals(List.of(1, 2), write(id, 0, "0123").getMissingChunks());
+    }
+
+    @Test
+    void differentContentOfReceivedChunkConflicts() throws IOException {
+        String id = uploads.start(FILE.length(), null).getId();
+        write(id, 0, "0123");
+        assertStatus(409, () -> write(id, 0, "abcd"));
+        assertStatus(409, () -> uploads.writeChunk(id, 0, content("abcd"), sha256("abcd")));
+        write(id, 1, "4567");
+        write(id, 2, "89");
+        assertTrue(uploads.complete(id).isCompleted());
+        try (InputStream file = uploads.open(id)) {
+            assertEquals(FILE, new String(file.readAllBytes(), StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    void chunkBeingWrittenConflicts() throws IOException {
+        String id = uploads.start(FILE.length(), null).getId();
+        InputStream racing = new ByteArrayInputStream("0123".getBytes(StandardCharsets.US_ASCII)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                if (pos == 0) {
+                    assertStatus(409, () -> write(id, 0, "abcd"));
+                }
+                return super.read(b, off, len);
+            }
+        };
+        uploads.writeChunk(id, 0, racing, null);
+        assertArrayEquals(hash("0123"), uploads.find(id).getChunkSha256(0));
+    }
+
+    @Test
+    void storeKeepsFirstRecordOfChunk() throws IOException {
+        FileSystemUploadSessionStore store = new FileSystemUploadSessionStore(directory).setForce(false);
+        String id = uploads(store).start(FILE.length(), null).getId();
+        assertNull(store.recordChunk(id, 0, hash("0123")));
+        assertArrayEquals(hash("0123"), store.recordChunk(id, 0, hash("abcd")));
+        assertArrayEquals(hash("0123"), store.find(id).getChunkSha256(0));
+    }
+
+    @Test
+    void expiredSessionIsGone() throws IOException {
+        String id = uploads.start(FILE.length(), null).getId();
+        ResumableUploads later = uploads(new FileSystemUploadSessionStore(directory))
+                .setClock(Clock.offset(Clock.systemUTC(), Duration.ofHours(25)));
+        assertStatus(410, () -> later.writeChunk(id, 0, content("0123"), null));
+        assertStatus(410, () -> uploads.find(id));
+        assertStatus(410, () -> uploads.find("unknown"));
+    }
+
+    @Test
+    void deletesExpiredSessions() throws IOException {
+        uploads.start(FILE.length(), null);
+        assertEquals(0, uploads.deleteExpired());
+        ResumableUploads later = uploads(new FileSystemUploadSessionStore(directory))
+                .setClock(Clock.offset(Clock.systemUTC(), Duration.ofHours(25)));
+        assertEquals(1, later.deleteExpired());
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void tooLargeFileIsRejected() throws IOException {
+        assertStatus(413, () -> uploads.setMaxSize(9).start(FILE.length(), null));
+        assertStatus(413, () -> uploads.setMaxSize(-1).setMaxChunkCount(2).start(FILE.length(), null));
+        assertStatus(400, () -> uploads.start(0, null));
+    }
+
+    @Test
+    void tooLongChunkIsRejected() throws IOException {
+        String id = uploads.start(FILE.length(), null).getId();
+        assertStatus(413, () -> write(id, 0, "01234"));
+        assertStatus(413, () -> write(id, 2, "890"));
+        assertEquals(List.of(0, 1, 2), uploads.find(id).getMissingChunks());
+    }
+
+    @Test
+    void shortOrMalformedChunkIsRejected() throws IOException {
+        String id = uploads.start(FILE.length(), null).getId();
+        assertStatus(400, () -> write(id, 0, "012"));
+        assertStatus(400, () -> write(id, 3, "0123"));
+        assertStatus(400, () -> write(id, -1, "0123"));
+        assertStatus(400, () -> uploads.writeChunk(id, 0, content("0123"), sha256("abcd")));
+        assertStatus(400, () -> uploads.writeChunk(id, 0, content("0123"), "0123"));
+        assertEquals(List.of(0, 1, 2), uploads.find(id).getMissingChunks());
+    }
+
+    @Test
+    void completeChecksFileHash() throws IOException {
+        String id = uploads.start(FILE.length(), sha256("9876543210")).getId();
+        write(id, 0, "0123");
+        assertStatus(409, () -> uploads.complete(id));
+        write(id, 1, "4567");
+        write(id, 2, "89");
+        assertStatus(409, () -> uploads.complete(id));
+        assertFalse(uploads.find(id).isCompleted());
+        assertStatus(409, () -> uploads.open(id));
+    }
+
+    @Test
+    void completedSessionRejectsChunks() throws IOException {
+        String id = uploads.start(4, null).getId();
+        write(id, 0, "0123");
+        assertTrue(uploads.complete(id).isCompleted());
+        assertTrue(uploads.complete(id).isCompleted());
+        assertStatus(409, () -> write(id, 0, "0123"));
+    }
+
+    @Test
+    void journalIsReloaded() throws IOException {
+        String id = uploads.start(FILE.length(), sha256(FILE)).getId();
+        write(id, 0, "0123");
+        write(id, 2, "89");
+        ResumableUploads reloaded = uploads(new FileSystemUploadSessionStore(directory));
+        UploadSession session = reloaded.find(id);
+        assertEquals(List.of(1), session.getMissingChunks());
+        assertArrayEquals(hash("89"), session.getChunkSha256(2));
+        reloaded.writeChunk(id, 1, content("4567"), null);
+        assertTrue(reloaded.complete(id).isCompleted());
+    }
+
+    @Test
+    void tornJournalRecordIsCutOff() throws IOException {
+        String id = uploads.start(FILE.length(), null).getId();
+        write(id, 0, "0123");
+        Path journal = directory.resolve(id + ".chunks");
+        Files.write(journal, new byte[]{0, 0, 0, 1, 42}, StandardOpenOption.APPEND);
+
+        ResumableUploads reloaded = uploads(new FileSystemUploadSessionStore(directory));
+        assertEquals(List.of(1, 2), reloaded.find(id).getMissingChunks());
+        assertEquals(36, Files.size(journal));
+        reloaded.writeChunk(id, 1, content("4567"), null);
+
+        UploadSession session = uploads(new FileSystemUploadSessionStore(directory)).find(id);
+        assertEquals(List.of(2), session.getMissingChunks());
+        assertArrayEquals(hash("4567"), session.getChunkSha256(1));
+    }
+
+    private static ResumableUploads uploads(UploadSessionStore store) {
+        return new ResumableUploads(store).setChunkSize(4);
+    }
+
+    private UploadSession write(String id, int index, String content) throws IOException {
+        return uploads.writeChunk(id, index, content(content), null);
+    }
+
+    private static InputStream content(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static byte[] hash(String content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.US_ASCII));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String sha256(String content) {
+        return HexFormat.of().formatHex(hash(content));
+    }
+
+    private static void assertStatus(int status, Executable executable) {
+        assertEquals(status, assertThrows(ApiException.class, executable).getStatus().value());
+    }
+}